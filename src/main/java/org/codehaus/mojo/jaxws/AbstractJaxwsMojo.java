@@ -36,18 +36,31 @@
 package org.codehaus.mojo.jaxws;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.maven.artifact.Artifact;
@@ -55,6 +68,7 @@ import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.OverConstrainedVersionException;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.descriptor.PluginDescriptor;
@@ -68,6 +82,7 @@ import org.codehaus.plexus.util.cli.CommandLineException;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.codehaus.plexus.util.cli.Commandline;
 import org.codehaus.plexus.util.cli.StreamConsumer;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 /**
  * @author dantran (dantran@apache.org)
@@ -149,6 +164,13 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
   @Component
   private ToolchainManager toolchainManager;
 
+  /**
+   * Knows the changed resources in incremental IDE builds and is told about
+   * the generated files.
+   */
+  @Component
+  private BuildContext buildContext;
+
   /**
    * If a JDK toolchain is found, by default, it is used to get
    * <code>java</code> executable with its <code>tools.jar</code>. But if set to
@@ -160,6 +182,209 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
   @Parameter (defaultValue = "false")
   private boolean useJdkToolchainExecutable;
 
+  /**
+   * How to launch the tool if no <code>executable</code> is set. Valid values
+   * are:
+   * <ul>
+   * <li><code>fork</code> - every tool invocation runs in a newly started
+   * <code>java</code> process,</li>
+   * <li><code>inprocess</code> - the tool runs inside the Maven JVM, loaded
+   * through an isolated classloader which is cached and shared by all
+   * executions of the build using the same tool dependencies. Only
+   * <code>-D</code> options from <code>vmArgs</code> are honored in this
+   * mode.</li>
+   * <li><code>daemon</code> - the tool runs in a long-lived local JVM which is
+   * started on demand, reused by subsequent builds and stopped after
+   * <code>daemonIdleTimeout</code>. <code>-D</code> options from
+   * <code>vmArgs</code> are passed with every invocation, other options are
+   * used to start the daemon. If the daemon cannot be reached, the tool is
+   * forked.</li>
+   * <li><code>pool</code> - the tool runs in one of <code>poolSize</code> JVMs
+   * started once per build and shared by all executions of all modules of the
+   * reactor. The JVMs are stopped when the build ends, right away if the
+   * plugin is declared with <code>&lt;extensions&gt;true&lt;/extensions&gt;</code>
+   * (Maven 3.2.1 or newer). <code>vmArgs</code> are handled as for
+   * <code>daemon</code>.</li>
+   * </ul>
+   * JDK toolchains are not supported by <code>inprocess</code>. In all modes
+   * other than <code>fork</code>, relative files in tool arguments are
+   * resolved against the project directory, where forked tools run.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.executionMode", defaultValue = EXECUTION_MODE_FORK)
+  private String executionMode;
+
+  /**
+   * Directory holding registry and log files of daemons started by
+   * <code>executionMode=daemon</code>.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.daemonDirectory", defaultValue = "${user.home}/.m2/jaxws-daemon")
+  private File daemonDirectory;
+
+  /**
+   * Number of minutes after which an unused daemon stops itself. Values below
+   * <code>1</code> are treated as <code>1</code>, daemons are never kept
+   * without limit.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.daemonIdleTimeout", defaultValue = "60")
+  private int daemonIdleTimeout;
+
+  /**
+   * Number of tool JVMs in the build-wide pool used by
+   * <code>executionMode=pool</code>. The pool is created by the first
+   * execution needing it, so its size is determined by that execution.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.poolSize", defaultValue = "2")
+  private int poolSize;
+
+  /**
+   * Maximum number of tool invocations of this execution running at the same
+   * time. Every invocation generates into its own directory below
+   * <code>${project.build.directory}/jaxws/work</code>; the results are
+   * copied to the output directories in input order once all invocations
+   * finished. <code>0</code> or less means the number of available
+   * processors, <code>1</code> disables parallel processing.
+   * <p>
+   * Unlike earlier versions, which processed one WSDL or SEI after another,
+   * executions with several stale WSDLs or SEIs therefore run up to one tool
+   * invocation per processor by default. Each needs its own memory; set
+   * <code>1</code> to restore the sequential behavior, for example on build
+   * agents with little memory or when the tool must not run concurrently.
+   * </p>
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.threads", defaultValue = "0")
+  private int threads;
+
+  /**
+   * Start forked tool JVMs with a Class Data Sharing archive of the tool
+   * classes. The archive is created by the first fork for a given java
+   * executable, JVM options and tool classpath and used by all later forks,
+   * which speeds up their startup. Requires Java 13 or later to run the tool,
+   * older JVMs are forked without an archive. Only used by
+   * <code>executionMode=fork</code> without <code>executable</code>.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.classDataSharing", defaultValue = "false")
+  private boolean classDataSharing;
+
+  /**
+   * Directory holding the archives created by <code>classDataSharing</code>.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.classDataSharingDirectory",
+              defaultValue = "${settings.localRepository}/.cache/jaxws-maven-plugin/cds")
+  private File classDataSharingDirectory;
+
+  /**
+   * Tunes forked tool JVMs for their workload. Valid values are:
+   * <ul>
+   * <li><code>fast-startup</code> - serial GC and C1 compiler only, for small
+   * inputs,</li>
+   * <li><code>throughput</code> - parallel GC and full tiered compilation, for
+   * large schemas or many WSDLs per JVM,</li>
+   * <li><code>auto</code> - chooses one of them from the total size of the
+   * input files and the number of tool runs per JVM.</li>
+   * </ul>
+   * The heap is sized from the total size of the input files. Options set in
+   * <code>vmArgs</code> take precedence, the chosen options are logged. If not
+   * set, no options are added. Only used by <code>executionMode=fork</code>
+   * without <code>executable</code>.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.forkProfile")
+  private String forkProfile;
+
+  /**
+   * Reuse generated outputs from a cache shared by all builds of the user. The
+   * outputs of every WSDL or SEI are stored under a fingerprint of its inputs,
+   * the effective tool arguments and the tool version, so projects, branches
+   * and checkouts generating the same code skip the tool and restore the
+   * outputs instead.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.buildCache", defaultValue = "false")
+  private boolean buildCache;
+
+  /**
+   * Directory of the cache used with <code>buildCache</code>.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.buildCacheDirectory", defaultValue = "${user.home}/.m2/jaxws-cache")
+  private File buildCacheDirectory;
+
+  /**
+   * Maximum size of the cache used with <code>buildCache</code> in megabytes.
+   * The least recently used entries are evicted beyond that.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.buildCacheMaxSize", defaultValue = "1024")
+  private long buildCacheMaxSize;
+
+  /**
+   * Base URL of a remote cache shared by several machines, implies
+   * <code>buildCache</code>. Entries missing locally are read with
+   * <code>GET &lt;url&gt;/&lt;key&gt;.zip</code>, generated outputs are
+   * written back with <code>PUT</code> to the same location, so a plain web
+   * server accepting uploads can serve as cache. Credentials can be given as
+   * user info of the URL. If the remote cache cannot be reached, outputs are
+   * generated locally.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.buildCacheUrl")
+  private String buildCacheUrl;
+
+  /**
+   * Only read from the remote cache given by <code>buildCacheUrl</code>, for
+   * example on developer machines while CI builds populate it.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.buildCacheReadOnly", defaultValue = "false")
+  private boolean buildCacheReadOnly;
+
+  /**
+   * Connect timeout for the remote cache in milliseconds.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.buildCacheConnectTimeout", defaultValue = "5000")
+  private int buildCacheConnectTimeout;
+
+  /**
+   * Read timeout for the remote cache in milliseconds.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.buildCacheReadTimeout", defaultValue = "30000")
+  private int buildCacheReadTimeout;
+
+  /**
+   * Remove build specific content, like the timestamps written by XJC, from
+   * the generated sources, so that identical inputs produce byte-identical
+   * outputs. This keeps diffs of generated code free of noise and lets the
+   * build cache share entries between machines.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.reproducibleOutput", defaultValue = "true")
+  private boolean reproducibleOutput;
+
   /**
    * The current build session instance. This is used for toolchain manager API
    * calls.
@@ -167,6 +392,48 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
   @Parameter (defaultValue = "${session}", readonly = true, required = true)
   protected MavenSession session;
 
+  /**
+   * Identifies this execution in stale manifests.
+   */
+  @Parameter (defaultValue = "${mojoExecution}", readonly = true)
+  protected MojoExecution mojoExecution;
+
+  private BuildCache activeBuildCache;
+
+  private final Map <List <String>, Long> jobDurations = Collections.synchronizedMap (new IdentityHashMap <> ());
+
+  private final Set <String> loggedWarnings = Collections.synchronizedSet (new HashSet <> ());
+
+  protected static final String EXECUTION_MODE_FORK = "fork";
+
+  protected static final String EXECUTION_MODE_INPROCESS = "inprocess";
+
+  protected static final String EXECUTION_MODE_DAEMON = "daemon";
+
+  protected static final String EXECUTION_MODE_POOL = "pool";
+
+  private static final List <String> EXECUTION_MODES = Arrays.asList (EXECUTION_MODE_FORK,
+                                                                      EXECUTION_MODE_INPROCESS,
+                                                                      EXECUTION_MODE_DAEMON,
+                                                                      EXECUTION_MODE_POOL);
+
+  private static final long DAEMON_START_TIMEOUT = 30_000L;
+
+  // options of wsimport and wsgen taking a file or directory
+  private static final List <String> PATH_OPTIONS = Arrays.asList ("-b",
+                                                                   "-catalog",
+                                                                   "-d",
+                                                                   "-s",
+                                                                   "-r",
+                                                                   "-x",
+                                                                   "-implDestDir",
+                                                                   "-Xauthfile");
+
+  // options of wsgen taking a path list
+  private static final List <String> PATH_LIST_OPTIONS = Arrays.asList ("-cp", "-classpath");
+
+  private static final Pattern URL_PATTERN = Pattern.compile ("[a-zA-Z][a-zA-Z0-9+.-]+:.*");
+
   // arguments supported by Metro 2.2/JAXWS RI 2.2.6
   private static final List <String> METRO_22 = new ArrayList <> ();
 
@@ -231,6 +498,43 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
 
   protected abstract File getDefaultSrcOut ();
 
+  /**
+   * @return <code>true</code> in incremental IDE builds, where only changed
+   *         resources need to be processed
+   */
+  protected boolean isIncremental ()
+  {
+    return buildContext != null && buildContext.isIncremental ();
+  }
+
+  /**
+   * @param file
+   *        a file or directory
+   * @return <code>false</code> if the file, or any file below the directory,
+   *         did not change since the last incremental IDE build
+   */
+  protected boolean hasDelta (final File file)
+  {
+    return buildContext == null || buildContext.hasDelta (file);
+  }
+
+  /**
+   * Tells the IDE about written or deleted files.
+   *
+   * @param files
+   *        the files
+   */
+  protected void refresh (final Collection <File> files)
+  {
+    if (buildContext != null)
+    {
+      for (final File file : files)
+      {
+        buildContext.refresh (file);
+      }
+    }
+  }
+
   /**
    * Checks if compilation after code generation and let generated sources be
    * compiled by Maven during compilation phase.
@@ -250,6 +554,46 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
   }
 
   protected List <String> getCommonArgs () throws MojoExecutionException
+  {
+    return getCommonArgs (getSourceDestDir (), getDestDir ());
+  }
+
+  /**
+   * Same as {@link #getCommonArgs()} but lets the tool write sources and
+   * classes to the given directories instead of the configured ones, which
+   * are still the ones added as source root.
+   *
+   * @param sourceDestDir
+   *        directory for generated sources
+   * @param destDir
+   *        directory for generated classes
+   * @return the arguments
+   * @throws MojoExecutionException
+   *         if the arguments cannot be determined
+   */
+  protected List <String> getCommonArgs (final File sourceDestDir, final File destDir) throws MojoExecutionException
+  {
+    return getCommonArgs (sourceDestDir, destDir, true);
+  }
+
+  /**
+   * Same as {@link #getCommonArgs(File, File)}, optionally without creating
+   * the directories and adding the source root, so that the arguments can be
+   * fingerprinted without modifying the project.
+   *
+   * @param sourceDestDir
+   *        directory for generated sources
+   * @param destDir
+   *        directory for generated classes
+   * @param prepare
+   *        whether to create the directories and add the source root
+   * @return the arguments
+   * @throws MojoExecutionException
+   *         if the arguments cannot be determined
+   */
+  protected List <String> getCommonArgs (final File sourceDestDir,
+                                         final File destDir,
+                                         final boolean prepare) throws MojoExecutionException
   {
     final List <String> commonArgs = new ArrayList <> ();
 
@@ -257,16 +601,18 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     {
       commonArgs.add ("-keep");
       commonArgs.add ("-s");
-      commonArgs.add ("'" + getSourceDestDir ().getAbsolutePath () + "'");
-      if (!getSourceDestDir ().mkdirs () && !getSourceDestDir ().exists ())
+      commonArgs.add ("'" + sourceDestDir.getAbsolutePath () + "'");
+      if (prepare)
       {
-        getLog ().warn ("Cannot create directory: " + getSourceDestDir ().getAbsolutePath ());
+        if (!sourceDestDir.mkdirs () && !sourceDestDir.exists ())
+        {
+          getLog ().warn ("Cannot create directory: " + sourceDestDir.getAbsolutePath ());
+        }
+        addSourceRoot (getSourceDestDir ().getAbsolutePath ());
       }
-      addSourceRoot (getSourceDestDir ().getAbsolutePath ());
     }
 
-    final File destDir = getDestDir ();
-    if (!destDir.mkdirs () && !destDir.exists ())
+    if (prepare && !destDir.mkdirs () && !destDir.exists ())
     {
       getLog ().warn ("Cannot create directory: " + destDir.getAbsolutePath ());
     }
@@ -286,9 +632,7 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
       }
       else
       {
-        getLog ().warn ("Using platform encoding (" +
-                        System.getProperty ("file.encoding") +
-                        "), build is platform dependent!");
+        warnOnce ("Using platform encoding (" + System.getProperty ("file.encoding") + "), build is platform dependent!");
       }
     }
 
@@ -305,101 +649,841 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     // add additional command line options
     if (args != null)
     {
-      for (final String arg : args)
+      for (final String arg : args)
+      {
+        commonArgs.add (arg);
+      }
+    }
+
+    return commonArgs;
+  }
+
+  protected boolean isArgSupported (final String arg) throws MojoExecutionException
+  {
+    // by default, use latest version supported args
+    List <String> supportedArgs = METRO_23;
+
+    // then try to find old known versions
+    final Artifact a = getToolArtifact ();
+    final ArtifactVersion av = getSelectedVersion (a);
+    final String v = av.toString ();
+    if ("webservices-tools".equals (a.getArtifactId ()))
+    {
+      // Metro
+      if (av.getMajorVersion () == 2 && av.getMinorVersion () == 2)
+      {
+        supportedArgs = av.getIncrementalVersion () == 0 ? METRO_22 : METRO_221;
+      }
+    }
+    else
+    {
+      // RI
+      if (av.getMajorVersion () == 2 && av.getMinorVersion () == 2)
+      {
+        if (av.getIncrementalVersion () == 6)
+        {
+          supportedArgs = METRO_22;
+        }
+        else
+          if (av.getIncrementalVersion () == 7)
+          {
+            supportedArgs = METRO_221;
+          }
+      }
+    }
+
+    final boolean isSupported = supportedArgs.contains (arg);
+    if (!isSupported)
+    {
+      warnOnce ("'" + arg + "' is not supported by " + a.getArtifactId () + ":" + v);
+    }
+    return isSupported;
+  }
+
+  /**
+   * Returns the artifact providing the tool among the plugin's dependencies,
+   * trying Metro first and falling back to the RI.
+   */
+  private Artifact getToolArtifact ()
+  {
+    final Artifact a = pluginDescriptor.getArtifactMap ().get ("org.glassfish.metro:webservices-tools");
+    return a != null ? a : pluginDescriptor.getArtifactMap ().get ("com.sun.xml.ws:jaxws-tools");
+  }
+
+  /**
+   * Identifies the tool which is run, to detect outputs generated by another
+   * tool version.
+   *
+   * @return the tool artifact and version, or the path of the configured
+   *         <code>executable</code>
+   * @throws MojoExecutionException
+   *         if the version cannot be determined
+   */
+  protected String getToolVersion () throws MojoExecutionException
+  {
+    if (executable != null)
+    {
+      return executable.getAbsolutePath ();
+    }
+    final Artifact a = getToolArtifact ();
+    return a == null ? "unknown" : a.getGroupId () + ":" + a.getArtifactId () + ":" + getSelectedVersion (a);
+  }
+
+  private static ArtifactVersion getSelectedVersion (final Artifact artifact) throws MojoExecutionException
+  {
+    try
+    {
+      return artifact.getSelectedVersion ();
+    }
+    catch (final OverConstrainedVersionException ex)
+    {
+      throw new MojoExecutionException (ex.getMessage (), ex);
+    }
+  }
+
+  private boolean isDefaultSrc (final File srcout)
+  {
+    return srcout.equals (getDefaultSrcOut ());
+  }
+
+  @Override
+  public final void execute () throws MojoExecutionException, MojoFailureException
+  {
+    if (executable == null && getJdkToolchain () != null && useJdkToolchainExecutable)
+    {
+      // get executable from JDK toolchain
+      executable = new File (getJdkToolchain ().findTool (getToolName ()));
+    }
+
+    if (!EXECUTION_MODES.contains (executionMode))
+    {
+      throw new MojoExecutionException ("Unsupported executionMode '" +
+                                        executionMode +
+                                        "', use one of " +
+                                        EXECUTION_MODES);
+    }
+
+    if (forkProfile != null && !ForkProfile.PROFILES.contains (forkProfile))
+    {
+      throw new MojoExecutionException ("Unsupported forkProfile '" +
+                                        forkProfile +
+                                        "', use one of " +
+                                        ForkProfile.PROFILES);
+    }
+
+    try
+    {
+      executeJaxws ();
+    }
+    finally
+    {
+      logBuildCacheStatistics ();
+    }
+  }
+
+  public abstract void executeJaxws () throws MojoExecutionException, MojoFailureException;
+
+  /**
+   * Returns the effective execution mode. Tools started through
+   * <code>executable</code> are always forked, as well as tools running on a
+   * JDK toolchain unless a daemon is used.
+   *
+   * @return one of <code>fork</code>, <code>inprocess</code>,
+   *         <code>daemon</code> or <code>pool</code>
+   */
+  protected String getExecutionMode ()
+  {
+    final String mode = getConfiguredExecutionMode ();
+    if (executable != null || (getJdkToolchain () != null && EXECUTION_MODE_INPROCESS.equals (mode)))
+    {
+      if (!EXECUTION_MODE_FORK.equals (mode))
+      {
+        getLog ().debug ("executionMode '" + mode + "' is not supported with executable or toolchain");
+      }
+      return EXECUTION_MODE_FORK;
+    }
+    return mode;
+  }
+
+  /**
+   * @return the configured <code>executionMode</code>, used unless the tool
+   *         must be forked
+   */
+  protected String getConfiguredExecutionMode ()
+  {
+    return executionMode;
+  }
+
+  protected void exec (final List <String> arguments) throws MojoExecutionException
+  {
+    final long start = System.nanoTime ();
+    execTool (arguments);
+    jobDurations.put (arguments, Long.valueOf ((System.nanoTime () - start) / 1000000));
+  }
+
+  /**
+   * Returns how long a successful job took, measured by {@link #exec(List)},
+   * {@link #execBatch(List)} or {@link #execParallel(List, boolean)}. For
+   * jobs run by a batch, the startup of the tool JVM is not included.
+   *
+   * @param job
+   *        tool arguments of the job, the same instance that was run
+   * @return the duration in milliseconds, -1 if unknown
+   */
+  protected long getDuration (final List <String> job)
+  {
+    final Long millis = jobDurations.get (job);
+    return millis == null ? -1 : millis.longValue ();
+  }
+
+  private void execTool (final List <String> arguments) throws MojoExecutionException
+  {
+    if (EXECUTION_MODE_INPROCESS.equals (getExecutionMode ()))
+    {
+      execInProcess (arguments);
+      return;
+    }
+    if (EXECUTION_MODE_DAEMON.equals (getExecutionMode ()) && execInDaemon (arguments))
+    {
+      return;
+    }
+    if (EXECUTION_MODE_POOL.equals (getExecutionMode ()) && execInPool (arguments))
+    {
+      return;
+    }
+
+    final ClassDataSharingArchive cds = getClassDataSharingArchive ();
+    final Commandline cmd = createCommandline (cds, getForkProfileOptions (getInputSize (arguments), 1));
+    for (final String arg : arguments)
+    {
+      cmd.createArg ().setLine (arg);
+    }
+
+    final int rc = executeCommandline (cmd);
+    publishClassDataSharingArchive (cds);
+    if (rc != 0)
+    {
+      throw new MojoExecutionException ("Invocation of " + getLaunched () + " failed - check output");
+    }
+  }
+
+  /**
+   * Runs the tool once for every job. If the tool's class is launched through
+   * {@link Invoker}, all jobs are processed one after another by a single
+   * forked JVM, so JVM startup and class loading are paid for only once.
+   *
+   * @param jobs
+   *        tool arguments of every job, in the same form as passed to
+   *        {@link #exec(List)}
+   * @return status of every job, <code>true</code> if the tool succeeded
+   * @throws MojoExecutionException
+   *         if the tool cannot be launched at all
+   */
+  protected boolean [] execBatch (final List <List <String>> jobs) throws MojoExecutionException
+  {
+    final boolean [] results = new boolean [jobs.size ()];
+    if (jobs.size () < 2 || executable != null || !EXECUTION_MODE_FORK.equals (getExecutionMode ()))
+    {
+      for (int i = 0; i < jobs.size (); i++)
+      {
+        try
+        {
+          exec (jobs.get (i));
+          results[i] = true;
+        }
+        catch (final MojoExecutionException ex)
+        {
+          getLog ().warn (ex.getMessage ());
+          getLog ().debug (ex);
+        }
+      }
+      return results;
+    }
+
+    File jobsFile = null;
+    try
+    {
+      jobsFile = createJobsFile (jobs);
+      long inputSize = 0;
+      for (final List <String> job : jobs)
+      {
+        inputSize += getInputSize (job);
+      }
+      final ClassDataSharingArchive cds = getClassDataSharingArchive ();
+      final Commandline cmd = createCommandline (cds, getForkProfileOptions (inputSize, jobs.size ()));
+      cmd.createArg ().setValue ("-jobs");
+      cmd.createArg ().setValue (jobsFile.getAbsolutePath ());
+      final int rc = executeCommandline (cmd);
+      publishClassDataSharingArchive (cds);
+      return readBatchResults (jobs, new File (jobsFile.getPath () + Invoker.RESULT_FILE_SUFFIX), rc);
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException ("Cannot pass jobs to " + getLaunched (), ex);
+    }
+    finally
+    {
+      if (jobsFile != null && !jobsFile.delete ())
+      {
+        jobsFile.deleteOnExit ();
+      }
+    }
+  }
+
+  /**
+   * Reads the status and duration of every job from the result file written
+   * by {@link Invoker} and deletes it. Jobs without a result failed.
+   *
+   * @param jobs
+   *        the jobs of the batch
+   * @param resultFile
+   *        the result file, which may not exist
+   * @param rc
+   *        exit code of the batch
+   * @return status of every job, <code>true</code> if the tool succeeded
+   * @throws IOException
+   *         if the result file cannot be read
+   */
+  boolean [] readBatchResults (final List <List <String>> jobs, final File resultFile, final int rc) throws IOException
+  {
+    final Properties status = new Properties ();
+    if (resultFile.isFile ())
+    {
+      try (InputStream is = new FileInputStream (resultFile))
+      {
+        status.load (is);
+      }
+      if (!resultFile.delete ())
+      {
+        resultFile.deleteOnExit ();
+      }
+    }
+    else
+    {
+      getLog ().warn ("Invocation of " + getLaunched () + " did not report any results (exit code " + rc + ")");
+    }
+    final boolean [] results = new boolean [jobs.size ()];
+    for (int i = 0; i < jobs.size (); i++)
+    {
+      results[i] = "0".equals (status.getProperty ("job." + i + ".status"));
+      final String millis = status.getProperty ("job." + i + ".millis");
+      if (results[i] && millis != null)
+      {
+        jobDurations.put (jobs.get (i), Long.valueOf (millis));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Returns the effective number of parallel tool invocations.
+   *
+   * @return the number of threads, at least 1
+   */
+  protected int getThreads ()
+  {
+    return threads > 0 ? threads : Runtime.getRuntime ().availableProcessors ();
+  }
+
+  /**
+   * Returns the id of the execution whose units are recorded in the stale
+   * manifests.
+   *
+   * @return the execution id, empty if unknown
+   */
+  protected String getExecutionId ()
+  {
+    return mojoExecution == null ? "" : mojoExecution.getExecutionId ();
+  }
+
+  /**
+   * Returns a new, empty directory below
+   * <code>${project.build.directory}/jaxws/work</code> for the outputs of
+   * parallel tool invocations.
+   *
+   * @return the directory
+   * @throws MojoExecutionException
+   *         if the directory cannot be created
+   */
+  protected File createWorkDirectory () throws MojoExecutionException
+  {
+    final File workRoot = new File (project.getBuild ().getDirectory (), "jaxws/work");
+    try
+    {
+      Files.createDirectories (workRoot.toPath ());
+      return Files.createTempDirectory (workRoot.toPath (), getToolName ()).toFile ();
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException ("Cannot create directory below " + workRoot.getAbsolutePath (), ex);
+    }
+  }
+
+  /**
+   * Runs the jobs on up to {@link #getThreads()} threads. The jobs are dealt
+   * out round-robin, every thread runs its share either through
+   * {@link #execBatch(List)} or one by one through {@link #exec(List)}.
+   * Jobs must not write to the same output directories.
+   *
+   * @param jobs
+   *        tool arguments of every job, in the same form as passed to
+   *        {@link #exec(List)}
+   * @param batch
+   *        <code>true</code> to pass the share of every thread to
+   *        {@link #execBatch(List)}
+   * @return status of every job, <code>true</code> if the tool succeeded
+   * @throws MojoExecutionException
+   *         if the tool cannot be launched at all
+   */
+  protected boolean [] execParallel (final List <List <String>> jobs, final boolean batch) throws MojoExecutionException
+  {
+    final boolean [] results = new boolean [jobs.size ()];
+    final int threadCount = Math.max (1, Math.min (getThreads (), jobs.size ()));
+    if (threadCount > 1 && EXECUTION_MODE_INPROCESS.equals (getExecutionMode ()))
+    {
+      getLog ().debug ("executionMode 'inprocess' runs one tool invocation at a time");
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool (threadCount);
+    try
+    {
+      final List <Future <?>> futures = new ArrayList <> ();
+      for (int t = 0; t < threadCount; t++)
+      {
+        final int first = t;
+        futures.add (executor.submit ( () -> {
+          final List <List <String>> share = new ArrayList <> ();
+          for (int i = first; i < jobs.size (); i += threadCount)
+          {
+            share.add (jobs.get (i));
+          }
+          if (batch)
+          {
+            final boolean [] shareResults = execBatch (share);
+            for (int i = 0; i < shareResults.length; i++)
+            {
+              results[first + i * threadCount] = shareResults[i];
+            }
+          }
+          else
+          {
+            for (int i = 0; i < share.size (); i++)
+            {
+              try
+              {
+                exec (share.get (i));
+                results[first + i * threadCount] = true;
+              }
+              catch (final MojoExecutionException ex)
+              {
+                getLog ().warn (ex.getMessage ());
+                getLog ().debug (ex);
+              }
+            }
+          }
+          return null;
+        }));
+      }
+      for (final Future <?> future : futures)
+      {
+        future.get ();
+      }
+      return results;
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new MojoExecutionException ("Interrupted while waiting for " + getLaunched (), ex);
+    }
+    catch (final ExecutionException ex)
+    {
+      if (ex.getCause () instanceof MojoExecutionException)
+      {
+        throw (MojoExecutionException) ex.getCause ();
+      }
+      throw new MojoExecutionException ("Invocation of " + getLaunched () + " failed", ex.getCause ());
+    }
+    finally
+    {
+      executor.shutdownNow ();
+    }
+  }
+
+  /**
+   * @return the build cache, <code>null</code> if neither
+   *         <code>buildCache</code> nor <code>buildCacheUrl</code> are set
+   */
+  protected BuildCache getBuildCache ()
+  {
+    if ((buildCache || buildCacheUrl != null) && activeBuildCache == null)
+    {
+      final RemoteBuildCache remote = buildCacheUrl == null ? null
+                                                            : new RemoteBuildCache (buildCacheUrl,
+                                                                                    buildCacheConnectTimeout,
+                                                                                    buildCacheReadTimeout,
+                                                                                    buildCacheReadOnly);
+      activeBuildCache = new BuildCache (buildCacheDirectory, buildCacheMaxSize * 1024 * 1024, remote);
+    }
+    return activeBuildCache;
+  }
+
+  /**
+   * Computes the key of a unit in the build cache from everything its outputs
+   * depend on, besides the tool and its JVM options. Paths below the project
+   * directory and the local repository are replaced by placeholders, so that
+   * checkouts in different locations share entries; inputs which end up in
+   * the generated code must therefore be passed as fingerprints.
+   *
+   * @param inputs
+   *        tool arguments and fingerprints of the input files of the unit
+   * @return the key
+   * @throws MojoExecutionException
+   *         if the tool version cannot be determined
+   */
+  protected String getBuildCacheKey (final List <String> inputs) throws MojoExecutionException
+  {
+    final List <String> key = new ArrayList <> ();
+    key.add (getToolName ());
+    key.add (getToolVersion ());
+    key.add (Boolean.toString (reproducibleOutput));
+    if (vmArgs != null)
+    {
+      for (final String vmArg : vmArgs)
+      {
+        key.add (relocate (vmArg));
+      }
+    }
+    for (final String input : inputs)
+    {
+      key.add (relocate (input));
+    }
+    return Fingerprint.of (key);
+  }
+
+  private String relocate (final String s)
+  {
+    String relocated = s;
+    final Map <String, File> dirs = new LinkedHashMap <> ();
+    if (session != null && session.getLocalRepository () != null)
+    {
+      dirs.put ("${localRepository}", new File (session.getLocalRepository ().getBasedir ()));
+    }
+    dirs.put ("${basedir}", project.getBasedir ());
+    for (final Map.Entry <String, File> dir : dirs.entrySet ())
+    {
+      final File file = dir.getValue ().getAbsoluteFile ();
+      String uri = file.toURI ().toString ();
+      if (!uri.endsWith ("/"))
+      {
+        uri += "/";
+      }
+      relocated = relocated.replace (uri, dir.getKey () + "/").replace (file.getPath (), dir.getKey ());
+    }
+    return relocated;
+  }
+
+  /**
+   * Normalizes the outputs of a unit after a successful run of the tool,
+   * before they are cached or installed.
+   *
+   * @param staged
+   *        staged output directories of the unit
+   * @throws IOException
+   *         if a generated file cannot be rewritten
+   * @see OutputNormalizer
+   */
+  protected void normalizeOutputs (final Map <String, File> staged) throws IOException
+  {
+    if (!reproducibleOutput)
+    {
+      return;
+    }
+    int modified = 0;
+    for (final File root : staged.values ())
+    {
+      modified += OutputNormalizer.normalizeTree (root);
+    }
+    if (modified > 0)
+    {
+      getLog ().debug ("Normalized " + modified + " generated files");
+    }
+  }
+
+  /**
+   * Stores the outputs of a unit in the build cache, if enabled. Failures are
+   * logged only, the build does not depend on the cache.
+   */
+  protected void storeInBuildCache (final String key, final Map <String, File> staged)
+  {
+    if (key != null && getBuildCache () != null)
+    {
+      try
+      {
+        getBuildCache ().store (key, staged);
+      }
+      catch (final IOException ex)
+      {
+        getLog ().warn ("Cannot store outputs in build cache: " + ex.getMessage ());
+      }
+    }
+  }
+
+  private void logBuildCacheStatistics ()
+  {
+    if (activeBuildCache == null || activeBuildCache.getHits () + activeBuildCache.getMisses () == 0)
+    {
+      return;
+    }
+    getLog ().info ("Build cache: " +
+                    activeBuildCache.getHits () +
+                    " hits (" +
+                    activeBuildCache.getRemoteHits () +
+                    " remote), " +
+                    activeBuildCache.getMisses () +
+                    " misses, " +
+                    activeBuildCache.getUploads () +
+                    " uploads");
+    if (activeBuildCache.getRemoteFailure () != null)
+    {
+      getLog ().warn ("Remote build cache was not used: " + activeBuildCache.getRemoteFailure ());
+    }
+    try
+    {
+      final Properties totals = activeBuildCache.saveStatistics ();
+      getLog ().debug ("Build cache totals in " + activeBuildCache.getDirectory () + ": " + totals);
+    }
+    catch (final IOException ex)
+    {
+      getLog ().warn ("Cannot update build cache statistics: " + ex.getMessage ());
+    }
+  }
+
+  /**
+   * Returns the directories the tool generates into, keyed by the names under
+   * which the outputs are recorded in the {@link OutputManifest}.
+   */
+  protected Map <String, File> getOutputRoots ()
+  {
+    final Map <String, File> roots = new LinkedHashMap <> ();
+    roots.put ("src", getSourceDestDir ());
+    roots.put ("classes", getDestDir ());
+    return roots;
+  }
+
+  /**
+   * Returns the work directories of a unit, one below <code>unitDir</code> for
+   * each of the {@link #getOutputRoots()}.
+   */
+  protected Map <String, File> getStagedRoots (final File unitDir)
+  {
+    final Map <String, File> staged = new LinkedHashMap <> ();
+    for (final String root : getOutputRoots ().keySet ())
+    {
+      staged.put (root, new File (unitDir, root));
+    }
+    return staged;
+  }
+
+  /**
+   * Returns the total size of the files processed by a tool run, used to tune
+   * forked JVMs.
+   *
+   * @param arguments
+   *        tool arguments, in the same form as passed to
+   *        {@link #exec(List)}
+   * @return the size in bytes, 0 if unknown
+   */
+  protected long getInputSize (final List <String> arguments)
+  {
+    return 0;
+  }
+
+  /**
+   * Returns the JVM options of <code>forkProfile</code> for the next forked
+   * tool JVM.
+   *
+   * @param inputSize
+   *        total size of the files processed by the JVM
+   * @param jobs
+   *        number of tool runs in the JVM
+   * @return the options, empty if no profile is configured
+   * @throws MojoExecutionException
+   *         if <code>vmArgs</code> cannot be parsed
+   */
+  private List <String> getForkProfileOptions (final long inputSize, final int jobs) throws MojoExecutionException
+  {
+    if (forkProfile == null || executable != null)
+    {
+      return Collections.emptyList ();
+    }
+    final String profile = ForkProfile.resolve (forkProfile, inputSize, jobs);
+    final int javaVersion = getJavaFeatureVersion ();
+    final List <String> options = ForkProfile.getJvmOptions (profile, javaVersion, inputSize, getJvmOptions ());
+    getLog ().info ("forkProfile " +
+                    profile +
+                    " (Java " +
+                    (javaVersion == 0 ? "unknown" : Integer.toString (javaVersion)) +
+                    ", " +
+                    inputSize / 1024 +
+                    " KB input, " +
+                    jobs +
+                    (jobs == 1 ? " job): " : " jobs): ") +
+                    options);
+    return options;
+  }
+
+  /**
+   * Returns the Class Data Sharing archive for the next forked tool JVM.
+   *
+   * @return the archive or <code>null</code> if class data sharing is
+   *         disabled, not supported by the JVM or configured through
+   *         <code>vmArgs</code>
+   * @throws MojoExecutionException
+   *         if <code>vmArgs</code> cannot be parsed
+   */
+  private ClassDataSharingArchive getClassDataSharingArchive () throws MojoExecutionException
+  {
+    if (!classDataSharing || executable != null)
+    {
+      return null;
+    }
+    final int javaVersion = getJavaFeatureVersion ();
+    if (javaVersion < ClassDataSharingArchive.MIN_JAVA_VERSION)
+    {
+      getLog ().info ("classDataSharing requires Java " +
+                      ClassDataSharingArchive.MIN_JAVA_VERSION +
+                      " or later, forking " +
+                      getMain () +
+                      " without archive");
+      return null;
+    }
+    final List <String> jvmOptions = getJvmOptions ();
+    for (final String option : jvmOptions)
+    {
+      if (option.startsWith ("-Xshare") ||
+          option.contains ("SharedArchiveFile") ||
+          option.contains ("ArchiveClassesAtExit"))
       {
-        commonArgs.add (arg);
+        getLog ().debug ("class data sharing is configured by vmArgs: " + option);
+        return null;
       }
     }
 
-    return commonArgs;
-  }
-
-  protected boolean isArgSupported (final String arg) throws MojoExecutionException
-  {
-    // by default, use latest version supported args
-    List <String> supportedArgs = METRO_23;
-
-    // then try to find old known versions
-    // try Metro first
-    Artifact a = pluginDescriptor.getArtifactMap ().get ("org.glassfish.metro:webservices-tools");
-    String v = null;
-    if (a != null)
+    final String cp = getInvokerCP ().m_sCP;
+    for (final String entry : cp.split (File.pathSeparator))
     {
-      final ArtifactVersion av = getSelectedVersion (a);
-      v = av.toString ();
-      if (av.getMajorVersion () == 2 && av.getMinorVersion () == 2)
+      if (!entry.isEmpty () && !new File (entry).isFile ())
       {
-        supportedArgs = av.getIncrementalVersion () == 0 ? METRO_22 : METRO_221;
+        // the JVM refuses to dump or map archives for directories
+        getLog ().debug ("class data sharing requires jar files only on classpath: " + entry);
+        return null;
       }
     }
-    else
+
+    final String key = ClassDataSharingArchive.getKey (getJavaExecutable (), getJavaHome (), jvmOptions, cp);
+    try
     {
-      // fallback to RI
-      a = pluginDescriptor.getArtifactMap ().get ("com.sun.xml.ws:jaxws-tools");
-      final ArtifactVersion av = getSelectedVersion (a);
-      v = av.toString ();
-      if (av.getMajorVersion () == 2 && av.getMinorVersion () == 2)
+      final ClassDataSharingArchive cds = new ClassDataSharingArchive (classDataSharingDirectory, key);
+      if (cds.isDumping ())
       {
-        if (av.getIncrementalVersion () == 6)
-        {
-          supportedArgs = METRO_22;
-        }
-        else
-          if (av.getIncrementalVersion () == 7)
-          {
-            supportedArgs = METRO_221;
-          }
+        getLog ().info ("Creating class data sharing archive " + cds.getArchive ());
+      }
+      else
+      {
+        getLog ().debug ("Using class data sharing archive " + cds.getArchive ());
       }
+      return cds;
     }
-
-    final boolean isSupported = supportedArgs.contains (arg);
-    if (!isSupported)
+    catch (final IOException ex)
     {
-      getLog ().warn ("'" + arg + "' is not supported by " + a.getArtifactId () + ":" + v);
+      getLog ().warn ("Cannot create class data sharing archive in " + classDataSharingDirectory + ": " + ex);
+      return null;
     }
-    return isSupported;
   }
 
-  private static ArtifactVersion getSelectedVersion (final Artifact artifact) throws MojoExecutionException
+  private void publishClassDataSharingArchive (final ClassDataSharingArchive cds)
   {
+    if (cds == null)
+    {
+      return;
+    }
     try
     {
-      return artifact.getSelectedVersion ();
+      cds.publish ();
     }
-    catch (final OverConstrainedVersionException ex)
+    catch (final IOException ex)
     {
-      throw new MojoExecutionException (ex.getMessage (), ex);
+      getLog ().warn ("Cannot store class data sharing archive " + cds.getArchive () + ": " + ex);
     }
   }
 
-  private boolean isDefaultSrc (final File srcout)
-  {
-    return srcout.equals (getDefaultSrcOut ());
-  }
-
-  @Override
-  public final void execute () throws MojoExecutionException, MojoFailureException
+  /**
+   * Returns the feature version (8, 11, 17...) of the JVM running the tool,
+   * read from the <code>release</code> file of the JDK toolchain, if any.
+   *
+   * @return the version or 0 if it cannot be determined
+   */
+  protected int getJavaFeatureVersion ()
   {
-    if (executable == null && getJdkToolchain () != null && useJdkToolchainExecutable)
+    final File javaHome = new File (getJavaHome ());
+    // java.home of Java 8 may point to the JRE within the JDK
+    for (final File release : new File [] { new File (javaHome, "release"),
+                                            new File (javaHome.getParentFile (), "release") })
     {
-      // get executable from JDK toolchain
-      executable = new File (getJdkToolchain ().findTool (getToolName ()));
+      if (release.isFile ())
+      {
+        final Properties p = new Properties ();
+        try (InputStream is = new FileInputStream (release))
+        {
+          p.load (is);
+        }
+        catch (final IOException ex)
+        {
+          getLog ().debug ("Cannot read " + release, ex);
+          continue;
+        }
+        final String version = p.getProperty ("JAVA_VERSION");
+        if (version != null)
+        {
+          return parseJavaFeatureVersion (version.replace ("\"", ""));
+        }
+      }
     }
+    return getJdkToolchain () == null ? parseJavaFeatureVersion (System.getProperty ("java.specification.version"))
+                                      : 0;
+  }
 
-    executeJaxws ();
+  static int parseJavaFeatureVersion (final String version)
+  {
+    final Matcher m = Pattern.compile ("^(?:1\\.)?(\\d+)").matcher (version == null ? "" : version.trim ());
+    return m.find () ? Integer.parseInt (m.group (1)) : 0;
   }
 
-  public abstract void executeJaxws () throws MojoExecutionException, MojoFailureException;
+  private String getLaunched ()
+  {
+    return executable != null ? executable.getName () : getMain ();
+  }
 
-  protected void exec (final List <String> arguments) throws MojoExecutionException
+  /**
+   * Creates the command line launching either the configured executable or
+   * the tool's class through {@link Invoker}, without tool arguments.
+   *
+   * @param cds
+   *        archive to use or create, may be <code>null</code>
+   * @param profileOptions
+   *        JVM options of <code>forkProfile</code>
+   * @return the command line
+   * @throws MojoExecutionException
+   *         if the executable cannot be executed
+   */
+  private Commandline createCommandline (final ClassDataSharingArchive cds,
+                                         final List <String> profileOptions) throws MojoExecutionException
   {
-    String launched = "";
     final Commandline cmd = new Commandline ();
 
     if (executable != null)
     {
       // use JDK wsgen/wsimport or equivalent executable
-      launched = executable.getName ();
       if (executable.isFile () && executable.canExecute ())
       {
         cmd.setExecutable (executable.getAbsolutePath ());
@@ -417,18 +1501,10 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     else
     {
       // use tool's class through Invoker as java execution
-      launched = getMain ();
-
-      if (getJdkToolchain () == null)
-      {
-        // use java executable from running Maven
-        cmd.setExecutable (new File (new File (System.getProperty ("java.home"), "bin"),
-                                     getJavaExec ()).getAbsolutePath ());
-      }
-      else
+      cmd.setExecutable (getJavaExecutable ());
+      for (final String arg : profileOptions)
       {
-        // use java executable from current JDK toolchain
-        cmd.setExecutable (getJdkToolchain ().findTool ("java"));
+        cmd.createArg ().setValue (arg);
       }
 
       // add additional JVM options
@@ -444,8 +1520,20 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
       {
         cmd.createArg ().setValue ("-Xbootclasspath/p:" + classpath.m_sEndorsedCP);
       }
-      cmd.createArg ().setValue ("-cp");
-      cmd.createArg ().setValue (classpath.m_sInvokerPath);
+      if (cds != null)
+      {
+        // put the tool on the application class path, Invoker's class loader
+        // delegates to it, so the tool classes can be archived
+        cmd.createArg ().setValue ("-Xlog:cds*=off");
+        cmd.createArg ().setValue (cds.getJvmOption ());
+        cmd.createArg ().setValue ("-cp");
+        cmd.createArg ().setValue (classpath.m_sCP);
+      }
+      else
+      {
+        cmd.createArg ().setValue ("-cp");
+        cmd.createArg ().setValue (classpath.m_sInvokerPath);
+      }
       cmd.createArg ().setLine (Invoker.class.getCanonicalName ());
       cmd.createArg ().setLine (getMain ());
       final String extraCp = getExtraClasspath ();
@@ -465,11 +1553,11 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     }
 
     cmd.setWorkingDirectory (project.getBasedir ());
-    for (final String arg : arguments)
-    {
-      cmd.createArg ().setLine (arg);
-    }
+    return cmd;
+  }
 
+  private int executeCommandline (final Commandline cmd) throws MojoExecutionException
+  {
     try
     {
       final String fullCommand = cmd.toString ();
@@ -494,10 +1582,7 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
       // simply calls System.out.println() without further checks...
       final StreamConsumer sc = line -> System.out.println (line);
       // StreamConsumer sc = new DefaultConsumer();
-      if (CommandLineUtils.executeCommandLine (cmd, sc, sc) != 0)
-      {
-        throw new MojoExecutionException ("Invocation of " + launched + " failed - check output");
-      }
+      return CommandLineUtils.executeCommandLine (cmd, sc, sc);
     }
     catch (final CommandLineException t)
     {
@@ -505,6 +1590,322 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     }
   }
 
+  /**
+   * Runs the tool's class inside the Maven JVM.
+   *
+   * @param arguments
+   *        tool arguments, in the same form as passed to
+   *        {@link #exec(List)}
+   * @throws MojoExecutionException
+   *         if the tool fails
+   * @see ToolRunner
+   */
+  private void execInProcess (final List <String> arguments) throws MojoExecutionException
+  {
+    final InvokerCP classpath = getInvokerCP ();
+    final String cp = classpath.m_sEndorsedCP.isEmpty () ? classpath.m_sCP
+                                                         : classpath.m_sEndorsedCP +
+                                                           File.pathSeparator +
+                                                           classpath.m_sCP;
+    final String [] toolArgs = resolvePaths (toToolArgs (arguments), project.getBasedir ());
+    final Properties sysProps = getToolSystemProperties ();
+    for (final String vmArg : getJvmOptions ())
+    {
+      warnOnce ("Ignoring JVM option '" + vmArg + "' in " + EXECUTION_MODE_INPROCESS + " mode");
+    }
+    if (getLog ().isDebugEnabled ())
+    {
+      getLog ().debug (getMain () + " " + String.join (" ", toolArgs));
+    }
+
+    try (LineOutputStream out = new LineOutputStream (line -> getLog ().info (line)))
+    {
+      if (!ToolRunner.run (getMain (), cp, getExtraClasspath (), toolArgs, out, sysProps))
+      {
+        throw new MojoExecutionException ("Invocation of " + getMain () + " failed - check output");
+      }
+    }
+    catch (final MojoExecutionException e)
+    {
+      throw e;
+    }
+    catch (final Exception e)
+    {
+      throw new MojoExecutionException ("Invocation of " + getMain () + " failed: " + e.getMessage (), e);
+    }
+  }
+
+  /**
+   * Runs the tool's class in a daemon JVM, starting the daemon if needed.
+   *
+   * @param arguments
+   *        tool arguments, in the same form as passed to
+   *        {@link #exec(List)}
+   * @return <code>false</code> if the daemon is not available and the tool
+   *         has not been run
+   * @throws MojoExecutionException
+   *         if the tool fails
+   * @see WorkerDaemon
+   */
+  private boolean execInDaemon (final List <String> arguments) throws MojoExecutionException
+  {
+    final List <String> launch = getWorkerLaunchCommand (WorkerDaemon.class);
+    // files among the tokens (java, plugin classes) contribute size and time
+    // stamp, so rebuilt plugin or replaced java gets a new daemon
+    final String key = ToolRunner.fingerprint (String.join (File.pathSeparator, launch));
+    final String jdk = ToolRunner.fingerprint (getJavaExecutable () +
+                                               File.pathSeparator +
+                                               new File (getJavaHome (), "release").getAbsolutePath ());
+    final WorkerProtocol.Job job = createWorkerJob (arguments);
+    if (getLog ().isDebugEnabled ())
+    {
+      getLog ().debug ("jaxws daemon " + key + ": " + getMain () + " " + String.join (" ", job.m_aArgs));
+    }
+    if (daemonIdleTimeout < 1)
+    {
+      warnOnce ("daemonIdleTimeout must be at least 1 minute, using 1");
+    }
+    try
+    {
+      if (!WorkerDaemon.run (daemonDirectory,
+                             key,
+                             jdk,
+                             launch,
+                             Math.max (1, daemonIdleTimeout) * 60_000L,
+                             DAEMON_START_TIMEOUT,
+                             job,
+                             line -> getLog ().info (line)))
+      {
+        throw new MojoExecutionException ("Invocation of " + getMain () + " failed - check output");
+      }
+      return true;
+    }
+    catch (final WorkerProtocol.JobFailedException ex)
+    {
+      // the tool may have run, forking it again could mix outputs of both
+      throw new MojoExecutionException ("Invocation of " + getMain () + " failed: " + ex.getMessage (), ex);
+    }
+    catch (final IOException ex)
+    {
+      getLog ().warn ("jaxws daemon is not available, forking " + getMain () + ": " + ex.getMessage ());
+      getLog ().debug (ex);
+      return false;
+    }
+  }
+
+  /**
+   * Runs the tool's class in a JVM from the build-wide worker pool.
+   *
+   * @param arguments
+   *        tool arguments, in the same form as passed to
+   *        {@link #exec(List)}
+   * @return <code>false</code> if no worker is available and the tool has not
+   *         been run
+   * @throws MojoExecutionException
+   *         if the tool fails
+   * @see WorkerPool
+   */
+  private boolean execInPool (final List <String> arguments) throws MojoExecutionException
+  {
+    final List <String> launch = getWorkerLaunchCommand (WorkerPool.class);
+    final String key = ToolRunner.fingerprint (String.join (File.pathSeparator, launch));
+    final WorkerProtocol.Job job = createWorkerJob (arguments);
+    if (getLog ().isDebugEnabled ())
+    {
+      getLog ().debug ("jaxws worker pool " + key + ": " + getMain () + " " + String.join (" ", job.m_aArgs));
+    }
+    try
+    {
+      final WorkerPool pool = WorkerPoolRegistry.get (session, key, launch, Math.max (1, poolSize));
+      if (!pool.run (job, line -> getLog ().info (line)))
+      {
+        throw new MojoExecutionException ("Invocation of " + getMain () + " failed - check output");
+      }
+      return true;
+    }
+    catch (final WorkerProtocol.JobFailedException ex)
+    {
+      // the tool may have run, forking it again could mix outputs of both
+      throw new MojoExecutionException ("Invocation of " + getMain () + " failed: " + ex.getMessage (), ex);
+    }
+    catch (final IOException ex)
+    {
+      getLog ().warn ("jaxws worker is not available, forking " + getMain () + ": " + ex.getMessage ());
+      getLog ().debug (ex);
+      return false;
+    }
+  }
+
+  /**
+   * Creates the command starting a long-running worker JVM.
+   *
+   * @param mainClass
+   *        main class of the worker
+   * @return the command
+   * @throws MojoExecutionException
+   *         if <code>vmArgs</code> cannot be parsed
+   */
+  private List <String> getWorkerLaunchCommand (final Class <?> mainClass) throws MojoExecutionException
+  {
+    final InvokerCP classpath = getInvokerCP ();
+    final List <String> launch = new ArrayList <> ();
+    launch.add (getJavaExecutable ());
+    launch.addAll (getJvmOptions ());
+    if (!isModular ())
+    {
+      launch.add ("-Xbootclasspath/p:" + classpath.m_sEndorsedCP);
+    }
+    launch.add ("-cp");
+    launch.add (classpath.m_sInvokerPath);
+    launch.add (mainClass.getName ());
+    return launch;
+  }
+
+  private WorkerProtocol.Job createWorkerJob (final List <String> arguments) throws MojoExecutionException
+  {
+    return new WorkerProtocol.Job (getMain (),
+                                   getInvokerCP ().m_sCP,
+                                   getExtraClasspath (),
+                                   resolvePaths (toToolArgs (arguments), project.getBasedir ()),
+                                   getToolSystemProperties ());
+  }
+
+  /**
+   * Returns system properties specified as <code>-D</code> options in
+   * <code>vmArgs</code>.
+   *
+   * @return system properties for tools running in a shared JVM
+   * @throws MojoExecutionException
+   *         if an option cannot be parsed
+   */
+  private Properties getToolSystemProperties () throws MojoExecutionException
+  {
+    final Properties sysProps = new Properties ();
+    if (vmArgs != null)
+    {
+      for (final String vmArg : toToolArgs (vmArgs))
+      {
+        final int idx = vmArg.indexOf ('=');
+        if (vmArg.startsWith ("-D") && idx > 2)
+        {
+          sysProps.setProperty (vmArg.substring (2, idx), vmArg.substring (idx + 1));
+        }
+      }
+    }
+    return sysProps;
+  }
+
+  /**
+   * Returns options from <code>vmArgs</code> which are not system properties.
+   *
+   * @return JVM options
+   * @throws MojoExecutionException
+   *         if an option cannot be parsed
+   */
+  private List <String> getJvmOptions () throws MojoExecutionException
+  {
+    final List <String> options = new ArrayList <> ();
+    if (vmArgs != null)
+    {
+      for (final String vmArg : toToolArgs (vmArgs))
+      {
+        if (!vmArg.startsWith ("-D") || vmArg.indexOf ('=') < 3)
+        {
+          options.add (vmArg);
+        }
+      }
+    }
+    return options;
+  }
+
+  /**
+   * Splits the arguments the same way {@link Commandline} does for forked
+   * processes.
+   *
+   * @param arguments
+   *        arguments as passed to {@link #exec(List)}
+   * @return single tokens, with quotes removed
+   * @throws MojoExecutionException
+   *         if an argument cannot be parsed
+   */
+  protected static String [] toToolArgs (final List <String> arguments) throws MojoExecutionException
+  {
+    final List <String> result = new ArrayList <> ();
+    for (final String arg : arguments)
+    {
+      try
+      {
+        result.addAll (Arrays.asList (CommandLineUtils.translateCommandline (arg)));
+      }
+      catch (final Exception ex)
+      {
+        throw new MojoExecutionException ("Cannot parse argument: " + arg, ex);
+      }
+    }
+    return result.toArray (new String [0]);
+  }
+
+  /**
+   * Resolves relative file arguments against the project directory. Forked
+   * tools run in the project directory, while tools sharing a JVM run in the
+   * working directory of that JVM, so relative paths in <code>args</code>
+   * would otherwise resolve differently depending on
+   * <code>executionMode</code>. Values of options taking a file or a path
+   * list are resolved, as are WSDL files passed without an option. URLs and
+   * absolute paths are kept.
+   *
+   * @param toolArgs
+   *        single tokens as returned by {@link #toToolArgs(List)}
+   * @param basedir
+   *        the project directory
+   * @return the tokens with resolved paths
+   */
+  static String [] resolvePaths (final String [] toolArgs, final File basedir)
+  {
+    final String [] result = toolArgs.clone ();
+    for (int i = 0; i < result.length; i++)
+    {
+      final String arg = result[i];
+      if (i + 1 < result.length && PATH_OPTIONS.contains (arg))
+      {
+        result[i + 1] = resolvePath (result[i + 1], basedir);
+        i++;
+      }
+      else
+        if (i + 1 < result.length && PATH_LIST_OPTIONS.contains (arg))
+        {
+          final List <String> entries = new ArrayList <> ();
+          for (final String entry : result[i + 1].split (File.pathSeparator))
+          {
+            entries.add (resolvePath (entry, basedir));
+          }
+          result[i + 1] = String.join (File.pathSeparator, entries);
+          i++;
+        }
+        else
+          if (i + 1 < result.length && "-wsdllocation".equals (arg))
+          {
+            // ends up in the generated code as given
+            i++;
+          }
+          else
+            if (!arg.startsWith ("-") && arg.endsWith (".wsdl"))
+            {
+              result[i] = resolvePath (arg, basedir);
+            }
+    }
+    return result;
+  }
+
+  private static String resolvePath (final String path, final File basedir)
+  {
+    if (path.isEmpty () || new File (path).isAbsolute () || URL_PATTERN.matcher (path).matches ())
+    {
+      return path;
+    }
+    return new File (basedir, path).getPath ();
+  }
+
   private static boolean isModular ()
   {
     try
@@ -530,9 +1931,25 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     }
     else
     {
-      getLog ().warn (option +
-                      " may not supported on older JDKs.\n" +
-                      "Use <args> to bypass this warning if you really want to use it.");
+      warnOnce (option +
+                " may not supported on older JDKs.\n" +
+                "Use <args> to bypass this warning if you really want to use it.");
+    }
+  }
+
+  /**
+   * Logs a warning about the configuration only the first time it occurs in
+   * this execution, as the tool arguments are built several times: for the
+   * stale check, the build cache key and every job.
+   *
+   * @param message
+   *        the warning
+   */
+  protected void warnOnce (final String message)
+  {
+    if (loggedWarnings.add (message))
+    {
+      getLog ().warn (message);
     }
   }
 
@@ -626,6 +2043,17 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     return isWindows () ? "java.exe" : "java";
   }
 
+  private String getJavaExecutable ()
+  {
+    if (getJdkToolchain () == null)
+    {
+      // use java executable from running Maven
+      return new File (new File (System.getProperty ("java.home"), "bin"), getJavaExec ()).getAbsolutePath ();
+    }
+    // use java executable from current JDK toolchain
+    return getJdkToolchain ().findTool ("java");
+  }
+
   private String getJavaHome ()
   {
     // by default, java.home from JDK/JRE running Maven
@@ -661,6 +2089,38 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     return f;
   }
 
+  /**
+   * Writes the job manifest read by {@link Invoker} in batch mode.
+   *
+   * @param jobs
+   *        tool arguments of every job
+   * @return the manifest file
+   * @throws IOException
+   *         if the file cannot be written
+   * @throws MojoExecutionException
+   *         if an argument cannot be parsed
+   */
+  static File createJobsFile (final List <List <String>> jobs) throws IOException, MojoExecutionException
+  {
+    final File f = File.createTempFile ("jax-ws-mvn-plugin-jobs", ".txt");
+    final Properties p = new Properties ();
+    p.setProperty ("jobs", Integer.toString (jobs.size ()));
+    for (int i = 0; i < jobs.size (); i++)
+    {
+      final String [] jobArgs = toToolArgs (jobs.get (i));
+      p.setProperty ("job." + i + ".args", Integer.toString (jobArgs.length));
+      for (int j = 0; j < jobArgs.length; j++)
+      {
+        p.setProperty ("job." + i + ".arg." + j, jobArgs[j]);
+      }
+    }
+    try (FileOutputStream fos = new FileOutputStream (f))
+    {
+      p.store (fos, null);
+    }
+    return f;
+  }
+
   private static boolean isWindows ()
   {
     return Os.isFamily (Os.FAMILY_WINDOWS);
@@ -713,7 +2173,10 @@ abstract class AbstractJaxwsMojo extends AbstractMojo
     {
       vmArgs = new ArrayList <> ();
     }
-    vmArgs.add (vmArg);
+    if (!vmArgs.contains (vmArg))
+    {
+      vmArgs.add (vmArg);
+    }
   }
 
   private boolean isEndorsedArtifact (final Artifact a)
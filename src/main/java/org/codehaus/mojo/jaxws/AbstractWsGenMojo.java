@@ -40,11 +40,19 @@ import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.jws.WebService;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -111,6 +119,9 @@ abstract class AbstractWsGenMojo extends AbstractJaxwsMojo
   private boolean xnocompile;
 
   /**
+   * Do not overwrite existing generated files. Files already present in the
+   * output directories are kept as they are, also when the generated content
+   * differs.
    */
   @Parameter (defaultValue = "false")
   private boolean xdonotoverwrite;
@@ -129,6 +140,37 @@ abstract class AbstractWsGenMojo extends AbstractJaxwsMojo
   @Parameter
   private File metadata;
 
+  /**
+   * The folder containing the manifest used to determine if the output is
+   * stale. The manifest records SHA-256 fingerprints of the class files every
+   * SEI depends on, of the dependencies, the tool arguments and the tool
+   * version; wsgen runs for a SEI again only if one of them changed.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (defaultValue = "${project.build.directory}/jaxws/stale")
+  private File staleFile;
+
+  private static final String STALE_MANIFEST_NAME = "wsgen-manifest.properties";
+
+  private static final String OUTPUT_MANIFEST_NAME = "wsgen-outputs.properties";
+
+  private static final String HISTORY_NAME = "wsgen-history.properties";
+
+  private StaleManifest staleManifest;
+
+  private OutputManifest outputManifest;
+
+  private BuildHistory history;
+
+  private final TypeClosure.Cache typeCache = new TypeClosure.Cache ();
+
+  private final Map <String, Map <String, String>> seiFingerprints = new HashMap <> ();
+
+  private String dependencyFingerprint;
+
+  private String portableDependencyFingerprint;
+
   protected abstract File getResourceDestDir ();
 
   protected abstract File getClassesDir ();
@@ -136,7 +178,96 @@ abstract class AbstractWsGenMojo extends AbstractJaxwsMojo
   @Override
   public void executeJaxws () throws MojoExecutionException, MojoFailureException
   {
-    final Set <String> seis = new HashSet <> ();
+    if (genWsdl && !"war".equals (project.getPackaging ()))
+    {
+      final Resource r = new Resource ();
+      r.setDirectory (getRelativePath (project.getBasedir (), getResourceDestDir ()));
+      project.addResource (r);
+    }
+    loadManifests ();
+    if (isIncremental () && !hasInputDelta ())
+    {
+      getLog ().debug ("No class file of an endpoint changed");
+      return;
+    }
+    final Set <String> seis = getSEIs ();
+    final List <String> staleSeis = new ArrayList <> ();
+    for (final String aSei : seis)
+    {
+      final String reason = getStaleReason (aSei);
+      history.recordCheck (getSeiId (aSei), reason != null);
+      if (reason != null)
+      {
+        getLog ().info ("Processing: " + aSei + " (" + reason + ")");
+        staleSeis.add (aSei);
+      }
+      else
+      {
+        getLog ().info ("Ignoring: " + aSei);
+      }
+    }
+    try
+    {
+      removeObsoleteSeis (seis);
+      processSeis (staleSeis);
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException (ex.getMessage (), ex);
+    }
+    finally
+    {
+      try
+      {
+        staleManifest.save ();
+        outputManifest.save ();
+        history.save ();
+      }
+      catch (final IOException ex)
+      {
+        getLog ().warn ("Cannot save stale manifest: " + ex.getMessage ());
+      }
+    }
+    copyMetadata ();
+  }
+
+  /**
+   * Determines which SEIs of this execution the next build would process or
+   * remove, without running the tool or modifying any file. Along with the
+   * reason, the report lists the estimated duration of every SEI
+   * (<code>estimatedMillis</code>, -1 if unknown) and from the history how
+   * often it was checked (<code>checks</code>), found stale
+   * (<code>staleChecks</code>) and processed (<code>runs</code>).
+   *
+   * @param report
+   *        the report to add the SEIs to, keyed by class name
+   * @throws MojoExecutionException
+   *         if the SEIs or the tool cannot be determined
+   * @throws MojoFailureException
+   *         if there are no SEIs
+   */
+  protected void checkSeis (final VerifyReport report) throws MojoExecutionException, MojoFailureException
+  {
+    final Set <String> seis = getSEIs ();
+    loadManifests ();
+    for (final String aSei : seis)
+    {
+      final String id = getSeiId (aSei);
+      report.add (aSei, getStaleReason (aSei));
+      report.addDetail (aSei, "estimatedMillis", history.estimate (id, getInputSize (aSei)));
+      report.addDetail (aSei, "checks", history.getChecks (id));
+      report.addDetail (aSei, "staleChecks", history.getStaleCount (id));
+      report.addDetail (aSei, "runs", history.getRuns (id));
+    }
+    for (final String id : getObsoleteSeis (seis))
+    {
+      report.add (staleManifest.get (id).get ("sei"), "SEI removed");
+    }
+  }
+
+  private Set <String> getSEIs () throws MojoExecutionException, MojoFailureException
+  {
+    final Set <String> seis = new TreeSet <> ();
     if (sei != null)
     {
       seis.add (sei);
@@ -150,18 +281,385 @@ abstract class AbstractWsGenMojo extends AbstractJaxwsMojo
     {
       throw new MojoFailureException ("No @javax.jws.WebService found.");
     }
-    for (final String aSei : seis)
+    return seis;
+  }
+
+  /**
+   * Returns whether a class file of an endpoint of this execution or the
+   * metadata file changed since the last incremental IDE build. Without a
+   * configured <code>sei</code>, any changed class may be a new endpoint.
+   */
+  private boolean hasInputDelta ()
+  {
+    if (metadata != null && hasDelta (metadata))
+    {
+      return true;
+    }
+    if (sei == null)
+    {
+      return hasDelta (getClassesDir ());
+    }
+    final String executionKey = getExecutionKey ();
+    boolean recorded = false;
+    for (final String id : staleManifest.getIds ())
+    {
+      final Map <String, String> entry = staleManifest.get (id);
+      if (executionKey.equals (entry.get ("execution")))
+      {
+        recorded = true;
+        for (final String className : ImportClosure.parse (entry.get ("classes")).keySet ())
+        {
+          if (hasDelta (getClassFile (className)))
+          {
+            return true;
+          }
+        }
+      }
+    }
+    return !recorded;
+  }
+
+  private File getClassFile (final String className)
+  {
+    return new File (getClassesDir (), className.replace ('.', '/') + ".class");
+  }
+
+  private void loadManifests ()
+  {
+    staleManifest = new StaleManifest (new File (staleFile, STALE_MANIFEST_NAME));
+    outputManifest = new OutputManifest (new File (staleFile, OUTPUT_MANIFEST_NAME));
+    history = new BuildHistory (new File (staleFile, HISTORY_NAME));
+  }
+
+  /**
+   * Returns the size of the class files a SEI depends on, known once its
+   * stale reason was determined.
+   */
+  private long getInputSize (final String aSei)
+  {
+    final Map <String, String> fingerprints = seiFingerprints.get (aSei);
+    long size = 0;
+    if (fingerprints != null)
+    {
+      for (final String className : ImportClosure.parse (fingerprints.get ("classes")).keySet ())
+      {
+        size += getClassFile (className).length ();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Runs wsgen for every stale SEI, on up to <code>threads</code> threads.
+   * Every SEI is generated into its own work directory; once it succeeded,
+   * its outputs are copied to the output directories in the order of the SEI
+   * names and recorded in the output manifest. Failures of parallel
+   * invocations are reported together.
+   */
+  private void processSeis (final List <String> seis) throws MojoExecutionException
+  {
+    if (seis.isEmpty ())
+    {
+      return;
+    }
+    final File workDir = createWorkDirectory ();
+    try
+    {
+      final BuildCache cache = getBuildCache ();
+      final List <String> generated = new ArrayList <> ();
+      final List <Map <String, File>> staged = new ArrayList <> ();
+      final List <String> keys = new ArrayList <> ();
+      final List <List <String>> jobs = new ArrayList <> ();
+      for (int i = 0; i < seis.size (); i++)
+      {
+        final File seiDir = new File (workDir, Integer.toString (i));
+        final Map <String, File> seiRoots = getStagedRoots (seiDir);
+        final String key = cache != null ? getBuildCacheKey (seis.get (i)) : null;
+        if (key != null && cache.restore (key, seiRoots))
+        {
+          getLog ().info ("Restored from build cache: " + seis.get (i));
+          installOutputs (seis.get (i), seiRoots, null);
+          continue;
+        }
+        generated.add (seis.get (i));
+        staged.add (seiRoots);
+        keys.add (key);
+        final ArrayList <String> args = getWsGenArgs (seis.get (i),
+                                                      new File (seiDir, "src"),
+                                                      new File (seiDir, "classes"),
+                                                      new File (seiDir, "resources"));
+        getLog ().info ("jaxws:wsgen args: " + args);
+        jobs.add (args);
+      }
+
+      if (generated.size () <= 1 || getThreads () <= 1)
+      {
+        for (int i = 0; i < jobs.size (); i++)
+        {
+          exec (jobs.get (i));
+          normalizeOutputs (staged.get (i));
+          storeInBuildCache (keys.get (i), staged.get (i));
+          installOutputs (generated.get (i), staged.get (i), jobs.get (i));
+        }
+        return;
+      }
+
+      final boolean [] results = execParallel (jobs, false);
+      final List <String> failed = new ArrayList <> ();
+      for (int i = 0; i < results.length; i++)
+      {
+        if (results[i])
+        {
+          normalizeOutputs (staged.get (i));
+          storeInBuildCache (keys.get (i), staged.get (i));
+          installOutputs (generated.get (i), staged.get (i), jobs.get (i));
+        }
+        else
+        {
+          getLog ().error ("Processing of " + generated.get (i) + " failed");
+          failed.add (generated.get (i));
+        }
+      }
+      if (!failed.isEmpty ())
+      {
+        throw new MojoExecutionException ("Invocation of " + getMain () + " failed for " + failed + " - check output");
+      }
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException (ex.getMessage (), ex);
+    }
+    finally
+    {
+      try
+      {
+        FileUtils.deleteDirectory (workDir);
+      }
+      catch (final IOException ex)
+      {
+        getLog ().warn ("Cannot delete directory: " + workDir.getAbsolutePath ());
+      }
+    }
+  }
+
+  /**
+   * Compares the current fingerprints of a SEI, of all classes it depends on
+   * and of the wsgen invocation with the ones recorded in the stale manifest.
+   *
+   * @return why wsgen must run for the SEI, <code>null</code> if its outputs
+   *         are up to date
+   */
+  private String getStaleReason (final String aSei) throws MojoExecutionException
+  {
+    final String id = getSeiId (aSei);
+    final Map <String, String> previous = staleManifest.get (id);
+    final Map <String, String> fingerprints = new LinkedHashMap <> ();
+    fingerprints.put ("sei", aSei);
+    fingerprints.put ("execution", getExecutionKey ());
+    final Map <String, String> classes;
+    try
+    {
+      classes = TypeClosure.scan (getClassesDir (), aSei, typeCache);
+    }
+    catch (final IOException ex)
+    {
+      getLog ().debug (ex);
+      return "cannot read class: " + ex.getMessage ();
+    }
+    fingerprints.put ("classes", ImportClosure.format (classes));
+    fingerprints.put ("dependencies", getDependencyFingerprint ());
+    fingerprints.put ("args",
+                      Fingerprint.of (getWsGenArgs (aSei, getSourceDestDir (), getDestDir (), getResourceDestDir ())));
+    if (metadata != null)
+    {
+      String metadataFingerprint;
+      try
+      {
+        metadataFingerprint = Fingerprint.of (metadata);
+      }
+      catch (final IOException ex)
+      {
+        metadataFingerprint = ImportClosure.UNAVAILABLE;
+      }
+      fingerprints.put ("metadata", metadataFingerprint);
+    }
+    fingerprints.put ("tool", getToolVersion ());
+    seiFingerprints.put (aSei, fingerprints);
+
+    final String reason = StaleManifest.getChange (previous, fingerprints);
+    if ("classes changed".equals (reason))
+    {
+      final String classChange = TypeClosure.getChange (ImportClosure.parse (previous.get ("classes")), classes);
+      if (classChange != null)
+      {
+        return classChange;
+      }
+    }
+    return reason != null ? reason : outputManifest.getDamage (id, getOutputRoots ());
+  }
+
+  private String getSeiId (final String aSei)
+  {
+    return Fingerprint.of (Arrays.asList (getExecutionKey (), aSei));
+  }
+
+  /**
+   * Identifies this execution and its output directory, shared by the
+   * manifest entries of all its SEIs.
+   */
+  private String getExecutionKey ()
+  {
+    return Fingerprint.of (Arrays.asList (getExecutionId (), getDestDir ().getAbsolutePath ()));
+  }
+
+  /**
+   * Returns the manifest entries of SEIs of this execution which were
+   * deleted or renamed since the last build.
+   */
+  private List <String> getObsoleteSeis (final Set <String> seis)
+  {
+    final String executionKey = getExecutionKey ();
+    final List <String> obsolete = new ArrayList <> ();
+    for (final String id : staleManifest.getIds ())
+    {
+      final Map <String, String> entry = staleManifest.get (id);
+      if (executionKey.equals (entry.get ("execution")) && !seis.contains (entry.get ("sei")))
+      {
+        obsolete.add (id);
+      }
+    }
+    return obsolete;
+  }
+
+  /**
+   * Forgets SEIs of this execution which were deleted or renamed since the
+   * last build and deletes the files generated for them, except those other
+   * SEIs generated too.
+   */
+  private void removeObsoleteSeis (final Set <String> seis) throws IOException
+  {
+    for (final String id : getObsoleteSeis (seis))
+    {
+      final List <File> deleted = outputManifest.remove (id, getOutputRoots ());
+      getLog ().info ("Removed " + deleted.size () + " files generated for " + staleManifest.get (id).get ("sei"));
+      refresh (deleted);
+      staleManifest.remove (id);
+      history.remove (id);
+    }
+  }
+
+  /**
+   * Fingerprints the dependencies by file name, size and modification time,
+   * which is enough to notice changed versions and rebuilt snapshots.
+   */
+  private String getDependencyFingerprint ()
+  {
+    if (dependencyFingerprint == null)
+    {
+      final List <String> stamps = new ArrayList <> ();
+      for (final Artifact a : project.getArtifacts ())
+      {
+        final File file = a.getFile ();
+        if (file != null)
+        {
+          stamps.add (file.getAbsolutePath () + " " + file.length () + " " + file.lastModified ());
+        }
+      }
+      dependencyFingerprint = Fingerprint.of (stamps);
+    }
+    return dependencyFingerprint;
+  }
+
+  private void markUpToDate (final String aSei)
+  {
+    final Map <String, String> fingerprints = seiFingerprints.get (aSei);
+    if (fingerprints != null)
+    {
+      staleManifest.put (getSeiId (aSei), fingerprints);
+    }
+  }
+
+  /**
+   * Computes the key of a SEI in the build cache from the classes it depends
+   * on, the dependencies and the effective arguments.
+   */
+  private String getBuildCacheKey (final String aSei) throws MojoExecutionException, IOException
+  {
+    final Map <String, String> fingerprints = seiFingerprints.get (aSei);
+    final List <String> inputs = new ArrayList <> ();
+    inputs.add (aSei);
+    inputs.add (fingerprints.get ("classes"));
+    inputs.add (String.valueOf (fingerprints.get ("metadata")));
+    inputs.add (getPortableDependencyFingerprint ());
+    inputs.addAll (getWsGenArgs (aSei, getSourceDestDir (), getDestDir (), getResourceDestDir ()));
+    return getBuildCacheKey (inputs);
+  }
+
+  /**
+   * Fingerprints the dependencies by their coordinates, and snapshots and
+   * reactor modules by their content, which unlike
+   * {@link #getDependencyFingerprint()} is the same on every machine.
+   */
+  private String getPortableDependencyFingerprint () throws IOException
+  {
+    if (portableDependencyFingerprint == null)
+    {
+      final List <String> coordinates = new ArrayList <> ();
+      for (final Artifact a : project.getArtifacts ())
+      {
+        final File file = a.getFile ();
+        String content = "";
+        if (file != null && file.isDirectory ())
+        {
+          // reactor module
+          content = " " + Fingerprint.ofTree (file);
+        }
+        else
+          if (file != null && file.isFile () && a.isSnapshot ())
+          {
+            content = " " + Fingerprint.of (file);
+          }
+        coordinates.add (a.getId () + content);
+      }
+      Collections.sort (coordinates);
+      portableDependencyFingerprint = Fingerprint.of (coordinates);
+    }
+    return portableDependencyFingerprint;
+  }
+
+  private void installOutputs (final String aSei,
+                               final Map <String, File> staged,
+                               final List <String> job) throws IOException
+  {
+    final List <File> changed = outputManifest.install (getSeiId (aSei), staged, getOutputRoots (), !xdonotoverwrite);
+    for (final File file : changed)
+    {
+      if (!file.exists ())
+      {
+        getLog ().debug ("Deleted file no longer generated: " + file);
+      }
+    }
+    refresh (changed);
+    markUpToDate (aSei);
+    if (job != null && getDuration (job) >= 0)
+    {
+      history.recordRun (getSeiId (aSei), getInputSize (aSei), getDuration (job));
+    }
+  }
+
+  @Override
+  protected Map <String, File> getOutputRoots ()
+  {
+    final Map <String, File> roots = super.getOutputRoots ();
+    if (genWsdl)
     {
-      processSei (aSei);
+      roots.put ("resources", getResourceDestDir ());
     }
+    return roots;
   }
 
-  protected void processSei (final String aSei) throws MojoExecutionException
+  private void copyMetadata () throws MojoExecutionException
   {
-    getLog ().info ("Processing: " + aSei);
-    final ArrayList <String> args = getWsGenArgs (aSei);
-    getLog ().info ("jaxws:wsgen args: " + args);
-    exec (args);
     if (metadata != null)
     {
       try
@@ -204,10 +702,13 @@ abstract class AbstractWsGenMojo extends AbstractJaxwsMojo
   /**
    * Returns wsgen's command arguments as a list
    */
-  private ArrayList <String> getWsGenArgs (final String aSei) throws MojoExecutionException
+  private ArrayList <String> getWsGenArgs (final String aSei,
+                                          final File sourceDestDir,
+                                          final File destDir,
+                                          final File resourceDir) throws MojoExecutionException
   {
     final ArrayList <String> args = new ArrayList <> ();
-    args.addAll (getCommonArgs ());
+    args.addAll (getCommonArgs (sourceDestDir, destDir));
 
     if (this.genWsdl)
     {
@@ -237,19 +738,12 @@ abstract class AbstractWsGenMojo extends AbstractJaxwsMojo
         args.add (portname);
       }
 
-      final File resourceDir = getResourceDestDir ();
       if (!resourceDir.mkdirs () && !resourceDir.exists ())
       {
         getLog ().warn ("Cannot create directory: " + resourceDir.getAbsolutePath ());
       }
       args.add ("-r");
       args.add ("'" + resourceDir.getAbsolutePath () + "'");
-      if (!"war".equals (project.getPackaging ()))
-      {
-        final Resource r = new Resource ();
-        r.setDirectory (getRelativePath (project.getBasedir (), getResourceDestDir ()));
-        project.addResource (r);
-      }
     }
 
     if (xdonotoverwrite)
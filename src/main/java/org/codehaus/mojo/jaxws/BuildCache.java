@@ -0,0 +1,497 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Content-addressable cache of generated outputs, shared by all builds of a
+ * user.
+ * <p>
+ * Every entry is a zip file of the outputs of one unit, named by the key of
+ * the unit: a fingerprint of everything the outputs depend on. Entries are
+ * written to a temporary file and moved into place, so readers never see a
+ * partial entry and need no lock. Storing and eviction hold an exclusive
+ * lock on the cache directory, so that concurrent builds can share it. A
+ * restored entry is touched, and once the cache exceeds its size, the least
+ * recently used entries are evicted.
+ * </p>
+ * <p>
+ * An optional {@link RemoteBuildCache} is read on local misses and written
+ * after local stores. Once it fails, it is not used for the rest of the
+ * build, so an unreachable remote cache costs at most one timeout.
+ * </p>
+ */
+final class BuildCache
+{
+  private static final String LOCK_FILE = ".lock";
+
+  private static final String STATISTICS_FILE = "statistics.properties";
+
+  private static final String ENTRY_SUFFIX = ".zip";
+
+  /** File locks are held per JVM, so threads of one build synchronize here */
+  private static final ConcurrentMap <String, Object> LOCKS = new ConcurrentHashMap <> ();
+
+  private final File m_aDir;
+  private final long m_nMaxSize;
+  private final RemoteBuildCache m_aRemote;
+  private volatile String m_sRemoteFailure;
+  private final AtomicInteger m_aHits = new AtomicInteger ();
+  private final AtomicInteger m_aMisses = new AtomicInteger ();
+  private final AtomicInteger m_aStores = new AtomicInteger ();
+  private final AtomicInteger m_aEvictions = new AtomicInteger ();
+  private final AtomicInteger m_aRemoteHits = new AtomicInteger ();
+  private final AtomicInteger m_aUploads = new AtomicInteger ();
+
+  /**
+   * @param dir
+   *        the cache directory
+   * @param maxSize
+   *        maximum total size of all entries in bytes
+   */
+  BuildCache (final File dir, final long maxSize)
+  {
+    this (dir, maxSize, null);
+  }
+
+  /**
+   * @param dir
+   *        the cache directory
+   * @param maxSize
+   *        maximum total size of all entries in bytes
+   * @param remote
+   *        the remote cache, may be <code>null</code>
+   */
+  BuildCache (final File dir, final long maxSize, final RemoteBuildCache remote)
+  {
+    m_aDir = dir;
+    m_nMaxSize = maxSize;
+    m_aRemote = remote;
+  }
+
+  File getDirectory ()
+  {
+    return m_aDir;
+  }
+
+  File getEntry (final String key)
+  {
+    return new File (m_aDir, key.substring (0, 2) + File.separator + key + ENTRY_SUFFIX);
+  }
+
+  /**
+   * Extracts the outputs of a unit into its work directories.
+   *
+   * @param key
+   *        key of the unit
+   * @param staged
+   *        work directories keyed by root name
+   * @return <code>true</code> if the cache has an entry for the key
+   */
+  boolean restore (final String key, final Map <String, File> staged)
+  {
+    final File entry = getEntry (key);
+    try
+    {
+      if (!entry.isFile () && download (key, entry))
+      {
+        m_aRemoteHits.incrementAndGet ();
+      }
+      unzip (entry, staged);
+      // for least recently used eviction
+      entry.setLastModified (System.currentTimeMillis ());
+      m_aHits.incrementAndGet ();
+      return true;
+    }
+    catch (final FileNotFoundException | NoSuchFileException ex)
+    {
+      m_aMisses.incrementAndGet ();
+      return false;
+    }
+    catch (final IOException ex)
+    {
+      // corrupt or just evicted, generate again
+      for (final File dir : staged.values ())
+      {
+        try
+        {
+          FileUtils.deleteDirectory (dir);
+        }
+        catch (final IOException ignored)
+        {
+          // the tool overwrites what is left
+        }
+      }
+      m_aMisses.incrementAndGet ();
+      return false;
+    }
+  }
+
+  /**
+   * Stores the outputs of a unit and evicts least recently used entries if
+   * the cache became too large.
+   *
+   * @param key
+   *        key of the unit
+   * @param staged
+   *        work directories keyed by root name
+   * @throws IOException
+   *         if the entry cannot be written
+   */
+  void store (final String key, final Map <String, File> staged) throws IOException
+  {
+    final File entry = getEntry (key);
+    if (entry.isFile ())
+    {
+      return;
+    }
+    final File dir = entry.getParentFile ();
+    Files.createDirectories (dir.toPath ());
+    final File tmp = File.createTempFile (key, ".tmp", dir);
+    try
+    {
+      if (zip (staged, tmp) == 0)
+      {
+        return;
+      }
+      withLock ( () -> {
+        try
+        {
+          Files.move (tmp.toPath (), entry.toPath (), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (final AtomicMoveNotSupportedException ex)
+        {
+          Files.move (tmp.toPath (), entry.toPath (), StandardCopyOption.REPLACE_EXISTING);
+        }
+        m_aStores.incrementAndGet ();
+        evict ();
+        return null;
+      });
+    }
+    finally
+    {
+      Files.deleteIfExists (tmp.toPath ());
+    }
+    if (isRemoteAvailable () && !m_aRemote.isReadOnly () && entry.isFile ())
+    {
+      try
+      {
+        m_aRemote.upload (key, entry);
+        m_aUploads.incrementAndGet ();
+      }
+      catch (final IOException ex)
+      {
+        m_sRemoteFailure = ex.toString ();
+      }
+    }
+  }
+
+  /**
+   * Downloads an entry from the remote cache into the local one.
+   *
+   * @return <code>true</code> if the remote cache had the entry
+   */
+  private boolean download (final String key, final File entry) throws IOException
+  {
+    if (!isRemoteAvailable ())
+    {
+      return false;
+    }
+    final File dir = entry.getParentFile ();
+    Files.createDirectories (dir.toPath ());
+    final File tmp = File.createTempFile (key, ".tmp", dir);
+    try
+    {
+      if (!m_aRemote.download (key, tmp))
+      {
+        return false;
+      }
+      withLock ( () -> {
+        Files.move (tmp.toPath (), entry.toPath (), StandardCopyOption.REPLACE_EXISTING);
+        evict ();
+        return null;
+      });
+      return true;
+    }
+    catch (final IOException ex)
+    {
+      m_sRemoteFailure = ex.toString ();
+      return false;
+    }
+    finally
+    {
+      Files.deleteIfExists (tmp.toPath ());
+    }
+  }
+
+  private boolean isRemoteAvailable ()
+  {
+    return m_aRemote != null && m_sRemoteFailure == null;
+  }
+
+  /**
+   * @return why the remote cache was given up, <code>null</code> if it
+   *         worked or there is none
+   */
+  String getRemoteFailure ()
+  {
+    return m_sRemoteFailure;
+  }
+
+  int getRemoteHits ()
+  {
+    return m_aRemoteHits.get ();
+  }
+
+  int getUploads ()
+  {
+    return m_aUploads.get ();
+  }
+
+  int getHits ()
+  {
+    return m_aHits.get ();
+  }
+
+  int getMisses ()
+  {
+    return m_aMisses.get ();
+  }
+
+  /**
+   * Adds the statistics of this build to the totals kept in the cache
+   * directory.
+   *
+   * @return the totals
+   * @throws IOException
+   *         if the totals cannot be written
+   */
+  Properties saveStatistics () throws IOException
+  {
+    return withLock ( () -> {
+      final File file = new File (m_aDir, STATISTICS_FILE);
+      final Properties p = new Properties ();
+      if (file.isFile ())
+      {
+        try (InputStream is = new FileInputStream (file))
+        {
+          p.load (is);
+        }
+        catch (final IllegalArgumentException ex)
+        {
+          p.clear ();
+        }
+      }
+      add (p, "hits", m_aHits.getAndSet (0));
+      add (p, "misses", m_aMisses.getAndSet (0));
+      add (p, "stores", m_aStores.getAndSet (0));
+      add (p, "evictions", m_aEvictions.getAndSet (0));
+      add (p, "remoteHits", m_aRemoteHits.getAndSet (0));
+      add (p, "uploads", m_aUploads.getAndSet (0));
+      StaleManifest.store (p, file);
+      return p;
+    });
+  }
+
+  private static void add (final Properties p, final String counter, final int value)
+  {
+    long total = 0;
+    try
+    {
+      total = Long.parseLong (p.getProperty (counter, "0"));
+    }
+    catch (final NumberFormatException ex)
+    {
+      // start over
+    }
+    p.setProperty (counter, Long.toString (total + value));
+  }
+
+  /**
+   * Deletes least recently used entries until the cache fits its size.
+   * Called with the lock held.
+   */
+  private void evict () throws IOException
+  {
+    final List <File> entries;
+    try (Stream <Path> paths = Files.walk (m_aDir.toPath ()))
+    {
+      entries = paths.map (Path::toFile)
+                     .filter (f -> f.getName ().endsWith (ENTRY_SUFFIX) && f.isFile ())
+                     .sorted (Comparator.comparingLong (File::lastModified))
+                     .collect (Collectors.toList ());
+    }
+    long size = 0;
+    for (final File entry : entries)
+    {
+      size += entry.length ();
+    }
+    for (int i = 0; size > m_nMaxSize && i < entries.size (); i++)
+    {
+      final File entry = entries.get (i);
+      final long length = entry.length ();
+      if (entry.delete ())
+      {
+        size -= length;
+        m_aEvictions.incrementAndGet ();
+      }
+    }
+  }
+
+  private interface LockedAction <T>
+  {
+    T run () throws IOException;
+  }
+
+  private <T> T withLock (final LockedAction <T> action) throws IOException
+  {
+    Files.createDirectories (m_aDir.toPath ());
+    final Object jvmLock = LOCKS.computeIfAbsent (m_aDir.getCanonicalPath (), k -> new Object ());
+    synchronized (jvmLock)
+    {
+      try (RandomAccessFile raf = new RandomAccessFile (new File (m_aDir, LOCK_FILE), "rw"))
+      {
+        final FileLock lock = raf.getChannel ().lock ();
+        try
+        {
+          return action.run ();
+        }
+        finally
+        {
+          lock.release ();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of zipped files
+   */
+  static int zip (final Map <String, File> staged, final File target) throws IOException
+  {
+    int count = 0;
+    try (ZipOutputStream zos = new ZipOutputStream (new FileOutputStream (target)))
+    {
+      for (final Map.Entry <String, File> root : staged.entrySet ())
+      {
+        if (!root.getValue ().isDirectory ())
+        {
+          continue;
+        }
+        final Path source = root.getValue ().toPath ();
+        final List <Path> files;
+        try (Stream <Path> paths = Files.walk (source))
+        {
+          files = paths.filter (Files::isRegularFile).sorted ().collect (Collectors.toList ());
+        }
+        for (final Path file : files)
+        {
+          final String name = root.getKey () +
+                              "/" +
+                              source.relativize (file).toString ().replace (File.separatorChar, '/');
+          final ZipEntry ze = new ZipEntry (name);
+          ze.setTime (Files.getLastModifiedTime (file).toMillis ());
+          zos.putNextEntry (ze);
+          Files.copy (file, zos);
+          zos.closeEntry ();
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  static void unzip (final File source, final Map <String, File> staged) throws IOException
+  {
+    try (ZipInputStream zis = new ZipInputStream (new FileInputStream (source)))
+    {
+      ZipEntry ze;
+      while ((ze = zis.getNextEntry ()) != null)
+      {
+        final String name = ze.getName ();
+        final int idx = name.indexOf ('/');
+        final File root = idx > 0 ? staged.get (name.substring (0, idx)) : null;
+        if (root == null || ze.isDirectory ())
+        {
+          continue;
+        }
+        final File file = new File (root, name.substring (idx + 1));
+        if (!file.getCanonicalPath ().startsWith (root.getCanonicalPath () + File.separator))
+        {
+          throw new IOException ("Invalid entry " + name + " in " + source);
+        }
+        Files.createDirectories (file.getParentFile ().toPath ());
+        try (OutputStream os = new FileOutputStream (file))
+        {
+          final byte [] buffer = new byte [8192];
+          int n;
+          while ((n = zis.read (buffer)) >= 0)
+          {
+            os.write (buffer, 0, n);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,247 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Records how often units were checked and found stale and how long the tool
+ * took for them, to estimate the cost of the next run.
+ * <p>
+ * Durations are kept as an exponentially weighted moving average, so the
+ * estimate follows changes of a unit and of the machine without being
+ * dominated by single slow runs. Units without a recorded duration are
+ * estimated from their input size and the average time per byte of all
+ * recorded units.
+ * </p>
+ */
+final class BuildHistory
+{
+  /**
+   * Weight of the latest duration in the moving average.
+   */
+  static final double ALPHA = 0.3;
+
+  private static final String CHECKS = ".checks";
+  private static final String STALE = ".stale";
+  private static final String RUNS = ".runs";
+  private static final String MILLIS = ".millis";
+  private static final String SIZE = ".size";
+
+  private final File m_aFile;
+  private final Properties m_aEntries = new Properties ();
+  private boolean m_bModified;
+
+  /**
+   * Loads the history. A missing or unreadable history is treated as empty.
+   *
+   * @param file
+   *        the history file
+   */
+  BuildHistory (final File file)
+  {
+    m_aFile = file;
+    if (file.isFile ())
+    {
+      try (InputStream is = new FileInputStream (file))
+      {
+        m_aEntries.load (is);
+      }
+      catch (final IOException | IllegalArgumentException ex)
+      {
+        m_aEntries.clear ();
+      }
+    }
+  }
+
+  /**
+   * Records an up-to-date check of a unit.
+   *
+   * @param id
+   *        the unit
+   * @param stale
+   *        whether the unit was stale
+   */
+  synchronized void recordCheck (final String id, final boolean stale)
+  {
+    increment (id + CHECKS);
+    if (stale)
+    {
+      increment (id + STALE);
+    }
+  }
+
+  /**
+   * Records a run of the tool for a unit.
+   *
+   * @param id
+   *        the unit
+   * @param size
+   *        size of the unit's input in bytes, 0 if unknown
+   * @param millis
+   *        duration of the run
+   */
+  synchronized void recordRun (final String id, final long size, final long millis)
+  {
+    increment (id + RUNS);
+    final long previous = getMillis (id);
+    final long average = previous < 0 ? millis : Math.round (ALPHA * millis + (1 - ALPHA) * previous);
+    m_aEntries.setProperty (id + MILLIS, Long.toString (average));
+    m_aEntries.setProperty (id + SIZE, Long.toString (size));
+    m_bModified = true;
+  }
+
+  synchronized int getChecks (final String id)
+  {
+    return (int) getLong (id + CHECKS, 0);
+  }
+
+  synchronized int getStaleCount (final String id)
+  {
+    return (int) getLong (id + STALE, 0);
+  }
+
+  synchronized int getRuns (final String id)
+  {
+    return (int) getLong (id + RUNS, 0);
+  }
+
+  /**
+   * @param id
+   *        the unit
+   * @return the average duration of the unit's runs, -1 if none was recorded
+   */
+  synchronized long getMillis (final String id)
+  {
+    return getLong (id + MILLIS, -1);
+  }
+
+  /**
+   * Estimates the duration of the next run of a unit.
+   *
+   * @param id
+   *        the unit
+   * @param size
+   *        size of the unit's input in bytes, 0 if unknown
+   * @return the estimated duration in milliseconds, -1 if nothing was
+   *         recorded yet
+   */
+  synchronized long estimate (final String id, final long size)
+  {
+    final long millis = getMillis (id);
+    if (millis >= 0)
+    {
+      return millis;
+    }
+    long totalMillis = 0;
+    long totalSize = 0;
+    long sizedMillis = 0;
+    int units = 0;
+    for (final String key : m_aEntries.stringPropertyNames ())
+    {
+      if (key.endsWith (MILLIS))
+      {
+        final String unit = key.substring (0, key.length () - MILLIS.length ());
+        final long unitMillis = getMillis (unit);
+        final long unitSize = getLong (unit + SIZE, 0);
+        totalMillis += unitMillis;
+        units++;
+        if (unitSize > 0)
+        {
+          totalSize += unitSize;
+          sizedMillis += unitMillis;
+        }
+      }
+    }
+    if (size > 0 && totalSize > 0)
+    {
+      return Math.round ((double) sizedMillis * size / totalSize);
+    }
+    return units > 0 ? totalMillis / units : -1;
+  }
+
+  /**
+   * Forgets a unit.
+   *
+   * @param id
+   *        the unit
+   */
+  synchronized void remove (final String id)
+  {
+    for (final String suffix : new String [] { CHECKS, STALE, RUNS, MILLIS, SIZE })
+    {
+      m_bModified |= m_aEntries.remove (id + suffix) != null;
+    }
+  }
+
+  /**
+   * Writes the history if it was modified.
+   *
+   * @throws IOException
+   *         if the file cannot be written
+   */
+  synchronized void save () throws IOException
+  {
+    if (m_bModified)
+    {
+      StaleManifest.store (m_aEntries, m_aFile);
+      m_bModified = false;
+    }
+  }
+
+  private void increment (final String key)
+  {
+    m_aEntries.setProperty (key, Long.toString (getLong (key, 0) + 1));
+    m_bModified = true;
+  }
+
+  private long getLong (final String key, final long defaultValue)
+  {
+    try
+    {
+      final String value = m_aEntries.getProperty (key);
+      return value == null ? defaultValue : Long.parseLong (value);
+    }
+    catch (final NumberFormatException ex)
+    {
+      return defaultValue;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dynamic AppCDS archive of a forked tool JVM.
+ * <p>
+ * The first JVM started for a key dumps all classes it loaded to a temporary
+ * file when it exits, which is then moved into place by {@link #publish()}.
+ * Later JVMs with the same key map the archive instead of loading and
+ * verifying the classes again. Dynamic archives require Java 13 or later;
+ * a JVM which cannot use an archive silently starts without class data
+ * sharing.
+ * </p>
+ */
+final class ClassDataSharingArchive
+{
+  /**
+   * Oldest Java feature version supporting
+   * <code>-XX:ArchiveClassesAtExit</code>.
+   */
+  static final int MIN_JAVA_VERSION = 13;
+
+  private static final String ARCHIVE_SUFFIX = ".jsa";
+
+  private final File m_aArchive;
+  private final File m_aDump;
+
+  /**
+   * @param directory
+   *        directory holding the archives, created if needed
+   * @param key
+   *        fingerprint of everything the archive depends on: java executable,
+   *        JVM options and classpath
+   * @throws IOException
+   *         if the directory or the temporary dump file cannot be created
+   */
+  ClassDataSharingArchive (final File directory, final String key) throws IOException
+  {
+    Files.createDirectories (directory.toPath ());
+    m_aArchive = new File (directory, key + ARCHIVE_SUFFIX);
+    m_aDump = m_aArchive.isFile () ? null : File.createTempFile (key, ARCHIVE_SUFFIX + ".tmp", directory);
+  }
+
+  /**
+   * Computes the key of the archive of a tool JVM. The java executable, the
+   * <code>release</code> file of the JDK and the classpath entries
+   * contribute size and time stamp, so a replaced JDK or a rebuilt jar gets
+   * a new archive.
+   *
+   * @param javaExecutable
+   *        the java executable
+   * @param javaHome
+   *        home directory of the JDK
+   * @param jvmOptions
+   *        JVM options
+   * @param cp
+   *        classpath of the JVM
+   * @return the key
+   */
+  static String getKey (final String javaExecutable,
+                        final String javaHome,
+                        final List <String> jvmOptions,
+                        final String cp)
+  {
+    final List <String> tokens = new ArrayList <> ();
+    tokens.add (javaExecutable);
+    tokens.add (new File (javaHome, "release").getAbsolutePath ());
+    tokens.addAll (jvmOptions);
+    tokens.add (cp);
+    return ToolRunner.fingerprint (String.join (File.pathSeparator, tokens));
+  }
+
+  /**
+   * @return <code>true</code> if the archive does not exist yet and is
+   *         created by the JVM started with {@link #getJvmOption()}
+   */
+  boolean isDumping ()
+  {
+    return m_aDump != null;
+  }
+
+  File getArchive ()
+  {
+    return m_aArchive;
+  }
+
+  /**
+   * @return the option either using or creating the archive
+   */
+  String getJvmOption ()
+  {
+    return m_aDump == null ? "-XX:SharedArchiveFile=" + m_aArchive.getAbsolutePath ()
+                           : "-XX:ArchiveClassesAtExit=" + m_aDump.getAbsolutePath ();
+  }
+
+  /**
+   * Moves an archive dumped by the JVM into place. Does nothing if the archive
+   * was used rather than created, or if the JVM did not dump anything.
+   *
+   * @throws IOException
+   *         if the archive cannot be moved
+   */
+  void publish () throws IOException
+  {
+    if (m_aDump == null)
+    {
+      return;
+    }
+    try
+    {
+      if (m_aDump.length () > 0 && !m_aArchive.isFile ())
+      {
+        try
+        {
+          Files.move (m_aDump.toPath (), m_aArchive.toPath (), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (final AtomicMoveNotSupportedException ex)
+        {
+          Files.move (m_aDump.toPath (), m_aArchive.toPath ());
+        }
+      }
+    }
+    catch (final FileAlreadyExistsException ex)
+    {
+      // another JVM published the same archive in the meantime
+    }
+    finally
+    {
+      Files.deleteIfExists (m_aDump.toPath ());
+    }
+  }
+}
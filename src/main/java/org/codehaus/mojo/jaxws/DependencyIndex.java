@@ -0,0 +1,244 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Persistent reverse index from documents (WSDLs and schemas) to the ids of
+ * the WSDL entries in the stale manifest depending on them.
+ * <p>
+ * At the start of a build every indexed document is fingerprinted once, and
+ * only entries depending on a document whose fingerprint differs from the one
+ * recorded for the entry are considered affected. A deleted document cannot
+ * be read and therefore affects all of its dependents, a renamed one is a
+ * deleted plus a new document.
+ * </p>
+ */
+final class DependencyIndex
+{
+  private final File m_aFile;
+  private final Map <String, Set <String>> m_aDependents = new TreeMap <> ();
+  private final Set <String> m_aIds = new HashSet <> ();
+  private final ImportClosure.Cache m_aCache;
+  private boolean m_bModified;
+
+  /**
+   * Loads the index. A missing or unreadable index is treated as empty.
+   *
+   * @param file
+   *        the index file
+   */
+  DependencyIndex (final File file)
+  {
+    this (file, null);
+  }
+
+  /**
+   * Loads the index. A missing or unreadable index is treated as empty.
+   *
+   * @param file
+   *        the index file
+   * @param snapshots
+   *        store the documents are read through if they are remote, may be
+   *        <code>null</code>
+   */
+  DependencyIndex (final File file, final SnapshotStore snapshots)
+  {
+    m_aFile = file;
+    m_aCache = new ImportClosure.Cache (snapshots);
+    if (file.isFile ())
+    {
+      final Properties p = new Properties ();
+      try (InputStream is = new FileInputStream (file))
+      {
+        p.load (is);
+      }
+      catch (final IOException | IllegalArgumentException ex)
+      {
+        p.clear ();
+      }
+      for (final String document : p.stringPropertyNames ())
+      {
+        final Set <String> ids = new TreeSet <> ();
+        for (final String id : p.getProperty (document).split (" "))
+        {
+          if (!id.isEmpty ())
+          {
+            ids.add (id);
+          }
+        }
+        m_aDependents.put (document, ids);
+        m_aIds.addAll (ids);
+      }
+    }
+  }
+
+  /**
+   * @return cache of document fingerprints for this build
+   */
+  ImportClosure.Cache getCache ()
+  {
+    return m_aCache;
+  }
+
+  synchronized boolean contains (final String id)
+  {
+    return m_aIds.contains (id);
+  }
+
+  /**
+   * Fingerprints every indexed document once and returns the ids depending
+   * on a document which changed.
+   *
+   * @param recorded
+   *        returns the recorded fingerprints of an entry keyed by document URL
+   * @return the affected ids
+   */
+  synchronized Set <String> getAffected (final Function <String, Map <String, String>> recorded)
+  {
+    final Map <String, Map <String, String>> recordedById = new HashMap <> ();
+    final Set <String> affected = new HashSet <> ();
+    for (final Map.Entry <String, Set <String>> document : m_aDependents.entrySet ())
+    {
+      final String fingerprint = m_aCache.getFingerprint (document.getKey ());
+      for (final String id : document.getValue ())
+      {
+        final Map <String, String> fingerprints = recordedById.computeIfAbsent (id, recorded);
+        if (!fingerprint.equals (fingerprints.get (document.getKey ())))
+        {
+          affected.add (id);
+        }
+      }
+    }
+    return affected;
+  }
+
+  /**
+   * @return URLs of all indexed documents
+   */
+  synchronized Set <String> getDocuments ()
+  {
+    return new TreeSet <> (m_aDependents.keySet ());
+  }
+
+  /**
+   * Replaces the documents an id depends on.
+   *
+   * @param id
+   *        the id
+   * @param documents
+   *        URLs of the documents
+   */
+  synchronized void put (final String id, final Collection <String> documents)
+  {
+    if (m_aIds.contains (id) && getDocuments (id).equals (new HashSet <> (documents)))
+    {
+      return;
+    }
+    remove (id);
+    for (final String document : documents)
+    {
+      m_aDependents.computeIfAbsent (document, k -> new TreeSet <> ()).add (id);
+    }
+    m_aIds.add (id);
+    m_bModified = true;
+  }
+
+  private Set <String> getDocuments (final String id)
+  {
+    final Set <String> documents = new HashSet <> ();
+    for (final Map.Entry <String, Set <String>> document : m_aDependents.entrySet ())
+    {
+      if (document.getValue ().contains (id))
+      {
+        documents.add (document.getKey ());
+      }
+    }
+    return documents;
+  }
+
+  synchronized void remove (final String id)
+  {
+    if (!m_aIds.remove (id))
+    {
+      return;
+    }
+    final Iterator <Set <String>> it = m_aDependents.values ().iterator ();
+    while (it.hasNext ())
+    {
+      final Set <String> ids = it.next ();
+      if (ids.remove (id) && ids.isEmpty ())
+      {
+        it.remove ();
+      }
+    }
+    m_bModified = true;
+  }
+
+  /**
+   * Writes the index if it was modified since it was loaded.
+   *
+   * @throws IOException
+   *         if the index cannot be written
+   */
+  synchronized void save () throws IOException
+  {
+    if (m_bModified)
+    {
+      final Properties p = new Properties ();
+      for (final Map.Entry <String, Set <String>> document : m_aDependents.entrySet ())
+      {
+        p.setProperty (document.getKey (), String.join (" ", document.getValue ()));
+      }
+      StaleManifest.store (p, m_aFile);
+      m_bModified = false;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for changes of files and directories through a {@link WatchService}.
+ * <p>
+ * Watch services observe directories, so a file is watched through its
+ * parent directory. Bursts of events, e.g. an editor writing a backup and the
+ * file itself, are reported together once no further event arrived for a
+ * quiet period.
+ * </p>
+ */
+final class FileWatcher implements Closeable
+{
+  private final WatchService m_aService;
+  private final Map <WatchKey, Path> m_aKeys = new HashMap <> ();
+
+  FileWatcher () throws IOException
+  {
+    m_aService = FileSystems.getDefault ().newWatchService ();
+  }
+
+  /**
+   * Watches files and directories in addition to the ones watched already.
+   * Files and directories which do not exist are ignored.
+   *
+   * @param files
+   *        the files and directories
+   * @return the number of newly watched directories
+   * @throws IOException
+   *         if a directory cannot be watched
+   */
+  int watch (final Collection <File> files) throws IOException
+  {
+    int added = 0;
+    for (final File file : files)
+    {
+      final File dir = file.isDirectory () ? file : file.getAbsoluteFile ().getParentFile ();
+      if (dir == null || !dir.isDirectory ())
+      {
+        continue;
+      }
+      final Path path = dir.toPath ().toAbsolutePath ().normalize ();
+      if (!m_aKeys.containsValue (path))
+      {
+        m_aKeys.put (path.register (m_aService,
+                                    StandardWatchEventKinds.ENTRY_CREATE,
+                                    StandardWatchEventKinds.ENTRY_MODIFY,
+                                    StandardWatchEventKinds.ENTRY_DELETE),
+                     path);
+        added++;
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Waits for changes in the watched directories.
+   *
+   * @param quietMillis
+   *        time without further events after which a burst of events is
+   *        complete
+   * @return the changed files, or the watched directory if events were lost
+   * @throws InterruptedException
+   *         if the thread was interrupted while waiting
+   */
+  Set <Path> await (final long quietMillis) throws InterruptedException
+  {
+    final Set <Path> changed = new TreeSet <> ();
+    WatchKey key = m_aService.take ();
+    while (key != null)
+    {
+      final Path dir = m_aKeys.get (key);
+      for (final WatchEvent <?> event : key.pollEvents ())
+      {
+        if (dir != null)
+        {
+          changed.add (event.kind () == StandardWatchEventKinds.OVERFLOW ? dir : dir.resolve ((Path) event.context ()));
+        }
+      }
+      if (!key.reset ())
+      {
+        // the directory was deleted
+        m_aKeys.remove (key);
+      }
+      key = m_aService.poll (quietMillis, TimeUnit.MILLISECONDS);
+    }
+    return changed;
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    m_aService.close ();
+  }
+}
@@ -0,0 +1,220 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SHA-256 fingerprints of contents, used to detect changes independent of
+ * file time stamps.
+ */
+final class Fingerprint
+{
+  private static final int CONNECT_TIMEOUT = 30_000;
+
+  private static final int READ_TIMEOUT = 60_000;
+
+  private Fingerprint ()
+  {}
+
+  static MessageDigest newDigest ()
+  {
+    try
+    {
+      return MessageDigest.getInstance ("SHA-256");
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      // SHA-256 is mandatory for every Java platform
+      throw new IllegalStateException (ex);
+    }
+  }
+
+  static String toHex (final byte [] aBytes)
+  {
+    final StringBuilder aSB = new StringBuilder (aBytes.length * 2);
+    for (final byte b : aBytes)
+    {
+      aSB.append (Character.forDigit ((b & 0xf0) >> 4, 16)).append (Character.forDigit (b & 0x0f, 16));
+    }
+    return aSB.toString ();
+  }
+
+  static String of (final byte [] aBytes)
+  {
+    return toHex (newDigest ().digest (aBytes));
+  }
+
+  static String of (final String s)
+  {
+    return of (s.getBytes (StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param values
+   *        values in significant order
+   * @return fingerprint of all values, distinguishing
+   *         <code>[a, bc]</code> from <code>[ab, c]</code>
+   */
+  static String of (final Collection <String> values)
+  {
+    final MessageDigest md = newDigest ();
+    for (final String value : values)
+    {
+      md.update (String.valueOf (value).getBytes (StandardCharsets.UTF_8));
+      md.update ((byte) 0);
+    }
+    return toHex (md.digest ());
+  }
+
+  /**
+   * @param file
+   *        the file
+   * @return fingerprint of the file content
+   * @throws IOException
+   *         if the file cannot be read
+   */
+  static String of (final File file) throws IOException
+  {
+    try (InputStream is = new FileInputStream (file))
+    {
+      return of (is);
+    }
+  }
+
+  /**
+   * @param dir
+   *        the directory
+   * @return fingerprint of the relative paths and contents of all files below
+   *         the directory
+   * @throws IOException
+   *         if a file cannot be read
+   */
+  static String ofTree (final File dir) throws IOException
+  {
+    final List <String> entries = new ArrayList <> ();
+    final Path root = dir.toPath ();
+    final List <Path> files;
+    try (Stream <Path> paths = Files.walk (root))
+    {
+      files = paths.filter (Files::isRegularFile).sorted ().collect (Collectors.toList ());
+    }
+    for (final Path file : files)
+    {
+      entries.add (root.relativize (file).toString ().replace (File.separatorChar, '/'));
+      entries.add (of (file.toFile ()));
+    }
+    return of (entries);
+  }
+
+  /**
+   * @param url
+   *        any URL supported by the JVM, such as <code>file:</code>,
+   *        <code>jar:</code> or <code>http:</code>
+   * @return fingerprint of the content
+   * @throws IOException
+   *         if the content cannot be read
+   */
+  static String of (final URL url) throws IOException
+  {
+    try (InputStream is = open (url))
+    {
+      return of (is);
+    }
+  }
+
+  /**
+   * Reads a document the same way {@link #of(URL)} does.
+   *
+   * @param url
+   *        any URL supported by the JVM
+   * @return the content
+   * @throws IOException
+   *         if the content cannot be read
+   */
+  static byte [] read (final URL url) throws IOException
+  {
+    try (InputStream is = open (url))
+    {
+      final ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+      final byte [] buffer = new byte [8192];
+      int n;
+      while ((n = is.read (buffer)) >= 0)
+      {
+        bos.write (buffer, 0, n);
+      }
+      return bos.toByteArray ();
+    }
+  }
+
+  private static InputStream open (final URL url) throws IOException
+  {
+    final URLConnection connection = url.openConnection ();
+    connection.setConnectTimeout (CONNECT_TIMEOUT);
+    connection.setReadTimeout (READ_TIMEOUT);
+    // don't keep jar files open
+    connection.setUseCaches (false);
+    return connection.getInputStream ();
+  }
+
+  static String of (final InputStream is) throws IOException
+  {
+    final MessageDigest md = newDigest ();
+    final byte [] buffer = new byte [8192];
+    int n;
+    while ((n = is.read (buffer)) >= 0)
+    {
+      md.update (buffer, 0, n);
+    }
+    return toHex (md.digest ());
+  }
+}
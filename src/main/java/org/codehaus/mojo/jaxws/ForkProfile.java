@@ -0,0 +1,204 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * JVM options tuning a forked, short-lived tool JVM for its workload.
+ * <ul>
+ * <li><code>fast-startup</code> - serial GC, C1 compiler only, no perf data
+ * file; best for small inputs where the JVM exits before optimized code would
+ * pay off,</li>
+ * <li><code>throughput</code> - parallel GC, full tiered compilation and a
+ * fixed heap; best for large schemas or many jobs per JVM,</li>
+ * <li><code>auto</code> - one of the above, chosen from the size of the input
+ * files and the number of jobs.</li>
+ * </ul>
+ * The heap is sized from the input size in both cases. Options already
+ * present in <code>vmArgs</code> always take precedence: a group of options
+ * (heap, GC, compiler, perf data) is left out entirely if the user configured
+ * any option of the group.
+ */
+final class ForkProfile
+{
+  static final String AUTO = "auto";
+
+  static final String FAST_STARTUP = "fast-startup";
+
+  static final String THROUGHPUT = "throughput";
+
+  static final List <String> PROFILES = Arrays.asList (AUTO, FAST_STARTUP, THROUGHPUT);
+
+  /**
+   * Total input size from which <code>auto</code> chooses
+   * <code>throughput</code>.
+   */
+  static final long THROUGHPUT_INPUT_SIZE = 2L * 1024 * 1024;
+
+  /**
+   * Number of jobs per JVM from which <code>auto</code> chooses
+   * <code>throughput</code>.
+   */
+  static final int THROUGHPUT_JOBS = 8;
+
+  private static final long MB = 1024L * 1024;
+
+  private static final long MIN_HEAP_MB = 256;
+
+  private static final long MAX_HEAP_MB = 4096;
+
+  // JAXB models of a schema need a multiple of its size in memory
+  private static final int HEAP_PER_INPUT_BYTE = 64;
+
+  private static final Pattern HEAP_OPTION = Pattern.compile ("-Xm[sx].*|-XX:(Max|Initial|Min)?(HeapSize|RAM(Percentage|Fraction)?)=.*");
+
+  private static final Pattern GC_OPTION = Pattern.compile ("-XX:[+-]Use\\w*GC");
+
+  private static final Pattern COMPILER_OPTION = Pattern.compile ("-XX:[+-]?Tiered\\w*(=.*)?|-Xint|-Xcomp");
+
+  private static final Pattern PERF_DATA_OPTION = Pattern.compile ("-XX:[+-]UsePerfData");
+
+  private ForkProfile ()
+  {}
+
+  /**
+   * Resolves <code>auto</code> to the profile to use.
+   *
+   * @param profile
+   *        configured profile
+   * @param inputSize
+   *        total size of the input files in bytes, 0 if unknown
+   * @param jobs
+   *        number of tool runs in the JVM
+   * @return <code>fast-startup</code> or <code>throughput</code>
+   */
+  static String resolve (final String profile, final long inputSize, final int jobs)
+  {
+    if (!AUTO.equals (profile))
+    {
+      return profile;
+    }
+    return inputSize >= THROUGHPUT_INPUT_SIZE || jobs >= THROUGHPUT_JOBS ? THROUGHPUT : FAST_STARTUP;
+  }
+
+  /**
+   * Returns the maximum heap for the given input size, between 256 MB and 4
+   * GB, in steps of 64 MB.
+   *
+   * @param inputSize
+   *        total size of the input files in bytes
+   * @return the heap size in MB
+   */
+  static long getMaxHeapMegabytes (final long inputSize)
+  {
+    final long mb = MIN_HEAP_MB + (inputSize * HEAP_PER_INPUT_BYTE + MB - 1) / MB;
+    return Math.min (MAX_HEAP_MB, (mb + 63) / 64 * 64);
+  }
+
+  /**
+   * Returns the JVM options of a resolved profile.
+   *
+   * @param profile
+   *        <code>fast-startup</code> or <code>throughput</code>
+   * @param javaVersion
+   *        feature version of the JVM, 0 if unknown, in which case only the
+   *        standard heap options are used
+   * @param inputSize
+   *        total size of the input files in bytes
+   * @param userOptions
+   *        JVM options configured by the user
+   * @return the options, never <code>null</code>
+   */
+  static List <String> getJvmOptions (final String profile,
+                                      final int javaVersion,
+                                      final long inputSize,
+                                      final List <String> userOptions)
+  {
+    final boolean throughput = THROUGHPUT.equals (profile);
+    final List <String> options = new ArrayList <> ();
+    if (!isConfigured (HEAP_OPTION, userOptions))
+    {
+      final long maxHeap = getMaxHeapMegabytes (inputSize);
+      options.add ("-Xms" + (throughput ? maxHeap : maxHeap / 2) + "m");
+      options.add ("-Xmx" + maxHeap + "m");
+    }
+    if (javaVersion == 0)
+    {
+      return options;
+    }
+    if (!isConfigured (GC_OPTION, userOptions))
+    {
+      if (!throughput)
+      {
+        options.add ("-XX:+UseSerialGC");
+      }
+      else
+        if (javaVersion >= 9)
+        {
+          // parallel GC is the default of Java 8 only
+          options.add ("-XX:+UseParallelGC");
+        }
+    }
+    if (!throughput)
+    {
+      if (!isConfigured (COMPILER_OPTION, userOptions))
+      {
+        options.add ("-XX:TieredStopAtLevel=1");
+      }
+      if (!isConfigured (PERF_DATA_OPTION, userOptions))
+      {
+        options.add ("-XX:-UsePerfData");
+      }
+    }
+    return options;
+  }
+
+  private static boolean isConfigured (final Pattern option, final List <String> userOptions)
+  {
+    for (final String userOption : userOptions)
+    {
+      if (option.matcher (userOption).matches ())
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,371 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Finds all documents a WSDL depends on through <code>wsdl:import</code>,
+ * <code>xsd:import</code>, <code>xsd:include</code>,
+ * <code>xsd:redefine</code> and <code>xsd:override</code>, following the
+ * imports transitively.
+ * <p>
+ * Documents are read with a streaming parser and fingerprinted in the same
+ * pass. Locations are resolved through the catalog first, like wsimport does,
+ * and relative to the importing document otherwise, which also works for
+ * documents within jar files. Documents which cannot be read are recorded as
+ * {@link #UNAVAILABLE}, so that wsimport reports the problem.
+ * </p>
+ */
+final class ImportClosure
+{
+  static final String UNAVAILABLE = "unavailable";
+
+  private static final String XSD_NS = "http://www.w3.org/2001/XMLSchema";
+
+  private static final String WSDL_NS = "http://schemas.xmlsoap.org/wsdl/";
+
+  private ImportClosure ()
+  {}
+
+  /**
+   * @param root
+   *        the WSDL
+   * @param catalog
+   *        the catalog, may be <code>null</code>
+   * @return fingerprints of the WSDL and of all documents it depends on, keyed
+   *         by URL, the WSDL first
+   * @throws IOException
+   *         if the WSDL itself cannot be read
+   */
+  static Map <String, String> scan (final URL root, final XmlCatalog catalog) throws IOException
+  {
+    return scan (root, catalog, new Cache ());
+  }
+
+  /**
+   * Same as {@link #scan(URL, XmlCatalog)}, but reads every document not yet
+   * known to the cache only once.
+   *
+   * @param root
+   *        the WSDL
+   * @param catalog
+   *        the catalog, may be <code>null</code>
+   * @param cache
+   *        documents read before
+   * @return fingerprints of the WSDL and of all documents it depends on, keyed
+   *         by URL, the WSDL first
+   * @throws IOException
+   *         if the WSDL itself cannot be read
+   */
+  static Map <String, String> scan (final URL root, final XmlCatalog catalog, final Cache cache) throws IOException
+  {
+    final Map <String, String> closure = new LinkedHashMap <> ();
+    final Deque <URL> queue = new ArrayDeque <> ();
+    queue.add (root);
+    while (!queue.isEmpty ())
+    {
+      final URL url = queue.poll ();
+      final String key = url.toExternalForm ();
+      if (closure.containsKey (key))
+      {
+        continue;
+      }
+      final List <String> locations = cache.getImportLocations (key);
+      final String fingerprint = cache.getFingerprint (key);
+      if (url == root && UNAVAILABLE.equals (fingerprint))
+      {
+        throw new IOException ("Cannot read " + key);
+      }
+      closure.put (key, fingerprint);
+      for (final String location : locations)
+      {
+        final URL imported = resolve (url, location, catalog);
+        if (imported != null)
+        {
+          queue.add (imported);
+        }
+      }
+    }
+    return closure;
+  }
+
+  /**
+   * Describes the first difference between two closures.
+   *
+   * @param previous
+   *        recorded closure
+   * @param current
+   *        current closure
+   * @return the description, <code>null</code> if both are equal
+   */
+  static String getChange (final Map <String, String> previous, final Map <String, String> current)
+  {
+    for (final Map.Entry <String, String> document : current.entrySet ())
+    {
+      final String before = previous.get (document.getKey ());
+      if (before == null)
+      {
+        return document.getKey () + " imported";
+      }
+      if (!before.equals (document.getValue ()))
+      {
+        return document.getKey () + " changed";
+      }
+    }
+    for (final String url : previous.keySet ())
+    {
+      if (!current.containsKey (url))
+      {
+        return url + " no longer imported";
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param closure
+   *        fingerprints keyed by URL
+   * @return the closure as text, one document per line, sorted by URL
+   */
+  static String format (final Map <String, String> closure)
+  {
+    final StringBuilder sb = new StringBuilder ();
+    for (final Map.Entry <String, String> document : new TreeMap <> (closure).entrySet ())
+    {
+      if (sb.length () > 0)
+      {
+        sb.append ('\n');
+      }
+      sb.append (document.getValue ()).append (' ').append (document.getKey ());
+    }
+    return sb.toString ();
+  }
+
+  /**
+   * @param text
+   *        closure as returned by {@link #format(Map)}, may be
+   *        <code>null</code>
+   * @return fingerprints keyed by URL
+   */
+  static Map <String, String> parse (final String text)
+  {
+    final Map <String, String> closure = new LinkedHashMap <> ();
+    if (text != null)
+    {
+      for (final String line : text.split ("\n"))
+      {
+        final int idx = line.indexOf (' ');
+        if (idx > 0)
+        {
+          closure.put (line.substring (idx + 1), line.substring (0, idx));
+        }
+      }
+    }
+    return closure;
+  }
+
+  static List <String> getImportLocations (final byte [] content)
+  {
+    final List <String> locations = new ArrayList <> ();
+    try
+    {
+      final XMLStreamReader r = XmlCatalog.newInputFactory ()
+                                          .createXMLStreamReader (new ByteArrayInputStream (content));
+      try
+      {
+        while (r.hasNext ())
+        {
+          if (r.next () == XMLStreamConstants.START_ELEMENT)
+          {
+            final String ns = r.getNamespaceURI ();
+            final String name = r.getLocalName ();
+            String location = null;
+            if (XSD_NS.equals (ns) &&
+                ("import".equals (name) ||
+                 "include".equals (name) ||
+                 "redefine".equals (name) ||
+                 "override".equals (name)))
+            {
+              location = r.getAttributeValue (null, "schemaLocation");
+            }
+            else
+              if (WSDL_NS.equals (ns) && "import".equals (name))
+              {
+                location = r.getAttributeValue (null, "location");
+              }
+            if (location != null && !location.trim ().isEmpty ())
+            {
+              locations.add (location.trim ());
+            }
+          }
+        }
+      }
+      finally
+      {
+        r.close ();
+      }
+    }
+    catch (final XMLStreamException ex)
+    {
+      // not well-formed, wsimport will report that
+    }
+    return locations;
+  }
+
+  private static URL resolve (final URL base, final String location, final XmlCatalog catalog)
+  {
+    try
+    {
+      String mapped = catalog != null ? catalog.resolve (location) : null;
+      URL url = new URL (base, location);
+      if (mapped == null && catalog != null)
+      {
+        mapped = catalog.resolve (url.toExternalForm ());
+      }
+      if (mapped != null)
+      {
+        url = new URL (mapped);
+      }
+      try
+      {
+        return url.toURI ().normalize ().toURL ();
+      }
+      catch (final URISyntaxException | IllegalArgumentException ex)
+      {
+        return url;
+      }
+    }
+    catch (final MalformedURLException ex)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Fingerprints and import locations of documents, each read at most once
+   * during a build. Remote documents are read through a snapshot store, if
+   * there is one.
+   */
+  static final class Cache
+  {
+    private final Map <String, String> m_aFingerprints = new HashMap <> ();
+    private final Map <String, List <String>> m_aLocations = new HashMap <> ();
+    private final SnapshotStore m_aSnapshots;
+
+    Cache ()
+    {
+      this (null);
+    }
+
+    /**
+     * @param snapshots
+     *        store of remote documents, may be <code>null</code>
+     */
+    Cache (final SnapshotStore snapshots)
+    {
+      m_aSnapshots = snapshots;
+    }
+
+    /**
+     * @param url
+     *        URL of the document
+     * @return fingerprint of the document or {@link ImportClosure#UNAVAILABLE}
+     */
+    synchronized String getFingerprint (final String url)
+    {
+      String fingerprint = m_aFingerprints.get (url);
+      if (fingerprint == null)
+      {
+        try
+        {
+          fingerprint = m_aSnapshots != null && SnapshotStore.isRemote (url) ? Fingerprint.of (m_aSnapshots.read (url))
+                                                                              : Fingerprint.of (new URL (url));
+        }
+        catch (final IOException ex)
+        {
+          fingerprint = UNAVAILABLE;
+        }
+        m_aFingerprints.put (url, fingerprint);
+      }
+      return fingerprint;
+    }
+
+    /**
+     * @param url
+     *        URL of the document
+     * @return locations imported by the document, empty if it cannot be read
+     */
+    synchronized List <String> getImportLocations (final String url)
+    {
+      List <String> locations = m_aLocations.get (url);
+      if (locations == null)
+      {
+        try
+        {
+          final byte [] content = m_aSnapshots != null && SnapshotStore.isRemote (url) ? m_aSnapshots.read (url)
+                                                                                        : Fingerprint.read (new URL (url));
+          m_aFingerprints.put (url, Fingerprint.of (content));
+          locations = ImportClosure.getImportLocations (content);
+        }
+        catch (final IOException ex)
+        {
+          m_aFingerprints.put (url, UNAVAILABLE);
+          locations = Collections.emptyList ();
+        }
+        m_aLocations.put (url, locations);
+      }
+      return locations;
+    }
+  }
+}
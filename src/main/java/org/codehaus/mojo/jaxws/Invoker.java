@@ -37,6 +37,8 @@ package org.codehaus.mojo.jaxws;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
@@ -51,10 +53,27 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * Launches the tool's class in a forked JVM.
+ * <p>
+ * Usage: <code>Invoker toolClass (-pathfile file | -cp classpath) args...</code>
+ * </p>
+ * <p>
+ * If the arguments end with <code>-jobs file</code>, the file is read as a job
+ * manifest listing arguments of several tool runs. All of them are processed
+ * one after another using the same classloader, and the status and duration
+ * of every job are written to a properties file next to the manifest (see
+ * {@link #RESULT_FILE_SUFFIX}).
+ * </p>
+ *
  * @author lukas
  */
 public final class Invoker
 {
+  /**
+   * Suffix of the file with results of jobs from the job manifest.
+   */
+  public static final String RESULT_FILE_SUFFIX = ".result";
+
   private static final Logger LOGGER = Logger.getLogger (Invoker.class.getName ());
 
   public static void main (final String... args) throws Exception
@@ -90,6 +109,11 @@ public final class Invoker
     {
       final Class <?> toolClass = cl.loadClass (toolClassname);
 
+      if (args.length > idx + 1 && "-jobs".equals (args[args.length - 2]))
+      {
+        System.exit (_runJobs (toolClass, new File (args[args.length - 1])) ? 0 : 1);
+      }
+
       final Object tool = toolClass.getConstructor (OutputStream.class).newInstance (System.out);
       final Method runMethod = toolClass.getMethod ("run", String [].class);
 
@@ -115,6 +139,53 @@ public final class Invoker
     }
   }
 
+  static boolean _runJobs (final Class <?> toolClass, final File jobsFile) throws IOException, NoSuchMethodException
+  {
+    final Properties jobs = new Properties ();
+    try (InputStream is = new FileInputStream (jobsFile))
+    {
+      jobs.load (is);
+    }
+    final Method runMethod = toolClass.getMethod ("run", String [].class);
+    final Properties results = new Properties ();
+    final int count = Integer.parseInt (jobs.getProperty ("jobs", "0"));
+    boolean ok = true;
+    for (int i = 0; i < count; i++)
+    {
+      final String [] wsargs = new String [Integer.parseInt (jobs.getProperty ("job." + i + ".args"))];
+      for (int j = 0; j < wsargs.length; j++)
+      {
+        wsargs[j] = jobs.getProperty ("job." + i + ".arg." + j);
+      }
+
+      boolean result = false;
+      final long start = System.nanoTime ();
+      try
+      {
+        // tool instances keep state, so use a fresh one for every job
+        final Object tool = toolClass.getConstructor (OutputStream.class).newInstance (System.out);
+        result = ((Boolean) runMethod.invoke (tool, new Object [] { wsargs })).booleanValue ();
+      }
+      catch (final InvocationTargetException ex)
+      {
+        ex.getCause ().printStackTrace ();
+      }
+      catch (final ReflectiveOperationException | IllegalArgumentException ex)
+      {
+        LOGGER.log (Level.SEVERE, null, ex);
+      }
+      results.setProperty ("job." + i + ".status", result ? "0" : "1");
+      results.setProperty ("job." + i + ".millis", Long.toString ((System.nanoTime () - start) / 1000000));
+      ok &= result;
+    }
+
+    try (OutputStream os = new FileOutputStream (jobsFile.getPath () + RESULT_FILE_SUFFIX))
+    {
+      results.store (os, null);
+    }
+    return ok;
+  }
+
   private static URL [] _toUrls (final String c)
   {
     final List <URL> urls = new ArrayList <> ();
@@ -0,0 +1,106 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+/**
+ * {@link OutputStream} which splits everything written to it into lines and
+ * hands them over to a consumer. Used to capture the output of tools running
+ * outside of a forked process without touching {@link System#out}.
+ */
+final class LineOutputStream extends OutputStream
+{
+  private final ByteArrayOutputStream m_aBuffer = new ByteArrayOutputStream (256);
+  private final Consumer <String> m_aConsumer;
+  private final Charset m_aCharset;
+
+  public LineOutputStream (final Consumer <String> consumer)
+  {
+    this (consumer, Charset.defaultCharset ());
+  }
+
+  public LineOutputStream (final Consumer <String> consumer, final Charset charset)
+  {
+    m_aConsumer = consumer;
+    m_aCharset = charset;
+  }
+
+  @Override
+  public synchronized void write (final int b)
+  {
+    if (b == '\n')
+    {
+      _flushLine ();
+    }
+    else
+    {
+      m_aBuffer.write (b);
+    }
+  }
+
+  @Override
+  public synchronized void write (final byte [] b, final int off, final int len)
+  {
+    for (int i = off; i < off + len; i++)
+    {
+      write (b[i]);
+    }
+  }
+
+  @Override
+  public synchronized void close ()
+  {
+    if (m_aBuffer.size () > 0)
+    {
+      _flushLine ();
+    }
+  }
+
+  private void _flushLine ()
+  {
+    String line = new String (m_aBuffer.toByteArray (), m_aCharset);
+    m_aBuffer.reset ();
+    if (line.endsWith ("\r"))
+    {
+      line = line.substring (0, line.length () - 1);
+    }
+    m_aConsumer.accept (line);
+  }
+}
@@ -0,0 +1,530 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Records the files every unit, a WSDL or a SEI, generated into the output
+ * directories, so that missing or hand-modified outputs can be detected and
+ * only the affected units generated again.
+ * <p>
+ * Paths are recorded relative to a named output root, such as
+ * <code>src/com/acme/Foo.java</code>, with the SHA-256 fingerprint, size and
+ * modification time of the file. A file is hashed again only if its size
+ * or modification time differ from the recorded ones. A file generated by
+ * several units, for example an <code>ObjectFactory</code> in a shared
+ * package, is recorded for each of them with the content written last.
+ * </p>
+ * <p>
+ * Several executions may share the manifest, for example the main and test
+ * executions of wsimport, with root names mapping to different directories.
+ * The manifest therefore also records the output directories of every unit,
+ * and files of different units are only considered the same if they resolve
+ * to the same physical file.
+ * </p>
+ * <p>
+ * Files a unit generated before but no longer generates, and all files of a
+ * unit which is removed, are deleted unless another unit still owns them.
+ * </p>
+ */
+final class OutputManifest
+{
+  private static final String ROOT_PREFIX = "@ ";
+
+  private final File m_aFile;
+  private final Map <String, Map <String, Output>> m_aUnits = new TreeMap <> ();
+  private final Map <String, Map <String, File>> m_aRoots = new TreeMap <> ();
+  private boolean m_bModified;
+
+  /**
+   * Loads the manifest. A missing or unreadable manifest is treated as
+   * empty.
+   *
+   * @param file
+   *        the manifest file
+   */
+  OutputManifest (final File file)
+  {
+    m_aFile = file;
+    if (file.isFile ())
+    {
+      final Properties p = new Properties ();
+      try (InputStream is = new FileInputStream (file))
+      {
+        p.load (is);
+      }
+      catch (final IOException | IllegalArgumentException ex)
+      {
+        p.clear ();
+      }
+      for (final String id : p.stringPropertyNames ())
+      {
+        final Map <String, Output> outputs = new TreeMap <> ();
+        final Map <String, File> unitRoots = new TreeMap <> ();
+        for (final String line : p.getProperty (id).split ("\n"))
+        {
+          if (line.startsWith (ROOT_PREFIX))
+          {
+            // @ name directory
+            final String [] parts = line.split (" ", 3);
+            if (parts.length == 3)
+            {
+              unitRoots.put (parts[1], new File (parts[2]));
+            }
+            continue;
+          }
+          // fingerprint size lastModified path
+          final String [] parts = line.split (" ", 4);
+          if (parts.length == 4)
+          {
+            try
+            {
+              outputs.put (parts[3],
+                           new Output (parts[0], Long.parseLong (parts[1]), Long.parseLong (parts[2])));
+            }
+            catch (final NumberFormatException ex)
+            {
+              // ignore the line, the unit is generated again then
+            }
+          }
+        }
+        m_aUnits.put (id, outputs);
+        if (!unitRoots.isEmpty ())
+        {
+          m_aRoots.put (id, unitRoots);
+        }
+      }
+    }
+  }
+
+  synchronized boolean contains (final String id)
+  {
+    return m_aUnits.containsKey (id);
+  }
+
+  synchronized Set <String> getIds ()
+  {
+    return new TreeSet <> (m_aUnits.keySet ());
+  }
+
+  /**
+   * Checks that all recorded outputs of a unit still exist unmodified.
+   *
+   * @param id
+   *        the unit
+   * @param roots
+   *        output directories keyed by root name
+   * @return <code>null</code> if all outputs are intact, else a description
+   *         of the first missing or modified file
+   */
+  synchronized String getDamage (final String id, final Map <String, File> roots)
+  {
+    final Map <String, Output> outputs = m_aUnits.get (id);
+    if (outputs == null)
+    {
+      return "outputs not recorded";
+    }
+    for (final Map.Entry <String, Output> entry : outputs.entrySet ())
+    {
+      final File file = resolve (entry.getKey (), roots);
+      if (file == null)
+      {
+        return "output directory of " + entry.getKey () + " not configured";
+      }
+      final Output recorded = entry.getValue ();
+      if (!file.isFile ())
+      {
+        return file.getPath () + " missing";
+      }
+      if (file.length () != recorded.m_nSize)
+      {
+        return file.getPath () + " modified";
+      }
+      if (file.lastModified () != recorded.m_nLastModified)
+      {
+        try
+        {
+          if (!Fingerprint.of (file).equals (recorded.m_sFingerprint))
+          {
+            return file.getPath () + " modified";
+          }
+        }
+        catch (final IOException ex)
+        {
+          return file.getPath () + " unreadable";
+        }
+        // touched only, don't hash it again next time
+        entry.setValue (new Output (recorded.m_sFingerprint, recorded.m_nSize, file.lastModified ()));
+        m_bModified = true;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Moves the outputs of a unit from its work directories to the output
+   * directories and records them as the outputs of the unit. Files with the
+   * same content as the existing ones are not replaced, so that their time
+   * stamps stay unchanged and incremental compilation skips them. Files the
+   * unit generated before but no longer generates are deleted unless another
+   * unit owns them.
+   * <p>
+   * The returned files are the ones the IDE must refresh: replaced or new
+   * files, which exist, and deleted files, which don't.
+   * </p>
+   *
+   * @param id
+   *        the unit
+   * @param staged
+   *        work directories keyed by root name
+   * @param roots
+   *        output directories keyed by root name
+   * @return the written and the deleted files
+   * @throws IOException
+   *         if a file cannot be moved
+   */
+  synchronized List <File> install (final String id,
+                                    final Map <String, File> staged,
+                                    final Map <String, File> roots) throws IOException
+  {
+    return install (id, staged, roots, true);
+  }
+
+  /**
+   * Same as {@link #install(String, Map, Map)}, optionally keeping existing
+   * files.
+   *
+   * @param id
+   *        the unit
+   * @param staged
+   *        work directories keyed by root name
+   * @param roots
+   *        output directories keyed by root name
+   * @param overwrite
+   *        <code>false</code> to keep existing files with different content,
+   *        which are then recorded with their current content
+   * @return the written and the deleted files
+   * @throws IOException
+   *         if a file cannot be moved
+   */
+  synchronized List <File> install (final String id,
+                                    final Map <String, File> staged,
+                                    final Map <String, File> roots,
+                                    final boolean overwrite) throws IOException
+  {
+    final Map <String, Output> outputs = new TreeMap <> ();
+    final Map <String, File> installed = new TreeMap <> ();
+    final List <File> changed = new ArrayList <> ();
+    for (final Map.Entry <String, File> root : staged.entrySet ())
+    {
+      final File target = roots.get (root.getKey ());
+      if (target == null || !root.getValue ().isDirectory ())
+      {
+        continue;
+      }
+      final Path source = root.getValue ().toPath ();
+      try (Stream <Path> paths = Files.walk (source))
+      {
+        for (final Path path : (Iterable <Path>) paths.sorted ()::iterator)
+        {
+          final String relative = source.relativize (path).toString ().replace (File.separatorChar, '/');
+          final Path dest = target.toPath ().resolve (relative);
+          if (Files.isDirectory (path))
+          {
+            Files.createDirectories (dest);
+          }
+          else
+          {
+            final String key = root.getKey () + "/" + relative;
+            String fingerprint = Fingerprint.of (path.toFile ());
+            final File file = dest.toFile ();
+            if (!overwrite && file.isFile ())
+            {
+              // -Xdonotoverwrite: keep the existing file and record it as is
+              fingerprint = getFingerprint (file, roots);
+            }
+            else
+              if (!file.isFile () ||
+                  file.length () != Files.size (path) ||
+                  !fingerprint.equals (getFingerprint (file, roots)))
+              {
+                Files.move (path, dest, StandardCopyOption.REPLACE_EXISTING);
+                changed.add (file);
+              }
+            // else keep the file and its time stamp, so that it is not compiled again
+            outputs.put (key, new Output (fingerprint, file.length (), file.lastModified ()));
+            installed.put (key, file);
+          }
+        }
+      }
+    }
+    final Map <String, Output> previous = m_aUnits.put (id, outputs);
+    m_aRoots.put (id, getAbsoluteRoots (roots));
+    // files shared with other units now have the content written last
+    for (final Map.Entry <String, Map <String, Output>> other : m_aUnits.entrySet ())
+    {
+      if (other.getValue () != outputs)
+      {
+        for (final Map.Entry <String, File> file : installed.entrySet ())
+        {
+          final String key = getKey (other.getKey (), file.getValue (), roots);
+          if (key != null && other.getValue ().containsKey (key))
+          {
+            other.getValue ().put (key, outputs.get (file.getKey ()));
+          }
+        }
+      }
+    }
+    m_bModified = true;
+    if (previous != null)
+    {
+      changed.addAll (deleteOrphans (previous.keySet (), roots));
+    }
+    return changed;
+  }
+
+  /**
+   * @return fingerprint of an existing output file, taken from the manifest
+   *         if the file still has a recorded size and time stamp
+   */
+  private String getFingerprint (final File file, final Map <String, File> roots) throws IOException
+  {
+    for (final Map.Entry <String, Map <String, Output>> unit : m_aUnits.entrySet ())
+    {
+      final String key = getKey (unit.getKey (), file, roots);
+      final Output recorded = key != null ? unit.getValue ().get (key) : null;
+      if (recorded != null && recorded.m_nSize == file.length () && recorded.m_nLastModified == file.lastModified ())
+      {
+        return recorded.m_sFingerprint;
+      }
+    }
+    return Fingerprint.of (file);
+  }
+
+  /**
+   * Forgets a unit and deletes its outputs unless another unit owns them.
+   *
+   * @param id
+   *        the unit
+   * @param roots
+   *        output directories keyed by root name
+   * @return the deleted files
+   * @throws IOException
+   *         if a file cannot be deleted
+   */
+  synchronized List <File> remove (final String id, final Map <String, File> roots) throws IOException
+  {
+    final Map <String, Output> outputs = m_aUnits.remove (id);
+    m_aRoots.remove (id);
+    if (outputs == null)
+    {
+      return new ArrayList <> ();
+    }
+    m_bModified = true;
+    return deleteOrphans (outputs.keySet (), roots);
+  }
+
+  /**
+   * Deletes the files no unit owns any more, and directories which become
+   * empty by that, up to the output directory.
+   */
+  private List <File> deleteOrphans (final Set <String> paths, final Map <String, File> roots) throws IOException
+  {
+    final List <File> deleted = new ArrayList <> ();
+    for (final String path : paths)
+    {
+      final File file = resolve (path, roots);
+      if (file == null || getOwnerCount (file, roots) > 0)
+      {
+        continue;
+      }
+      if (Files.deleteIfExists (file.toPath ()))
+      {
+        deleted.add (file);
+        final File root = roots.get (path.substring (0, path.indexOf ('/')));
+        File parent = file.getParentFile ();
+        while (parent != null && !parent.equals (root) && parent.delete ())
+        {
+          parent = parent.getParentFile ();
+        }
+      }
+    }
+    return deleted;
+  }
+
+  /**
+   * @param file
+   *        an output file
+   * @param roots
+   *        output directories of units recorded without them
+   * @return the number of units which generated the file
+   */
+  synchronized int getOwnerCount (final File file, final Map <String, File> roots)
+  {
+    int count = 0;
+    for (final Map.Entry <String, Map <String, Output>> unit : m_aUnits.entrySet ())
+    {
+      final String key = getKey (unit.getKey (), file, roots);
+      if (key != null && unit.getValue ().containsKey (key))
+      {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the path of a file relative to the output directories of a unit,
+   * in the form recorded in the manifest.
+   *
+   * @param id
+   *        the unit
+   * @param file
+   *        the file
+   * @param fallback
+   *        output directories used if the unit was recorded without them
+   * @return the key, <code>null</code> if the file is in none of the output
+   *         directories of the unit
+   */
+  private String getKey (final String id, final File file, final Map <String, File> fallback)
+  {
+    final Map <String, File> unitRoots = m_aRoots.containsKey (id) ? m_aRoots.get (id) : fallback;
+    final Path path = file.getAbsoluteFile ().toPath ().normalize ();
+    for (final Map.Entry <String, File> root : unitRoots.entrySet ())
+    {
+      final Path rootPath = root.getValue ().getAbsoluteFile ().toPath ().normalize ();
+      if (path.startsWith (rootPath) && !path.equals (rootPath))
+      {
+        return root.getKey () + "/" + rootPath.relativize (path).toString ().replace (File.separatorChar, '/');
+      }
+    }
+    return null;
+  }
+
+  private static Map <String, File> getAbsoluteRoots (final Map <String, File> roots)
+  {
+    final Map <String, File> result = new TreeMap <> ();
+    for (final Map.Entry <String, File> root : roots.entrySet ())
+    {
+      result.put (root.getKey (), root.getValue ().getAbsoluteFile ());
+    }
+    return result;
+  }
+
+  /**
+   * Writes the manifest if it was modified since it was loaded.
+   *
+   * @throws IOException
+   *         if the manifest cannot be written
+   */
+  synchronized void save () throws IOException
+  {
+    if (m_bModified)
+    {
+      final Properties p = new Properties ();
+      for (final Map.Entry <String, Map <String, Output>> unit : m_aUnits.entrySet ())
+      {
+        final StringBuilder sb = new StringBuilder ();
+        final Map <String, File> unitRoots = m_aRoots.get (unit.getKey ());
+        if (unitRoots != null)
+        {
+          for (final Map.Entry <String, File> root : unitRoots.entrySet ())
+          {
+            if (sb.length () > 0)
+            {
+              sb.append ('\n');
+            }
+            sb.append (ROOT_PREFIX).append (root.getKey ()).append (' ').append (root.getValue ().getPath ());
+          }
+        }
+        for (final Map.Entry <String, Output> entry : unit.getValue ().entrySet ())
+        {
+          if (sb.length () > 0)
+          {
+            sb.append ('\n');
+          }
+          final Output output = entry.getValue ();
+          sb.append (output.m_sFingerprint)
+            .append (' ')
+            .append (output.m_nSize)
+            .append (' ')
+            .append (output.m_nLastModified)
+            .append (' ')
+            .append (entry.getKey ());
+        }
+        p.setProperty (unit.getKey (), sb.toString ());
+      }
+      StaleManifest.store (p, m_aFile);
+      m_bModified = false;
+    }
+  }
+
+  private static File resolve (final String path, final Map <String, File> roots)
+  {
+    final int idx = path.indexOf ('/');
+    final File root = idx > 0 ? roots.get (path.substring (0, idx)) : null;
+    return root != null ? new File (root, path.substring (idx + 1)) : null;
+  }
+
+  private static final class Output
+  {
+    private final String m_sFingerprint;
+    private final long m_nSize;
+    private final long m_nLastModified;
+
+    Output (final String fingerprint, final long size, final long lastModified)
+    {
+      m_sFingerprint = fingerprint;
+      m_nSize = size;
+      m_nLastModified = lastModified;
+    }
+  }
+}
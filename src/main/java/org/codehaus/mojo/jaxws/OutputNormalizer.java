@@ -0,0 +1,118 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Removes build specific content from generated sources, so that the same
+ * inputs produce byte-identical files on every machine and in every build:
+ * <ul>
+ * <li>the <code>Generated on: &lt;date&gt;</code> line of the file headers
+ * written by XJC,</li>
+ * <li>the <code>date</code> element of <code>@Generated</code> annotations
+ * written with <code>-mark-generated</code>,</li>
+ * <li>Windows line separators.</li>
+ * </ul>
+ * Files are processed as ISO-8859-1, which leaves the bytes of any ASCII
+ * compatible encoding untouched.
+ */
+final class OutputNormalizer
+{
+  private static final Pattern TIMESTAMP_LINE = Pattern.compile ("^// Generated on: .*\n", Pattern.MULTILINE);
+
+  private static final Pattern GENERATED_DATE = Pattern.compile ("(@(?:javax\\.annotation\\.)?Generated\\s*\\([^)]*?)" +
+                                                                 ",\\s*date\\s*=\\s*\"[^\"]*\"");
+
+  private OutputNormalizer ()
+  {}
+
+  /**
+   * @param content
+   *        content of a generated source file
+   * @return the normalized content
+   */
+  static String normalize (final String content)
+  {
+    String normalized = content.replace ("\r\n", "\n");
+    normalized = TIMESTAMP_LINE.matcher (normalized).replaceAll ("");
+    normalized = GENERATED_DATE.matcher (normalized).replaceAll ("$1");
+    return normalized;
+  }
+
+  /**
+   * Normalizes all Java sources below a directory.
+   *
+   * @param dir
+   *        the directory, may not exist
+   * @return the number of modified files
+   * @throws IOException
+   *         if a file cannot be read or written
+   */
+  static int normalizeTree (final File dir) throws IOException
+  {
+    if (!dir.isDirectory ())
+    {
+      return 0;
+    }
+    final List <Path> files;
+    try (Stream <Path> paths = Files.walk (dir.toPath ()))
+    {
+      files = paths.filter (p -> p.toString ().endsWith (".java") && Files.isRegularFile (p))
+                   .collect (Collectors.toList ());
+    }
+    int modified = 0;
+    for (final Path file : files)
+    {
+      final String content = new String (Files.readAllBytes (file), StandardCharsets.ISO_8859_1);
+      final String normalized = normalize (content);
+      if (!normalized.equals (content))
+      {
+        Files.write (file, normalized.getBytes (StandardCharsets.ISO_8859_1));
+        modified++;
+      }
+    }
+    return modified;
+  }
+}
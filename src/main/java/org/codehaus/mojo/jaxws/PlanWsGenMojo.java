@@ -0,0 +1,105 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Lists every SEI of a <code>wsgen</code> execution, whether it is stale and
+ * why, and estimates how long the next build will take, without running the
+ * tool or modifying any file. Estimates are based on the durations
+ * <code>wsgen</code> recorded for every SEI and, for SEIs not processed
+ * before, on the size of the classes they depend on. The plan is logged and
+ * written as a JSON report.
+ * <p>
+ * The goal needs the same configuration as the planned execution and the
+ * compiled classes.
+ * </p>
+ *
+ * @since 2.6.3
+ */
+@Mojo (name = "wsgen-plan", requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class PlanWsGenMojo extends MainWsGenMojo
+{
+  /**
+   * Id of the <code>wsgen</code> execution which is planned.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.plannedExecutionId", defaultValue = "default")
+  private String plannedExecutionId;
+
+  /**
+   * The JSON report listing every SEI, why it is stale, its estimated
+   * duration and how often it was stale before.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.planReport", defaultValue = "${project.build.directory}/jaxws/plan-wsgen.json")
+  private File planReport;
+
+  @Override
+  public void executeJaxws () throws MojoExecutionException, MojoFailureException
+  {
+    final VerifyReport report = new VerifyReport (getToolName (), plannedExecutionId);
+    checkSeis (report);
+    try
+    {
+      report.write (planReport);
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException (ex.getMessage (), ex);
+    }
+    for (final String line : report.getPlan ("SEIs", getThreads ()))
+    {
+      getLog ().info (line);
+    }
+  }
+
+  @Override
+  protected String getExecutionId ()
+  {
+    return plannedExecutionId;
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Lists every WSDL of a <code>wsimport</code> execution, whether it is stale
+ * and why, and estimates how long the next build will take, without running
+ * the tool or modifying any file. Estimates are based on the durations
+ * <code>wsimport</code> recorded for every WSDL and, for WSDLs not processed
+ * before, on their size. The plan is logged and written as a JSON report.
+ * <p>
+ * Like <code>jaxws:verify</code>, the goal needs the same configuration as
+ * the planned execution.
+ * </p>
+ *
+ * @since 2.6.3
+ */
+@Mojo (name = "plan", requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class PlanWsImportMojo extends MainWsImportMojo
+{
+  /**
+   * Id of the <code>wsimport</code> execution which is planned.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.plannedExecutionId", defaultValue = "default")
+  private String plannedExecutionId;
+
+  /**
+   * The JSON report listing every WSDL, why it is stale, its estimated
+   * duration and how often it was stale before.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.planReport", defaultValue = "${project.build.directory}/jaxws/plan-wsimport.json")
+  private File planReport;
+
+  @Override
+  public void executeJaxws () throws MojoExecutionException, MojoFailureException
+  {
+    final VerifyReport report = new VerifyReport (getToolName (), plannedExecutionId);
+    try
+    {
+      checkWsdls (report);
+      report.write (planReport);
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException (ex.getMessage (), ex);
+    }
+    for (final String line : report.getPlan ("WSDLs", getThreads ()))
+    {
+      getLog ().info (line);
+    }
+  }
+
+  @Override
+  protected String getExecutionId ()
+  {
+    return plannedExecutionId;
+  }
+}
@@ -0,0 +1,179 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+
+/**
+ * Build cache entries shared over HTTP. Entries are read with
+ * <code>GET &lt;url&gt;/&lt;key&gt;.zip</code> and written with
+ * <code>PUT</code> to the same location, so any web server accepting uploads
+ * can serve as remote cache. Credentials given as user info of the URL are
+ * sent with basic authentication.
+ */
+final class RemoteBuildCache
+{
+  private final String m_sUrl;
+  private final int m_nConnectTimeout;
+  private final int m_nReadTimeout;
+  private final boolean m_bReadOnly;
+
+  /**
+   * @param url
+   *        base URL of the cache
+   * @param connectTimeout
+   *        connect timeout in milliseconds
+   * @param readTimeout
+   *        read timeout in milliseconds
+   * @param readOnly
+   *        <code>true</code> to never upload entries
+   */
+  RemoteBuildCache (final String url, final int connectTimeout, final int readTimeout, final boolean readOnly)
+  {
+    m_sUrl = url.endsWith ("/") ? url : url + "/";
+    m_nConnectTimeout = connectTimeout;
+    m_nReadTimeout = readTimeout;
+    m_bReadOnly = readOnly;
+  }
+
+  boolean isReadOnly ()
+  {
+    return m_bReadOnly;
+  }
+
+  /**
+   * @param key
+   *        the key
+   * @param target
+   *        file to write the entry to
+   * @return <code>false</code> if the cache has no entry for the key
+   * @throws IOException
+   *         if the cache cannot be reached or answers with an error
+   */
+  boolean download (final String key, final File target) throws IOException
+  {
+    final HttpURLConnection connection = open (key);
+    try
+    {
+      final int status = connection.getResponseCode ();
+      if (status == HttpURLConnection.HTTP_NOT_FOUND)
+      {
+        return false;
+      }
+      if (status != HttpURLConnection.HTTP_OK)
+      {
+        throw new IOException ("GET " + getDisplayUrl (connection) + " returned " + status);
+      }
+      try (InputStream is = connection.getInputStream ())
+      {
+        Files.copy (is, target.toPath (), StandardCopyOption.REPLACE_EXISTING);
+      }
+      return true;
+    }
+    finally
+    {
+      connection.disconnect ();
+    }
+  }
+
+  /**
+   * @param key
+   *        the key
+   * @param entry
+   *        the zipped outputs
+   * @throws IOException
+   *         if the cache cannot be reached or rejects the entry
+   */
+  void upload (final String key, final File entry) throws IOException
+  {
+    final HttpURLConnection connection = open (key);
+    try
+    {
+      connection.setRequestMethod ("PUT");
+      connection.setDoOutput (true);
+      connection.setRequestProperty ("Content-Type", "application/zip");
+      connection.setFixedLengthStreamingMode (entry.length ());
+      try (OutputStream os = connection.getOutputStream ())
+      {
+        Files.copy (entry.toPath (), os);
+      }
+      final int status = connection.getResponseCode ();
+      if (status / 100 != 2)
+      {
+        throw new IOException ("PUT " + getDisplayUrl (connection) + " returned " + status);
+      }
+    }
+    finally
+    {
+      connection.disconnect ();
+    }
+  }
+
+  /**
+   * @return the URL of the connection without credentials
+   */
+  private static String getDisplayUrl (final HttpURLConnection connection)
+  {
+    final URL url = connection.getURL ();
+    return url.getUserInfo () == null ? url.toExternalForm ()
+                                      : url.toExternalForm ().replace (url.getUserInfo () + "@", "");
+  }
+
+  private HttpURLConnection open (final String key) throws IOException
+  {
+    final URL url = new URL (m_sUrl + key + ".zip");
+    final HttpURLConnection connection = (HttpURLConnection) url.openConnection ();
+    connection.setConnectTimeout (m_nConnectTimeout);
+    connection.setReadTimeout (m_nReadTimeout);
+    connection.setUseCaches (false);
+    if (url.getUserInfo () != null)
+    {
+      final byte [] credentials = URLDecoder.decode (url.getUserInfo (), "UTF-8").getBytes (StandardCharsets.UTF_8);
+      connection.setRequestProperty ("Authorization", "Basic " + Base64.getEncoder ().encodeToString (credentials));
+    }
+    return connection;
+  }
+}
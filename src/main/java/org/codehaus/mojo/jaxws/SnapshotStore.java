@@ -0,0 +1,646 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local copies of remote WSDLs and schemas, so that builds need no network
+ * access for documents fetched recently or when Maven is offline.
+ * <p>
+ * Every document is stored as <code>&lt;sha&gt;.snapshot</code> next to
+ * <code>&lt;sha&gt;.properties</code> holding its URL, the time it was
+ * fetched and the <code>ETag</code> and <code>Last-Modified</code> validators
+ * the server sent, where <code>sha</code> is the fingerprint of the URL. A
+ * snapshot younger than the freshness window is used as is. An older one is
+ * revalidated by a conditional request, which keeps the snapshot if the
+ * server answers <code>304 Not Modified</code>, replaces it otherwise and
+ * uses it if the request fails. Documents are only read from the snapshot
+ * when offline.
+ * </p>
+ * <p>
+ * A read-only store fetches documents without storing snapshots, for goals
+ * that must not modify any file.
+ * </p>
+ * <p>
+ * Every document is read at most once per build. {@link #prefetch} reads
+ * many documents concurrently, bounded per host, so that the stale checks
+ * do not wait for one remote document after the other.
+ * </p>
+ */
+final class SnapshotStore
+{
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+  private static final String PROPERTIES_SUFFIX = ".properties";
+
+  private static final String ETAG = "ETag";
+
+  private static final String LAST_MODIFIED = "Last-Modified";
+
+  private static final int CONNECT_TIMEOUT = 30_000;
+
+  private static final int READ_TIMEOUT = 60_000;
+
+  private static final int MAX_PREFETCH_THREADS = 16;
+
+  private final File m_aDir;
+  private final long m_nFreshness;
+  private final boolean m_bOffline;
+  private final boolean m_bReadOnly;
+  private final Map <String, File> m_aUsed = new TreeMap <> ();
+  private final Map <String, String> m_aFailures = new TreeMap <> ();
+  private final Map <String, byte []> m_aContents = new HashMap <> ();
+  private final Map <String, IOException> m_aErrors = new HashMap <> ();
+  private final Map <String, ReentrantLock> m_aLocks = new HashMap <> ();
+  private int m_nRevalidated;
+  private long m_nDeadline = Long.MAX_VALUE;
+
+  /**
+   * @param dir
+   *        the store directory
+   * @param freshness
+   *        milliseconds during which a snapshot is used without fetching the
+   *        document again
+   * @param offline
+   *        whether to use snapshots only
+   */
+  SnapshotStore (final File dir, final long freshness, final boolean offline)
+  {
+    this (dir, freshness, offline, false);
+  }
+
+  /**
+   * @param dir
+   *        the store directory
+   * @param freshness
+   *        milliseconds during which a snapshot is used without fetching the
+   *        document again
+   * @param offline
+   *        whether to use snapshots only
+   * @param readOnly
+   *        whether to leave the store directory unchanged
+   */
+  SnapshotStore (final File dir, final long freshness, final boolean offline, final boolean readOnly)
+  {
+    m_aDir = dir;
+    m_nFreshness = freshness;
+    m_bOffline = offline;
+    m_bReadOnly = readOnly;
+  }
+
+  /**
+   * @param url
+   *        URL of a document
+   * @return <code>true</code> if the document is read through the network
+   *         and therefore through snapshots
+   */
+  static boolean isRemote (final String url)
+  {
+    return url.startsWith ("http:") || url.startsWith ("https:") || url.startsWith ("ftp:");
+  }
+
+  /**
+   * Reads a remote document from its snapshot or from the network, or
+   * returns the result of a previous read during this build.
+   *
+   * @param url
+   *        URL of the document
+   * @return the content
+   * @throws IOException
+   *         if the document can be read neither from the network nor from a
+   *         snapshot
+   */
+  byte [] read (final String url) throws IOException
+  {
+    final ReentrantLock lock;
+    synchronized (this)
+    {
+      lock = m_aLocks.computeIfAbsent (url, k -> new ReentrantLock ());
+    }
+    // concurrent reads of the same document wait for the first one, but not
+    // beyond the time budget if a snapshot can be used instead
+    if (!tryLock (lock, url))
+    {
+      final byte [] content = readPendingSnapshot (url);
+      if (content != null)
+      {
+        return content;
+      }
+      lock.lock ();
+    }
+    try
+    {
+      synchronized (this)
+      {
+        if (m_aContents.containsKey (url))
+        {
+          return m_aContents.get (url);
+        }
+        if (m_aErrors.containsKey (url))
+        {
+          throw new IOException (m_aErrors.get (url).getMessage (), m_aErrors.get (url));
+        }
+      }
+      try
+      {
+        final byte [] content = load (url);
+        synchronized (this)
+        {
+          // a snapshot read meanwhile stays the content of this build
+          m_aContents.putIfAbsent (url, content);
+          return m_aContents.get (url);
+        }
+      }
+      catch (final IOException ex)
+      {
+        synchronized (this)
+        {
+          m_aErrors.put (url, ex);
+        }
+        throw ex;
+      }
+    }
+    finally
+    {
+      lock.unlock ();
+    }
+  }
+
+  /**
+   * Acquires the lock of a document, waiting at most until the deadline.
+   */
+  private boolean tryLock (final ReentrantLock lock, final String url) throws IOException
+  {
+    if (lock.tryLock ())
+    {
+      return true;
+    }
+    final long remaining = getDeadline () - System.currentTimeMillis ();
+    try
+    {
+      return remaining > 0 && lock.tryLock (remaining, TimeUnit.MILLISECONDS);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while reading " + url);
+    }
+  }
+
+  /**
+   * Reads the snapshot of a document still being fetched once the time budget
+   * is exhausted.
+   *
+   * @return the content, <code>null</code> if there is no snapshot
+   */
+  private byte [] readPendingSnapshot (final String url) throws IOException
+  {
+    synchronized (this)
+    {
+      if (m_aContents.containsKey (url))
+      {
+        return m_aContents.get (url);
+      }
+    }
+    if (!getSnapshot (url).isFile () || !url.equals (loadProperties (url).getProperty ("url")))
+    {
+      return null;
+    }
+    final byte [] content = useSnapshot (url, "time budget for remote checks exhausted");
+    synchronized (this)
+    {
+      m_aContents.putIfAbsent (url, content);
+      return m_aContents.get (url);
+    }
+  }
+
+  /**
+   * Reads the remote documents concurrently, so that later reads return
+   * without network access. At most <code>perHost</code> documents are
+   * fetched from the same host at a time, reusing kept-alive connections.
+   * Once the time budget is exhausted, remote documents are read from their
+   * snapshot if one exists, also by reads of documents whose fetch is still
+   * running, and documents not read by then are left to be read on demand.
+   *
+   * @param urls
+   *        URLs of documents, non-remote ones are ignored
+   * @param perHost
+   *        maximum number of concurrent requests per host
+   * @param budget
+   *        milliseconds to wait for all documents, <code>0</code> for no
+   *        limit
+   * @return the number of remote documents not read within the budget
+   */
+  int prefetch (final Collection <String> urls, final int perHost, final long budget)
+  {
+    final Map <String, List <String>> byHost = new LinkedHashMap <> ();
+    for (final String url : new LinkedHashSet <> (urls))
+    {
+      if (isRemote (url))
+      {
+        try
+        {
+          byHost.computeIfAbsent (new URL (url).getAuthority (), k -> new ArrayList <> ()).add (url);
+        }
+        catch (final MalformedURLException ex)
+        {
+          // reported when read
+        }
+      }
+    }
+    synchronized (this)
+    {
+      m_nDeadline = budget > 0 ? System.currentTimeMillis () + budget : Long.MAX_VALUE;
+    }
+    if (m_bOffline || byHost.isEmpty ())
+    {
+      return 0;
+    }
+
+    final int threads = Math.min (MAX_PREFETCH_THREADS, byHost.size () * Math.max (1, perHost));
+    final ExecutorService executor = Executors.newFixedThreadPool (threads, r -> {
+      final Thread thread = new Thread (r, "jaxws-prefetch");
+      thread.setDaemon (true);
+      return thread;
+    });
+    final List <Future <?>> futures = new ArrayList <> ();
+    try
+    {
+      // hosts take turns, so that one slow host does not block the others
+      final List <Iterator <String>> queues = new ArrayList <> ();
+      final List <Semaphore> permits = new ArrayList <> ();
+      for (final List <String> hostUrls : byHost.values ())
+      {
+        queues.add (hostUrls.iterator ());
+        permits.add (new Semaphore (Math.max (1, perHost)));
+      }
+      for (boolean more = true; more;)
+      {
+        more = false;
+        for (int i = 0; i < queues.size (); i++)
+        {
+          if (queues.get (i).hasNext ())
+          {
+            final String url = queues.get (i).next ();
+            final Semaphore semaphore = permits.get (i);
+            futures.add (executor.submit ( () -> {
+              semaphore.acquire ();
+              try
+              {
+                read (url);
+              }
+              catch (final IOException ex)
+              {
+                // thrown again when read
+              }
+              finally
+              {
+                semaphore.release ();
+              }
+              return null;
+            }));
+            more = true;
+          }
+        }
+      }
+      executor.shutdown ();
+      executor.awaitTermination (budget > 0 ? budget : Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+    }
+    finally
+    {
+      executor.shutdownNow ();
+    }
+    int pending = 0;
+    for (final Future <?> future : futures)
+    {
+      if (!future.isDone ())
+      {
+        pending++;
+      }
+    }
+    return pending;
+  }
+
+  private byte [] load (final String url) throws IOException
+  {
+    final File snapshot = getSnapshot (url);
+    final Properties properties = loadProperties (url);
+    final long fetched = Long.parseLong (properties.getProperty ("fetched", "0"));
+    final boolean available = snapshot.isFile () && url.equals (properties.getProperty ("url"));
+    if (available && (m_bOffline || System.currentTimeMillis () - fetched < m_nFreshness))
+    {
+      return useSnapshot (url, null);
+    }
+    if (available && System.currentTimeMillis () > getDeadline ())
+    {
+      return useSnapshot (url, "time budget for remote checks exhausted");
+    }
+    if (m_bOffline)
+    {
+      throw new IOException ("No snapshot of " + url + " available offline");
+    }
+
+    if (!available)
+    {
+      properties.remove (ETAG);
+      properties.remove (LAST_MODIFIED);
+    }
+    final byte [] content;
+    try
+    {
+      content = fetch (new URL (url), properties);
+    }
+    catch (final IOException ex)
+    {
+      if (!available)
+      {
+        throw ex;
+      }
+      // outdated, but better than nothing
+      return useSnapshot (url, ex.toString ());
+    }
+    if (m_bReadOnly)
+    {
+      return content != null ? content : Files.readAllBytes (snapshot.toPath ());
+    }
+    properties.setProperty ("url", url);
+    properties.setProperty ("fetched", Long.toString (System.currentTimeMillis ()));
+    if (content != null)
+    {
+      write (snapshot, content);
+    }
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+    properties.store (bos, null);
+    write (getPropertiesFile (url), bos.toByteArray ());
+    synchronized (this)
+    {
+      if (content == null)
+      {
+        m_nRevalidated++;
+      }
+    }
+    return content != null ? useSnapshot (url, null, content) : useSnapshot (url, null);
+  }
+
+  private byte [] useSnapshot (final String url, final String failure) throws IOException
+  {
+    return useSnapshot (url, failure, Files.readAllBytes (getSnapshot (url).toPath ()));
+  }
+
+  private synchronized byte [] useSnapshot (final String url, final String failure, final byte [] content)
+  {
+    if (failure != null)
+    {
+      m_aFailures.put (url, failure);
+    }
+    m_aUsed.put (url, getSnapshot (url));
+    return content;
+  }
+
+  private synchronized long getDeadline ()
+  {
+    return m_nDeadline;
+  }
+
+  /**
+   * @return the number of outdated snapshots the server confirmed to be
+   *         unchanged
+   */
+  synchronized int getRevalidated ()
+  {
+    return m_nRevalidated;
+  }
+
+  /**
+   * @return the snapshots read during this build, keyed by URL
+   */
+  synchronized Map <String, File> getUsed ()
+  {
+    return new TreeMap <> (m_aUsed);
+  }
+
+  /**
+   * @return the documents which could not be fetched and were read from an
+   *         outdated snapshot, along with the error
+   */
+  synchronized Map <String, String> getFailures ()
+  {
+    return new TreeMap <> (m_aFailures);
+  }
+
+  /**
+   * Writes an OASIS XML catalog mapping the URLs of the snapshots read during
+   * this build to the snapshot files, so that the tool reads the same
+   * content without network access.
+   *
+   * @param file
+   *        the catalog file
+   * @throws IOException
+   *         if the catalog cannot be written
+   */
+  synchronized void writeCatalog (final File file) throws IOException
+  {
+    final StringBuilder catalog = new StringBuilder ();
+    catalog.append ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    catalog.append ("<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\" prefer=\"system\">\n");
+    for (final Map.Entry <String, File> entry : m_aUsed.entrySet ())
+    {
+      catalog.append ("  <system systemId=\"")
+             .append (escape (entry.getKey ()))
+             .append ("\" uri=\"")
+             .append (escape (entry.getValue ().toURI ().toString ()))
+             .append ("\"/>\n");
+    }
+    catalog.append ("</catalog>\n");
+    write (file, catalog.toString ().getBytes (StandardCharsets.UTF_8));
+  }
+
+  File getSnapshot (final String url)
+  {
+    return new File (m_aDir, Fingerprint.of (url) + SNAPSHOT_SUFFIX);
+  }
+
+  private File getPropertiesFile (final String url)
+  {
+    return new File (m_aDir, Fingerprint.of (url) + PROPERTIES_SUFFIX);
+  }
+
+  private Properties loadProperties (final String url)
+  {
+    final Properties properties = new Properties ();
+    final File file = getPropertiesFile (url);
+    if (file.isFile ())
+    {
+      try (InputStream is = new FileInputStream (file))
+      {
+        properties.load (is);
+      }
+      catch (final IOException | IllegalArgumentException ex)
+      {
+        properties.clear ();
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * Fetches a document, conditionally if validators of a previous fetch are
+   * known, and records the validators of the response.
+   *
+   * @param url
+   *        URL of the document
+   * @param validators
+   *        validators of the snapshot, updated from the response
+   * @return the content, <code>null</code> if the document was not modified
+   */
+  private static byte [] fetch (final URL url, final Properties validators) throws IOException
+  {
+    final URLConnection connection = url.openConnection ();
+    connection.setConnectTimeout (CONNECT_TIMEOUT);
+    connection.setReadTimeout (READ_TIMEOUT);
+    connection.setUseCaches (false);
+    if (connection instanceof HttpURLConnection)
+    {
+      if (validators.getProperty (ETAG) != null)
+      {
+        connection.setRequestProperty ("If-None-Match", validators.getProperty (ETAG));
+      }
+      if (validators.getProperty (LAST_MODIFIED) != null)
+      {
+        connection.setRequestProperty ("If-Modified-Since", validators.getProperty (LAST_MODIFIED));
+      }
+      if (((HttpURLConnection) connection).getResponseCode () == HttpURLConnection.HTTP_NOT_MODIFIED)
+      {
+        // closing the empty body keeps the connection alive for the next request
+        connection.getInputStream ().close ();
+        return null;
+      }
+    }
+    for (final String validator : new String [] { ETAG, LAST_MODIFIED })
+    {
+      final String value = connection.getHeaderField (validator);
+      if (value != null)
+      {
+        validators.setProperty (validator, value);
+      }
+      else
+      {
+        validators.remove (validator);
+      }
+    }
+    try (InputStream is = connection.getInputStream ())
+    {
+      final ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+      final byte [] buffer = new byte [8192];
+      int n;
+      while ((n = is.read (buffer)) >= 0)
+      {
+        bos.write (buffer, 0, n);
+      }
+      return bos.toByteArray ();
+    }
+  }
+
+  /**
+   * Replaces a file atomically, so that concurrent builds never read a
+   * partially written snapshot.
+   */
+  private void write (final File file, final byte [] content) throws IOException
+  {
+    final File dir = file.getAbsoluteFile ().getParentFile ();
+    Files.createDirectories (dir.toPath ());
+    final File tmp = File.createTempFile (file.getName (), ".tmp", dir);
+    try
+    {
+      try (OutputStream os = Files.newOutputStream (tmp.toPath ()))
+      {
+        os.write (content);
+      }
+      try
+      {
+        Files.move (tmp.toPath (), file.toPath (), StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (final AtomicMoveNotSupportedException ex)
+      {
+        Files.move (tmp.toPath (), file.toPath (), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    finally
+    {
+      Files.deleteIfExists (tmp.toPath ());
+    }
+  }
+
+  private static String escape (final String s)
+  {
+    return s.replace ("&", "&amp;").replace ("\"", "&quot;").replace ("<", "&lt;");
+  }
+}
@@ -0,0 +1,267 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Records what generated outputs were created from, to decide whether they
+ * are stale.
+ * <p>
+ * Every entry is identified by an id and consists of named components, such
+ * as fingerprints of the input files and of the tool arguments. An entry is
+ * up to date if all components are equal to the recorded ones. The manifest
+ * is a properties file with a line per component, sorted so that it can be
+ * compared between builds, and is replaced atomically when saved.
+ * </p>
+ */
+final class StaleManifest
+{
+  private static final String SEPARATOR = ".";
+
+  private final File m_aFile;
+  private final Properties m_aEntries = new Properties ();
+  private boolean m_bModified;
+
+  /**
+   * Loads the manifest. A missing or unreadable manifest is treated as
+   * empty.
+   *
+   * @param file
+   *        the manifest file
+   */
+  StaleManifest (final File file)
+  {
+    m_aFile = file;
+    if (file.isFile ())
+    {
+      try (InputStream is = new FileInputStream (file))
+      {
+        m_aEntries.load (is);
+      }
+      catch (final IOException | IllegalArgumentException ex)
+      {
+        // everything is stale then
+        m_aEntries.clear ();
+      }
+    }
+  }
+
+  File getFile ()
+  {
+    return m_aFile;
+  }
+
+  /**
+   * @param id
+   *        entry id
+   * @return the components of the entry, empty if there is none
+   */
+  synchronized Map <String, String> get (final String id)
+  {
+    final Map <String, String> components = new LinkedHashMap <> ();
+    final String prefix = id + SEPARATOR;
+    for (final String key : new TreeSet <> (m_aEntries.stringPropertyNames ()))
+    {
+      if (key.startsWith (prefix))
+      {
+        components.put (key.substring (prefix.length ()), m_aEntries.getProperty (key));
+      }
+    }
+    return components;
+  }
+
+  synchronized void put (final String id, final Map <String, String> components)
+  {
+    if (get (id).equals (components))
+    {
+      return;
+    }
+    remove (id);
+    for (final Map.Entry <String, String> component : components.entrySet ())
+    {
+      m_aEntries.setProperty (id + SEPARATOR + component.getKey (), component.getValue ());
+    }
+    m_bModified = true;
+  }
+
+  synchronized void remove (final String id)
+  {
+    final String prefix = id + SEPARATOR;
+    for (final String key : m_aEntries.stringPropertyNames ())
+    {
+      if (key.startsWith (prefix))
+      {
+        m_aEntries.remove (key);
+        m_bModified = true;
+      }
+    }
+  }
+
+  synchronized Set <String> getIds ()
+  {
+    final Set <String> ids = new TreeSet <> ();
+    for (final String key : m_aEntries.stringPropertyNames ())
+    {
+      ids.add (key.substring (0, key.indexOf (SEPARATOR)));
+    }
+    return ids;
+  }
+
+  /**
+   * Writes the manifest if it was modified since it was loaded.
+   *
+   * @throws IOException
+   *         if the manifest cannot be written
+   * @see #store(Properties, File)
+   */
+  synchronized void save () throws IOException
+  {
+    if (m_bModified)
+    {
+      store (m_aEntries, m_aFile);
+      m_bModified = false;
+    }
+  }
+
+  /**
+   * Writes properties sorted and without time stamp to a temporary file
+   * which then replaces the target file, so readers never see a partially
+   * written file.
+   *
+   * @param properties
+   *        the properties
+   * @param file
+   *        the target file
+   * @throws IOException
+   *         if the file cannot be written
+   */
+  static void store (final Properties properties, final File file) throws IOException
+  {
+    final StringWriter sw = new StringWriter ();
+    properties.store (sw, null);
+    final List <String> lines = new ArrayList <> ();
+    for (final String line : sw.toString ().split ("\r?\n"))
+    {
+      // skip the time stamp
+      if (!line.startsWith ("#"))
+      {
+        lines.add (line);
+      }
+    }
+    Collections.sort (lines);
+
+    final File dir = file.getAbsoluteFile ().getParentFile ();
+    Files.createDirectories (dir.toPath ());
+    final File tmp = File.createTempFile (file.getName (), ".tmp", dir);
+    try
+    {
+      try (Writer w = Files.newBufferedWriter (tmp.toPath (), StandardCharsets.ISO_8859_1))
+      {
+        for (final String line : lines)
+        {
+          w.write (line);
+          w.write ('\n');
+        }
+      }
+      try
+      {
+        Files.move (tmp.toPath (),
+                    file.toPath (),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+      }
+      catch (final AtomicMoveNotSupportedException ex)
+      {
+        Files.move (tmp.toPath (), file.toPath (), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    finally
+    {
+      Files.deleteIfExists (tmp.toPath ());
+    }
+  }
+
+  /**
+   * Describes the difference between recorded and current components.
+   *
+   * @param previous
+   *        recorded components, empty if there are none
+   * @param current
+   *        current components
+   * @return <code>null</code> if both are equal, else a description of the
+   *         first differing component
+   */
+  static String getChange (final Map <String, String> previous, final Map <String, String> current)
+  {
+    if (previous.isEmpty ())
+    {
+      return "not generated before";
+    }
+    for (final Map.Entry <String, String> component : current.entrySet ())
+    {
+      if (!component.getValue ().equals (previous.get (component.getKey ())))
+      {
+        return component.getKey () + " changed";
+      }
+    }
+    for (final String component : previous.keySet ())
+    {
+      if (!current.containsKey (component))
+      {
+        return component + " removed";
+      }
+    }
+    return null;
+  }
+}
@@ -41,6 +41,7 @@ import java.util.stream.Collectors;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -140,7 +141,7 @@ public class TestWsImportMojo extends WsImportMojo
   }
 
   @Override
-  public void executeJaxws () throws MojoExecutionException
+  public void executeJaxws () throws MojoExecutionException, MojoFailureException
   {
     // if maven.test.skip is set test compilation is not called, so
     // no need to generate sources/classes
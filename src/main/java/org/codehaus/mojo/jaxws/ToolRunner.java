@@ -0,0 +1,317 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Runs <code>WsimportTool</code> or <code>WsgenTool</code> inside the current
+ * JVM.
+ * <p>
+ * The tool classes are loaded through a child-first classloader built from the
+ * tool classpath. Such classloaders are cached by a fingerprint of the
+ * classpath, so every execution in the same JVM using the same tool
+ * dependencies shares already loaded (and JIT compiled) tool classes.
+ * </p>
+ * <p>
+ * The tools are started through their <code>run(String[])</code> method, so
+ * <code>System.exit</code> is never called. As <code>java.class.path</code> and
+ * the system properties are global, runs are serialized and the original
+ * values are restored afterwards.
+ * </p>
+ * <p>
+ * This class must not depend on Maven APIs as it is also used from within
+ * forked JVMs started through {@link Invoker}.
+ * </p>
+ *
+ * @see Invoker
+ */
+final class ToolRunner
+{
+  /**
+   * Packages which are always loaded from the parent classloader.
+   */
+  private static final String [] SHARED_PACKAGES = { "java.",
+                                                     "javax.annotation.processing.",
+                                                     "javax.lang.model.",
+                                                     "javax.tools.",
+                                                     "javax.xml.parsers.",
+                                                     "javax.xml.stream.",
+                                                     "javax.xml.transform.",
+                                                     "javax.xml.validation.",
+                                                     "javax.xml.xpath.",
+                                                     "javax.xml.namespace.",
+                                                     "javax.xml.datatype.",
+                                                     "org.w3c.dom.",
+                                                     "org.xml.sax.",
+                                                     "sun.",
+                                                     "jdk." };
+
+  private static final ConcurrentMap <String, ClassLoader> LOADERS = new ConcurrentHashMap <> ();
+
+  private static final Object LOCK = new Object ();
+
+  private ToolRunner ()
+  {}
+
+  /**
+   * Runs the tool.
+   *
+   * @param toolClassname
+   *        fully qualified name of the tool class
+   * @param cp
+   *        tool classpath, used to look up the cached classloader
+   * @param extraCp
+   *        additional classpath specific to this invocation, may be
+   *        <code>null</code>
+   * @param args
+   *        tool arguments
+   * @param out
+   *        stream the tool writes its output to
+   * @param sysProps
+   *        system properties to set for the time of the invocation, may be
+   *        <code>null</code>
+   * @return <code>true</code> if the tool succeeded
+   * @throws Exception
+   *         if the tool cannot be loaded or it throws an exception
+   */
+  public static boolean run (final String toolClassname,
+                             final String cp,
+                             final String extraCp,
+                             final String [] args,
+                             final OutputStream out,
+                             final Properties sysProps) throws Exception
+  {
+    final ClassLoader toolLoader = getToolClassLoader (cp);
+    final String fullCp = extraCp != null ? extraCp + File.pathSeparator + cp : cp;
+    synchronized (LOCK)
+    {
+      final URLClassLoader extraLoader = extraCp != null ? new URLClassLoader (toUrls (extraCp), toolLoader) : null;
+      final ClassLoader cl = extraLoader != null ? extraLoader : toolLoader;
+
+      // save original classloader, java.class.path and overridden properties
+      final Thread thread = Thread.currentThread ();
+      final ClassLoader orig = thread.getContextClassLoader ();
+      final String origJcp = System.getProperty ("java.class.path");
+      final Map <String, String> origProps = new HashMap <> ();
+      if (sysProps != null)
+      {
+        for (final String key : sysProps.stringPropertyNames ())
+        {
+          origProps.put (key, System.getProperty (key));
+          System.setProperty (key, sysProps.getProperty (key));
+        }
+      }
+
+      // set to values for tool invocation
+      thread.setContextClassLoader (cl);
+      System.setProperty ("java.class.path", fullCp);
+      try
+      {
+        final Class <?> toolClass = cl.loadClass (toolClassname);
+        final Object tool = toolClass.getConstructor (OutputStream.class).newInstance (out);
+        final Method runMethod = toolClass.getMethod ("run", String [].class);
+        final Boolean result = (Boolean) runMethod.invoke (tool, new Object [] { args });
+        return result.booleanValue ();
+      }
+      catch (final InvocationTargetException ex)
+      {
+        final Throwable cause = ex.getCause ();
+        throw cause instanceof Exception ? (Exception) cause : ex;
+      }
+      finally
+      {
+        out.flush ();
+        thread.setContextClassLoader (orig);
+        System.setProperty ("java.class.path", origJcp);
+        for (final Map.Entry <String, String> e : origProps.entrySet ())
+        {
+          if (e.getValue () == null)
+          {
+            System.clearProperty (e.getKey ());
+          }
+          else
+          {
+            System.setProperty (e.getKey (), e.getValue ());
+          }
+        }
+        if (extraLoader != null)
+        {
+          extraLoader.close ();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the cached classloader for given tool classpath, creating it if
+   * needed.
+   *
+   * @param cp
+   *        tool classpath
+   * @return the classloader
+   */
+  static ClassLoader getToolClassLoader (final String cp)
+  {
+    return LOADERS.computeIfAbsent (fingerprint (cp),
+                                    k -> new ChildFirstClassLoader (toUrls (cp),
+                                                                    ClassLoader.getSystemClassLoader ().getParent ()));
+  }
+
+  /**
+   * Computes fingerprint of given classpath. Besides the entries themselves
+   * also size and time stamp of every entry is taken into account, so a
+   * rebuilt jar does not reuse stale classes.
+   *
+   * @param cp
+   *        classpath
+   * @return hex encoded SHA-256 fingerprint
+   */
+  static String fingerprint (final String cp)
+  {
+    final MessageDigest md = Fingerprint.newDigest ();
+    for (final String s : cp.split (File.pathSeparator))
+    {
+      final File f = new File (s);
+      md.update (f.getAbsolutePath ().getBytes (StandardCharsets.UTF_8));
+      md.update ((":" + f.length () + ":" + f.lastModified () + ";").getBytes (StandardCharsets.UTF_8));
+    }
+    return Fingerprint.toHex (md.digest ());
+  }
+
+  static URL [] toUrls (final String c)
+  {
+    final List <URL> urls = new ArrayList <> ();
+    for (final String s : c.split (File.pathSeparator))
+    {
+      if (s.isEmpty ())
+      {
+        continue;
+      }
+      try
+      {
+        urls.add (new File (s).toURI ().toURL ());
+      }
+      catch (final MalformedURLException ex)
+      {
+        throw new IllegalArgumentException (ex);
+      }
+    }
+    return urls.toArray (new URL [0]);
+  }
+
+  private static boolean isShared (final String name)
+  {
+    for (final String p : SHARED_PACKAGES)
+    {
+      if (name.startsWith (p))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Classloader looking up classes and resources in its own classpath first.
+   * This keeps the tool isolated from the classes of the JVM it runs in, the
+   * same way <code>-Xbootclasspath/p</code> does for endorsed APIs in forked
+   * JVMs.
+   */
+  static final class ChildFirstClassLoader extends URLClassLoader
+  {
+    static
+    {
+      ClassLoader.registerAsParallelCapable ();
+    }
+
+    ChildFirstClassLoader (final URL [] urls, final ClassLoader parent)
+    {
+      super (urls, parent);
+    }
+
+    @Override
+    protected Class <?> loadClass (final String name, final boolean resolve) throws ClassNotFoundException
+    {
+      synchronized (getClassLoadingLock (name))
+      {
+        Class <?> c = findLoadedClass (name);
+        if (c == null && !isShared (name))
+        {
+          try
+          {
+            c = findClass (name);
+          }
+          catch (final ClassNotFoundException ex)
+          {
+            // not available locally, ask parent
+          }
+        }
+        if (c == null)
+        {
+          c = super.loadClass (name, false);
+        }
+        if (resolve)
+        {
+          resolveClass (c);
+        }
+        return c;
+      }
+    }
+
+    @Override
+    public URL getResource (final String name)
+    {
+      final URL u = findResource (name);
+      return u != null ? u : super.getResource (name);
+    }
+  }
+}
@@ -0,0 +1,457 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Finds all classes of a classes directory that wsgen reads for a service
+ * endpoint: the class itself, its super classes and interfaces, the types of
+ * its fields, method parameters, return values and exceptions, including
+ * generic type arguments, and types referenced by annotations such as
+ * <code>@XmlSeeAlso</code> or <code>@WebService(endpointInterface)</code>,
+ * following the references transitively. For every package reached,
+ * <code>package-info</code> and <code>ObjectFactory</code> are included too,
+ * as JAXB reads them.
+ * <p>
+ * Only the declarations of a class file are read, method bodies are skipped,
+ * so that changing the implementation of a type does not change the closure
+ * of the endpoints using it, but changing its bytes does change its
+ * fingerprint. Classes outside of the classes directory are not part of the
+ * closure.
+ * </p>
+ */
+final class TypeClosure
+{
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private TypeClosure ()
+  {}
+
+  /**
+   * @param classesDir
+   *        the classes directory
+   * @param className
+   *        binary name of the service endpoint class
+   * @param cache
+   *        classes read before
+   * @return fingerprints of the class files, keyed by binary class name
+   * @throws IOException
+   *         if the class of the endpoint cannot be read
+   */
+  static Map <String, String> scan (final File classesDir,
+                                    final String className,
+                                    final Cache cache) throws IOException
+  {
+    final Map <String, String> closure = new TreeMap <> ();
+    final Deque <String> queue = new ArrayDeque <> ();
+    final String root = className.replace ('.', '/');
+    queue.add (root);
+    while (!queue.isEmpty ())
+    {
+      final String name = queue.poll ();
+      if (closure.containsKey (name.replace ('/', '.')))
+      {
+        continue;
+      }
+      final ClassInfo info = cache.get (new File (classesDir, name + ".class"));
+      if (info == null)
+      {
+        if (name.equals (root))
+        {
+          throw new IOException ("Cannot read class " + className + " in " + classesDir);
+        }
+        continue;
+      }
+      closure.put (name.replace ('/', '.'), info.m_sFingerprint);
+      queue.addAll (info.m_aTypes);
+      final int idx = name.lastIndexOf ('/');
+      final String pkg = idx < 0 ? "" : name.substring (0, idx + 1);
+      queue.add (pkg + "package-info");
+      queue.add (pkg + "ObjectFactory");
+    }
+    return closure;
+  }
+
+  /**
+   * Describes the first difference between two closures.
+   *
+   * @param previous
+   *        recorded closure
+   * @param current
+   *        current closure
+   * @return the description, <code>null</code> if both are equal
+   */
+  static String getChange (final Map <String, String> previous, final Map <String, String> current)
+  {
+    for (final Map.Entry <String, String> type : current.entrySet ())
+    {
+      final String before = previous.get (type.getKey ());
+      if (before == null)
+      {
+        return type.getKey () + " referenced";
+      }
+      if (!before.equals (type.getValue ()))
+      {
+        return type.getKey () + " changed";
+      }
+    }
+    for (final String type : previous.keySet ())
+    {
+      if (!current.containsKey (type))
+      {
+        return type + " no longer referenced";
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the internal names of all types a class file declares references
+   * to outside of method bodies.
+   *
+   * @param content
+   *        the class file
+   * @return internal names of the referenced types, some of which may be
+   *         type variables or unrelated strings that do not name a class
+   * @throws IOException
+   *         if the content is not a class file
+   */
+  static Set <String> getReferencedTypes (final byte [] content) throws IOException
+  {
+    final DataInputStream in = new DataInputStream (new ByteArrayInputStream (content));
+    if (in.readInt () != MAGIC)
+    {
+      throw new IOException ("Not a class file");
+    }
+    // minor and major version
+    in.skipBytes (4);
+    final int count = in.readUnsignedShort ();
+    final String [] utf8 = new String [count];
+    final int [] classes = new int [count];
+    for (int i = 1; i < count; i++)
+    {
+      final int tag = in.readUnsignedByte ();
+      switch (tag)
+      {
+        case 1:
+          utf8[i] = in.readUTF ();
+          break;
+        case 7:
+          classes[i] = in.readUnsignedShort ();
+          break;
+        case 8:
+        case 16:
+        case 19:
+        case 20:
+          in.skipBytes (2);
+          break;
+        case 15:
+          in.skipBytes (3);
+          break;
+        case 3:
+        case 4:
+        case 9:
+        case 10:
+        case 11:
+        case 12:
+        case 17:
+        case 18:
+          in.skipBytes (4);
+          break;
+        case 5:
+        case 6:
+          // takes two entries
+          in.skipBytes (8);
+          i++;
+          break;
+        default:
+          throw new IOException ("Unknown constant pool tag " + tag);
+      }
+    }
+
+    final ClassFileReader reader = new ClassFileReader (utf8, classes);
+    // access flags, this class
+    in.skipBytes (4);
+    reader.addClass (in.readUnsignedShort ());
+    final int interfaces = in.readUnsignedShort ();
+    for (int i = 0; i < interfaces; i++)
+    {
+      reader.addClass (in.readUnsignedShort ());
+    }
+    // fields, then methods
+    for (int kind = 0; kind < 2; kind++)
+    {
+      final int members = in.readUnsignedShort ();
+      for (int i = 0; i < members; i++)
+      {
+        // access flags, name
+        in.skipBytes (4);
+        reader.addSignature (in.readUnsignedShort ());
+        reader.readAttributes (in);
+      }
+    }
+    reader.readAttributes (in);
+    return reader.m_aTypes;
+  }
+
+  /**
+   * Adds the types of a descriptor or generic signature.
+   */
+  static void addTypes (final String signature, final Set <String> types)
+  {
+    final int len = signature.length ();
+    int i = 0;
+    while (i < len)
+    {
+      final char c = signature.charAt (i);
+      if (c == 'L' || c == 'T' || c == '.')
+      {
+        int j = i + 1;
+        while (j < len && ";<:".indexOf (signature.charAt (j)) < 0)
+        {
+          j++;
+        }
+        // a colon ends the name of a formal type parameter
+        if (c == 'L' && j < len && signature.charAt (j) != ':')
+        {
+          types.add (signature.substring (i + 1, j));
+        }
+        i = j;
+      }
+      else
+      {
+        i++;
+      }
+    }
+  }
+
+  private static final class ClassFileReader
+  {
+    private final String [] m_aUtf8;
+    private final int [] m_aClasses;
+    private final Set <String> m_aTypes = new TreeSet <> ();
+
+    ClassFileReader (final String [] utf8, final int [] classes)
+    {
+      m_aUtf8 = utf8;
+      m_aClasses = classes;
+    }
+
+    void addClass (final int index)
+    {
+      if (index > 0)
+      {
+        final String name = m_aUtf8[m_aClasses[index]];
+        if (name.startsWith ("["))
+        {
+          addTypes (name, m_aTypes);
+        }
+        else
+        {
+          m_aTypes.add (name);
+        }
+      }
+    }
+
+    void addSignature (final int index)
+    {
+      addTypes (m_aUtf8[index], m_aTypes);
+    }
+
+    void readAttributes (final DataInputStream in) throws IOException
+    {
+      final int count = in.readUnsignedShort ();
+      for (int i = 0; i < count; i++)
+      {
+        final String name = m_aUtf8[in.readUnsignedShort ()];
+        final byte [] content = new byte [in.readInt ()];
+        in.readFully (content);
+        final DataInputStream attr = new DataInputStream (new ByteArrayInputStream (content));
+        switch (name)
+        {
+          case "Signature":
+            addSignature (attr.readUnsignedShort ());
+            break;
+          case "Exceptions":
+          {
+            final int exceptions = attr.readUnsignedShort ();
+            for (int j = 0; j < exceptions; j++)
+            {
+              addClass (attr.readUnsignedShort ());
+            }
+            break;
+          }
+          case "RuntimeVisibleAnnotations":
+          case "RuntimeInvisibleAnnotations":
+            readAnnotations (attr);
+            break;
+          case "RuntimeVisibleParameterAnnotations":
+          case "RuntimeInvisibleParameterAnnotations":
+          {
+            final int parameters = attr.readUnsignedByte ();
+            for (int j = 0; j < parameters; j++)
+            {
+              readAnnotations (attr);
+            }
+            break;
+          }
+          default:
+            // not relevant
+            break;
+        }
+      }
+    }
+
+    private void readAnnotations (final DataInputStream in) throws IOException
+    {
+      final int count = in.readUnsignedShort ();
+      for (int i = 0; i < count; i++)
+      {
+        readAnnotation (in);
+      }
+    }
+
+    private void readAnnotation (final DataInputStream in) throws IOException
+    {
+      addSignature (in.readUnsignedShort ());
+      final int pairs = in.readUnsignedShort ();
+      for (int i = 0; i < pairs; i++)
+      {
+        // element name
+        in.skipBytes (2);
+        readElementValue (in);
+      }
+    }
+
+    private void readElementValue (final DataInputStream in) throws IOException
+    {
+      final int tag = in.readUnsignedByte ();
+      switch (tag)
+      {
+        case 's':
+          // class names given as strings, like endpointInterface
+          m_aTypes.add (m_aUtf8[in.readUnsignedShort ()].replace ('.', '/'));
+          break;
+        case 'e':
+          addSignature (in.readUnsignedShort ());
+          in.skipBytes (2);
+          break;
+        case 'c':
+          addSignature (in.readUnsignedShort ());
+          break;
+        case '@':
+          readAnnotation (in);
+          break;
+        case '[':
+        {
+          final int values = in.readUnsignedShort ();
+          for (int i = 0; i < values; i++)
+          {
+            readElementValue (in);
+          }
+          break;
+        }
+        default:
+          // constant
+          in.skipBytes (2);
+          break;
+      }
+    }
+  }
+
+  private static final class ClassInfo
+  {
+    private final String m_sFingerprint;
+    private final Set <String> m_aTypes;
+
+    ClassInfo (final String fingerprint, final Set <String> types)
+    {
+      m_sFingerprint = fingerprint;
+      m_aTypes = types;
+    }
+  }
+
+  /**
+   * Fingerprints and references of class files, each read at most once
+   * during a build.
+   */
+  static final class Cache
+  {
+    private final Map <File, ClassInfo> m_aClasses = new HashMap <> ();
+
+    /**
+     * @return the class or <code>null</code> if there is no such class file
+     */
+    synchronized ClassInfo get (final File file) throws IOException
+    {
+      if (m_aClasses.containsKey (file))
+      {
+        return m_aClasses.get (file);
+      }
+      ClassInfo info = null;
+      if (file.isFile ())
+      {
+        final byte [] content = Files.readAllBytes (file.toPath ());
+        Set <String> types;
+        try
+        {
+          types = getReferencedTypes (content);
+        }
+        catch (final IOException | RuntimeException ex)
+        {
+          // unknown class file format, rely on its fingerprint only
+          types = Collections.emptySet ();
+        }
+        info = new ClassInfo (Fingerprint.of (content), types);
+      }
+      m_aClasses.put (file, info);
+      return info;
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Result of an up-to-date check: every unit that was checked, along with the
+ * reason why it would be generated again and optional numeric details, such
+ * as the estimated cost. The report can be written as JSON for tools and as
+ * lines for the build log.
+ */
+final class VerifyReport
+{
+  /**
+   * Minimum number of checks before a unit which was always stale is marked
+   * in the plan.
+   */
+  static final int ALWAYS_STALE_CHECKS = 3;
+
+  private final String m_sGoal;
+  private final String m_sExecutionId;
+  private final Map <String, String> m_aUnits = new LinkedHashMap <> ();
+  private final Map <String, Map <String, Long>> m_aDetails = new LinkedHashMap <> ();
+
+  /**
+   * @param goal
+   *        the goal whose outputs were checked
+   * @param executionId
+   *        the execution whose outputs were checked
+   */
+  VerifyReport (final String goal, final String executionId)
+  {
+    m_sGoal = goal;
+    m_sExecutionId = executionId;
+  }
+
+  /**
+   * @param unit
+   *        the checked unit, such as a WSDL URL
+   * @param reason
+   *        why the unit is stale, <code>null</code> if it is up to date
+   */
+  void add (final String unit, final String reason)
+  {
+    m_aUnits.put (unit, reason);
+  }
+
+  /**
+   * @param unit
+   *        a unit added before
+   * @param name
+   *        name of the detail
+   * @param value
+   *        value of the detail
+   */
+  void addDetail (final String unit, final String name, final long value)
+  {
+    m_aDetails.computeIfAbsent (unit, k -> new LinkedHashMap <> ()).put (name, Long.valueOf (value));
+  }
+
+  /**
+   * @return why every unit is stale, <code>null</code> for units which are up
+   *         to date, in the order the units were added
+   */
+  Map <String, String> getUnits ()
+  {
+    return m_aUnits;
+  }
+
+  /**
+   * @param unit
+   *        the unit
+   * @param name
+   *        name of the detail
+   * @return value of the detail, -1 if it was not added
+   */
+  long getDetail (final String unit, final String name)
+  {
+    final Long value = m_aDetails.getOrDefault (unit, Collections.emptyMap ()).get (name);
+    return value == null ? -1 : value.longValue ();
+  }
+
+  int getUnitCount ()
+  {
+    return m_aUnits.size ();
+  }
+
+  /**
+   * @return one line per stale unit
+   */
+  List <String> getStaleUnits ()
+  {
+    final List <String> lines = new ArrayList <> ();
+    for (final Map.Entry <String, String> unit : m_aUnits.entrySet ())
+    {
+      if (unit.getValue () != null)
+      {
+        lines.add (unit.getKey () + " (" + unit.getValue () + ")");
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Formats the report as a plan: a line per unit with its state, estimated
+   * duration and stale reason, and a summary of the estimated total and wall
+   * clock durations. Units which were stale on every one of at least
+   * {@link #ALWAYS_STALE_CHECKS} checks are marked.
+   *
+   * @param unitName
+   *        name of the units in the summary, e.g. <code>WSDLs</code>
+   * @param threads
+   *        number of parallel tool invocations
+   * @return the lines
+   */
+  List <String> getPlan (final String unitName, final int threads)
+  {
+    final List <String> lines = new ArrayList <> ();
+    long total = 0;
+    long longest = 0;
+    int stale = 0;
+    int unknown = 0;
+    for (final Map.Entry <String, String> unit : m_aUnits.entrySet ())
+    {
+      final long millis = getDetail (unit.getKey (), "estimatedMillis");
+      final StringBuilder line = new StringBuilder ();
+      line.append (unit.getValue () != null ? "stale " : "ok    ");
+      line.append (String.format ("%8s  ", millis < 0 ? "?" : formatMillis (millis)));
+      line.append (unit.getKey ());
+      if (unit.getValue () != null)
+      {
+        line.append (" (").append (unit.getValue ()).append (')');
+        stale++;
+        if (millis < 0)
+        {
+          unknown++;
+        }
+        else
+        {
+          total += millis;
+          longest = Math.max (longest, millis);
+        }
+      }
+      final long checks = getDetail (unit.getKey (), "checks");
+      if (checks >= ALWAYS_STALE_CHECKS && getDetail (unit.getKey (), "staleChecks") == checks)
+      {
+        line.append (" [stale in all of the last ").append (checks).append (" builds]");
+      }
+      lines.add (line.toString ());
+    }
+    final int parallel = Math.max (1, Math.min (threads, stale));
+    lines.add (stale +
+               " of " +
+               m_aUnits.size () +
+               " " +
+               unitName +
+               " stale, estimated " +
+               formatMillis (total) +
+               (parallel > 1 ? ", about " + formatMillis (Math.max (longest, total / parallel)) + " on " + parallel + " threads"
+                             : "") +
+               (unknown > 0 ? ", " + unknown + " without estimate" : ""));
+    return lines;
+  }
+
+  private static String formatMillis (final long millis)
+  {
+    return millis < 1000 ? millis + " ms" : String.format (Locale.ROOT, "%.1f s", Double.valueOf (millis / 1000.0));
+  }
+
+  String toJson ()
+  {
+    final StringBuilder json = new StringBuilder ();
+    json.append ("{\n");
+    json.append ("  \"goal\": ").append (quote (m_sGoal)).append (",\n");
+    json.append ("  \"execution\": ").append (quote (m_sExecutionId)).append (",\n");
+    json.append ("  \"upToDate\": ").append (getStaleUnits ().isEmpty ()).append (",\n");
+    json.append ("  \"units\": [");
+    String separator = "\n";
+    for (final Map.Entry <String, String> unit : m_aUnits.entrySet ())
+    {
+      json.append (separator);
+      json.append ("    { \"unit\": ").append (quote (unit.getKey ()));
+      json.append (", \"stale\": ").append (unit.getValue () != null);
+      if (unit.getValue () != null)
+      {
+        json.append (", \"reason\": ").append (quote (unit.getValue ()));
+      }
+      for (final Map.Entry <String, Long> detail : m_aDetails.getOrDefault (unit.getKey (), Collections.emptyMap ())
+                                                             .entrySet ())
+      {
+        json.append (", ").append (quote (detail.getKey ())).append (": ").append (detail.getValue ());
+      }
+      json.append (" }");
+      separator = ",\n";
+    }
+    json.append (m_aUnits.isEmpty () ? "]\n" : "\n  ]\n");
+    json.append ("}\n");
+    return json.toString ();
+  }
+
+  /**
+   * @param file
+   *        the file to write the JSON report to
+   * @throws IOException
+   *         if the file cannot be written
+   */
+  void write (final File file) throws IOException
+  {
+    final File dir = file.getAbsoluteFile ().getParentFile ();
+    if (!dir.mkdirs () && !dir.isDirectory ())
+    {
+      throw new IOException ("Cannot create directory: " + dir);
+    }
+    Files.write (file.toPath (), toJson ().getBytes (StandardCharsets.UTF_8));
+  }
+
+  private static String quote (final String s)
+  {
+    final StringBuilder quoted = new StringBuilder (s.length () + 2);
+    quoted.append ('"');
+    for (final char c : s.toCharArray ())
+    {
+      switch (c)
+      {
+        case '"':
+        case '\\':
+          quoted.append ('\\').append (c);
+          break;
+        case '\n':
+          quoted.append ("\\n");
+          break;
+        case '\r':
+          quoted.append ("\\r");
+          break;
+        case '\t':
+          quoted.append ("\\t");
+          break;
+        default:
+          if (c < 0x20)
+          {
+            quoted.append (String.format ("\\u%04x", Integer.valueOf (c)));
+          }
+          else
+          {
+            quoted.append (c);
+          }
+      }
+    }
+    return quoted.append ('"').toString ();
+  }
+}
@@ -0,0 +1,132 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Checks whether the outputs of a <code>wsimport</code> execution are up to
+ * date, without running the tool or modifying any file. Every WSDL that the
+ * next build would process, or whose outputs it would remove, is reported
+ * with the reason, in the build log and in a JSON report.
+ * <p>
+ * The goal compares the current WSDLs, bindings and arguments with the
+ * manifests written by <code>wsimport</code>, so it needs the same
+ * configuration as the verified execution, e.g. by configuring the plugin
+ * instead of the execution.
+ * </p>
+ *
+ * @since 2.6.3
+ */
+@Mojo (name = "verify", defaultPhase = LifecyclePhase.VALIDATE, requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class VerifyWsImportMojo extends MainWsImportMojo
+{
+  /**
+   * Id of the <code>wsimport</code> execution whose outputs are verified.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.verifiedExecutionId", defaultValue = "default")
+  private String verifiedExecutionId;
+
+  /**
+   * The JSON report listing every WSDL and why it is stale.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.verifyReport", defaultValue = "${project.build.directory}/jaxws/verify-wsimport.json")
+  private File verifyReport;
+
+  /**
+   * Fail the build if any WSDL is stale. Otherwise stale WSDLs are only
+   * reported.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.failOnStale", defaultValue = "true")
+  private boolean failOnStale;
+
+  @Override
+  public void executeJaxws () throws MojoExecutionException, MojoFailureException
+  {
+    final long start = System.nanoTime ();
+    final VerifyReport report = new VerifyReport (getToolName (), verifiedExecutionId);
+    try
+    {
+      checkWsdls (report);
+      report.write (verifyReport);
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException (ex.getMessage (), ex);
+    }
+
+    final long millis = (System.nanoTime () - start) / 1000000;
+    if (report.getStaleUnits ().isEmpty ())
+    {
+      getLog ().info ("All " + report.getUnitCount () + " WSDLs are up to date (" + millis + " ms)");
+      return;
+    }
+    for (final String stale : report.getStaleUnits ())
+    {
+      getLog ().warn ("Stale: " + stale);
+    }
+    final String message = report.getStaleUnits ().size () +
+                           " of " +
+                           report.getUnitCount () +
+                           " WSDLs are not up to date, see " +
+                           verifyReport;
+    if (failOnStale)
+    {
+      throw new MojoFailureException (message);
+    }
+    getLog ().warn (message);
+  }
+
+  @Override
+  protected String getExecutionId ()
+  {
+    return verifiedExecutionId;
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Runs <code>wsimport</code> and keeps running it whenever a WSDL, schema,
+ * binding or catalog file changes, until the build is interrupted.
+ * <p>
+ * The WSDL and binding directories and the directories of all local
+ * documents imported by the WSDLs are watched. Once a burst of changes is
+ * over, only the WSDLs affected by the changed files are processed again, by
+ * the same stale check as <code>jaxws:wsimport</code>. Unless another
+ * <code>executionMode</code> is configured, the tool runs in a worker JVM
+ * which stays warm between cycles (<code>executionMode=pool</code>).
+ * </p>
+ * <p>
+ * Like <code>jaxws:verify</code>, the goal needs the same configuration as
+ * the <code>wsimport</code> execution whose outputs it maintains.
+ * </p>
+ *
+ * @since 2.6.3
+ */
+@Mojo (name = "watch", requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class WatchWsImportMojo extends MainWsImportMojo
+{
+  /**
+   * Id of the <code>wsimport</code> execution whose outputs are maintained.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.watchedExecutionId", defaultValue = "default")
+  private String watchedExecutionId;
+
+  /**
+   * Milliseconds without further changes after which a burst of changes is
+   * processed.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.watchDebounce", defaultValue = "300")
+  private long watchDebounce;
+
+  @Override
+  public void executeJaxws () throws MojoExecutionException, MojoFailureException
+  {
+    runCycle ();
+    try (FileWatcher watcher = new FileWatcher ())
+    {
+      while (true)
+      {
+        // imports may have changed in the last cycle
+        final List <File> inputFiles = getInputFiles ();
+        final Set <Path> inputs = new HashSet <> ();
+        for (final File input : inputFiles)
+        {
+          inputs.add (input.toPath ().toAbsolutePath ().normalize ());
+        }
+        final int added = watcher.watch (inputFiles);
+        if (added > 0)
+        {
+          getLog ().debug ("Watching " + added + " more directories");
+        }
+        getLog ().info ("Waiting for changes of WSDL, schema or binding files (Ctrl+C to stop)");
+
+        boolean relevant = false;
+        while (!relevant)
+        {
+          for (final Path changed : watcher.await (watchDebounce))
+          {
+            if (inputs.contains (changed) || inputs.contains (changed.getParent ()))
+            {
+              getLog ().info ("Changed: " + changed);
+              relevant = true;
+            }
+          }
+        }
+        final long start = System.nanoTime ();
+        runCycle ();
+        getLog ().info ("Regenerated in " + (System.nanoTime () - start) / 1000000 + " ms");
+      }
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException ("Cannot watch files: " + ex.getMessage (), ex);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      getLog ().info ("Stopped watching");
+    }
+  }
+
+  /**
+   * Processes the stale WSDLs. Failures are logged, so that the next change
+   * can fix them.
+   */
+  private void runCycle () throws MojoFailureException
+  {
+    try
+    {
+      super.executeJaxws ();
+    }
+    catch (final MojoExecutionException ex)
+    {
+      getLog ().error (ex.getMessage ());
+      getLog ().debug (ex);
+    }
+  }
+
+  @Override
+  protected String getConfiguredExecutionMode ()
+  {
+    final String mode = super.getConfiguredExecutionMode ();
+    return EXECUTION_MODE_FORK.equals (mode) ? EXECUTION_MODE_POOL : mode;
+  }
+
+  @Override
+  protected String getExecutionId ()
+  {
+    return watchedExecutionId;
+  }
+}
@@ -0,0 +1,409 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Long-running JVM which keeps tool classloaders warm across Maven
+ * invocations.
+ * <p>
+ * The daemon listens on a loopback socket only. Its port and a random access
+ * token are published in a registry file, the name of which is derived from
+ * everything determining the daemon's JVM (java executable, JVM options,
+ * plugin classes). The registry also records a fingerprint of the JDK, so a
+ * daemon running on a JDK which has been replaced in place is detected and
+ * stopped. Tool classloaders are cached by {@link ToolRunner} keyed by the
+ * tool classpath, so a single daemon serves any tool version.
+ * </p>
+ * <p>
+ * The daemon stops itself after being idle for the configured time or when a
+ * newer daemon has taken over its registry file.
+ * </p>
+ */
+final class WorkerDaemon
+{
+  private static final String REGISTRY_PREFIX = "daemon-";
+
+  private static final long POLL_MILLIS = 200;
+
+  private static final AtomicInteger ACTIVE = new AtomicInteger ();
+
+  private static final AtomicLong LAST_USED = new AtomicLong (System.currentTimeMillis ());
+
+  private static volatile boolean s_bStopped;
+
+  private WorkerDaemon ()
+  {}
+
+  /**
+   * Runs the job in the daemon identified by given key, starting a new daemon
+   * if there is none or if the existing one is not usable.
+   *
+   * @param dir
+   *        directory with registry and log files
+   * @param key
+   *        daemon identity
+   * @param jdk
+   *        fingerprint of the JDK the daemon must run on
+   * @param launchCommand
+   *        command starting {@link #main(String...)}, without the arguments
+   *        of this class
+   * @param idleTimeout
+   *        idle time in milliseconds after which a newly started daemon stops
+   * @param startTimeout
+   *        time in milliseconds to wait for a newly started daemon
+   * @param job
+   *        job to run
+   * @param output
+   *        consumer of the tool output
+   * @return <code>true</code> if the tool succeeded
+   * @throws IOException
+   *         if the daemon cannot be reached, the job has not been run
+   * @throws WorkerProtocol.JobFailedException
+   *         if the job was sent but did not complete
+   */
+  static boolean run (final File dir,
+                      final String key,
+                      final String jdk,
+                      final List <String> launchCommand,
+                      final long idleTimeout,
+                      final long startTimeout,
+                      final WorkerProtocol.Job job,
+                      final Consumer <String> output) throws IOException, WorkerProtocol.JobFailedException
+  {
+    final File registry = new File (dir, REGISTRY_PREFIX + key + ".properties");
+    for (int attempt = 0; attempt < 2; attempt++)
+    {
+      final Properties reg = loadRegistry (registry);
+      if (reg != null)
+      {
+        if (jdk.equals (reg.getProperty ("jdk")) &&
+            Integer.toString (WorkerProtocol.VERSION).equals (reg.getProperty ("protocol")))
+        {
+          final Socket socket = connect (reg);
+          if (socket != null)
+          {
+            try (Socket s = socket;
+                DataOutputStream out = new DataOutputStream (new BufferedOutputStream (s.getOutputStream ()));
+                DataInputStream in = new DataInputStream (new BufferedInputStream (s.getInputStream ())))
+            {
+              writeHeader (out, reg, WorkerProtocol.CMD_RUN);
+              WorkerProtocol.writeJob (out, job);
+              return WorkerProtocol.readResult (in, output);
+            }
+          }
+        }
+        else
+        {
+          // incompatible daemon, ask it to go away
+          stop (reg);
+        }
+        Files.deleteIfExists (registry.toPath ());
+      }
+      start (dir, registry, jdk, launchCommand, idleTimeout, startTimeout);
+    }
+    throw new IOException ("Cannot connect to jaxws daemon, see " + getLogFile (registry));
+  }
+
+  private static void start (final File dir,
+                             final File registry,
+                             final String jdk,
+                             final List <String> launchCommand,
+                             final long idleTimeout,
+                             final long startTimeout) throws IOException
+  {
+    if (!dir.mkdirs () && !dir.isDirectory ())
+    {
+      throw new IOException ("Cannot create directory: " + dir.getAbsolutePath ());
+    }
+    final File lockFile = new File (dir, registry.getName () + ".lock");
+    try (RandomAccessFile raf = new RandomAccessFile (lockFile, "rw"))
+    {
+      final FileLock lock = raf.getChannel ().lock ();
+      try
+      {
+        // someone else might have started the daemon while we were waiting
+        if (loadRegistry (registry) != null)
+        {
+          return;
+        }
+        final List <String> cmd = new ArrayList <> (launchCommand);
+        cmd.add (registry.getAbsolutePath ());
+        cmd.add (jdk);
+        cmd.add (Long.toString (idleTimeout));
+        final File log = getLogFile (registry);
+        new ProcessBuilder (cmd).directory (dir)
+                                .redirectErrorStream (true)
+                                .redirectOutput (ProcessBuilder.Redirect.appendTo (log))
+                                .start ()
+                                .getOutputStream ()
+                                .close ();
+        final long deadline = System.currentTimeMillis () + startTimeout;
+        while (loadRegistry (registry) == null && System.currentTimeMillis () < deadline)
+        {
+          try
+          {
+            Thread.sleep (POLL_MILLIS);
+          }
+          catch (final InterruptedException ex)
+          {
+            Thread.currentThread ().interrupt ();
+            throw new IOException ("Interrupted while waiting for jaxws daemon", ex);
+          }
+        }
+      }
+      finally
+      {
+        lock.release ();
+      }
+    }
+  }
+
+  private static Socket connect (final Properties reg)
+  {
+    final Socket s = new Socket ();
+    try
+    {
+      s.connect (new InetSocketAddress (InetAddress.getLoopbackAddress (),
+                                        Integer.parseInt (reg.getProperty ("port"))),
+                 (int) POLL_MILLIS * 10);
+      return s;
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      try
+      {
+        s.close ();
+      }
+      catch (final IOException ioe)
+      {
+        // ignore
+      }
+      return null;
+    }
+  }
+
+  private static void stop (final Properties reg)
+  {
+    final Socket socket = connect (reg);
+    if (socket != null)
+    {
+      try (Socket s = socket; DataOutputStream out = new DataOutputStream (s.getOutputStream ()))
+      {
+        writeHeader (out, reg, WorkerProtocol.CMD_STOP);
+        out.flush ();
+      }
+      catch (final IOException ex)
+      {
+        // already gone
+      }
+    }
+  }
+
+  private static void writeHeader (final DataOutputStream out,
+                                   final Properties reg,
+                                   final String command) throws IOException
+  {
+    WorkerProtocol.writeString (out, reg.getProperty ("token"));
+    out.writeInt (WorkerProtocol.VERSION);
+    WorkerProtocol.writeString (out, command);
+  }
+
+  private static Properties loadRegistry (final File registry)
+  {
+    if (!registry.isFile ())
+    {
+      return null;
+    }
+    final Properties p = new Properties ();
+    try (InputStream is = new FileInputStream (registry))
+    {
+      p.load (is);
+    }
+    catch (final IOException ex)
+    {
+      return null;
+    }
+    return p.getProperty ("port") != null && p.getProperty ("token") != null ? p : null;
+  }
+
+  private static File getLogFile (final File registry)
+  {
+    final String name = registry.getName ();
+    return new File (registry.getParentFile (), name.substring (0, name.lastIndexOf ('.')) + ".log");
+  }
+
+  /**
+   * Daemon entry point.
+   *
+   * @param args
+   *        registry file, JDK fingerprint and idle timeout in milliseconds
+   * @throws IOException
+   *         if the daemon cannot be started
+   */
+  public static void main (final String... args) throws IOException
+  {
+    final File registry = new File (args[0]);
+    final String jdk = args[1];
+    final long idleTimeout = Long.parseLong (args[2]);
+
+    final byte [] random = new byte [24];
+    new SecureRandom ().nextBytes (random);
+    final String token = Fingerprint.toHex (random);
+
+    try (ServerSocket server = new ServerSocket (0, 50, InetAddress.getLoopbackAddress ()))
+    {
+      final String port = Integer.toString (server.getLocalPort ());
+      final Properties reg = new Properties ();
+      reg.setProperty ("port", port);
+      reg.setProperty ("token", token);
+      reg.setProperty ("protocol", Integer.toString (WorkerProtocol.VERSION));
+      reg.setProperty ("jdk", jdk);
+      reg.setProperty ("java.version", System.getProperty ("java.version"));
+      reg.setProperty ("java.home", System.getProperty ("java.home"));
+      reg.setProperty ("pid", ManagementFactory.getRuntimeMXBean ().getName ());
+      writeRegistry (registry, reg);
+      System.out.println ("jaxws daemon started on port " + port + ", java " + System.getProperty ("java.version"));
+
+      // a timeout of 0 would wait for connections forever, and never go idle
+      server.setSoTimeout ((int) Math.max (POLL_MILLIS, Math.min (idleTimeout, POLL_MILLIS * 50)));
+      while (!s_bStopped)
+      {
+        try
+        {
+          final Socket s = server.accept ();
+          final Thread t = new Thread ( () -> handle (s, token), "jaxws-daemon-" + s.getPort ());
+          t.start ();
+        }
+        catch (final SocketTimeoutException ex)
+        {
+          final Properties current = loadRegistry (registry);
+          if (current == null || !port.equals (current.getProperty ("port")))
+          {
+            System.out.println ("jaxws daemon replaced, stopping");
+            break;
+          }
+          if (ACTIVE.get () == 0 && System.currentTimeMillis () - LAST_USED.get () > idleTimeout)
+          {
+            System.out.println ("jaxws daemon idle, stopping");
+            break;
+          }
+        }
+      }
+      final Properties current = loadRegistry (registry);
+      if (current != null && port.equals (current.getProperty ("port")))
+      {
+        Files.deleteIfExists (registry.toPath ());
+      }
+    }
+    System.exit (0);
+  }
+
+  private static void handle (final Socket socket, final String token)
+  {
+    ACTIVE.incrementAndGet ();
+    try (Socket s = socket;
+        DataInputStream in = new DataInputStream (new BufferedInputStream (s.getInputStream ()));
+        DataOutputStream out = new DataOutputStream (new BufferedOutputStream (s.getOutputStream ())))
+    {
+      if (!token.equals (WorkerProtocol.readString (in)) || in.readInt () != WorkerProtocol.VERSION)
+      {
+        System.out.println ("rejected connection from " + s.getRemoteSocketAddress ());
+        return;
+      }
+      final String command = WorkerProtocol.readString (in);
+      if (WorkerProtocol.CMD_STOP.equals (command))
+      {
+        System.out.println ("jaxws daemon stop requested");
+        s_bStopped = true;
+      }
+      else
+        if (WorkerProtocol.CMD_RUN.equals (command))
+        {
+          WorkerProtocol.execute (WorkerProtocol.readJob (in), out);
+        }
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      ex.printStackTrace (System.out);
+    }
+    finally
+    {
+      LAST_USED.set (System.currentTimeMillis ());
+      ACTIVE.decrementAndGet ();
+    }
+  }
+
+  private static void writeRegistry (final File registry, final Properties reg) throws IOException
+  {
+    final File tmp = new File (registry.getPath () + "." + System.nanoTime () + ".tmp");
+    try (OutputStream os = new FileOutputStream (tmp))
+    {
+      // the token grants access to the daemon, keep it private
+      tmp.setReadable (false, false);
+      tmp.setReadable (true, true);
+      reg.store (os, null);
+    }
+    Files.move (tmp.toPath (), registry.toPath (), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+}
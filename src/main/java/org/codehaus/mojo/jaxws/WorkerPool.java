@@ -0,0 +1,277 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fixed size pool of pre-started tool JVMs.
+ * <p>
+ * Every worker runs {@link #main(String...)} which reads jobs from its
+ * standard input and writes tool output and results to its standard output
+ * using {@link WorkerProtocol}. Workers process jobs one at a time and stay
+ * alive between jobs, so tool classes loaded and JIT compiled for one job are
+ * reused by the next one. A worker stops when its standard input is closed.
+ * </p>
+ *
+ * @see WorkerPoolRegistry
+ */
+final class WorkerPool implements Closeable
+{
+  private static final long STOP_TIMEOUT = 5_000L;
+
+  private static final long POLL_MILLIS = 200L;
+
+  private final List <String> m_aLaunchCommand;
+  private final LinkedBlockingDeque <Worker> m_aIdle = new LinkedBlockingDeque <> ();
+  private final List <Worker> m_aAll = new ArrayList <> ();
+  private boolean m_bClosed;
+
+  /**
+   * Creates the pool and starts all its workers.
+   *
+   * @param launchCommand
+   *        command starting {@link #main(String...)}
+   * @param size
+   *        number of workers
+   * @throws IOException
+   *         if a worker cannot be started
+   */
+  WorkerPool (final List <String> launchCommand, final int size) throws IOException
+  {
+    m_aLaunchCommand = new ArrayList <> (launchCommand);
+    for (int i = 0; i < size; i++)
+    {
+      m_aIdle.add (startWorker ());
+    }
+  }
+
+  private synchronized Worker startWorker () throws IOException
+  {
+    final Process p = new ProcessBuilder (m_aLaunchCommand).redirectError (ProcessBuilder.Redirect.INHERIT).start ();
+    final Worker w = new Worker (p);
+    m_aAll.add (w);
+    return w;
+  }
+
+  /**
+   * Runs the job on the next available worker.
+   *
+   * @param job
+   *        job to run
+   * @param output
+   *        consumer of the tool output
+   * @return <code>true</code> if the tool succeeded
+   * @throws IOException
+   *         if no worker is available or the job cannot be sent, the job has
+   *         not been run
+   * @throws WorkerProtocol.JobFailedException
+   *         if the job was sent but did not complete
+   */
+  boolean run (final WorkerProtocol.Job job, final Consumer <String> output) throws IOException,
+                                                                                 WorkerProtocol.JobFailedException
+  {
+    final Worker w = take ();
+    boolean healthy = false;
+    try
+    {
+      WorkerProtocol.writeString (w.m_aIn, WorkerProtocol.CMD_RUN);
+      WorkerProtocol.writeJob (w.m_aIn, job);
+      final boolean result = WorkerProtocol.readResult (w.m_aOut, output);
+      healthy = true;
+      return result;
+    }
+    catch (final WorkerProtocol.JobFailedException ex)
+    {
+      // a reported failure leaves the worker ready for the next job
+      healthy = !ex.isConnectionLost ();
+      throw ex;
+    }
+    finally
+    {
+      release (w, healthy);
+    }
+  }
+
+  /**
+   * Waits for an idle worker, giving up as soon as the pool is closed.
+   */
+  private Worker take () throws IOException
+  {
+    try
+    {
+      while (true)
+      {
+        if (isClosed ())
+        {
+          throw new IOException ("Worker pool has been closed");
+        }
+        final Worker w = m_aIdle.pollFirst (POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (w != null)
+        {
+          return w;
+        }
+      }
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new IOException ("Interrupted while waiting for a worker", ex);
+    }
+  }
+
+  private synchronized boolean isClosed ()
+  {
+    return m_bClosed;
+  }
+
+  private synchronized void release (final Worker w, final boolean healthy) throws IOException
+  {
+    if (m_bClosed)
+    {
+      w.stop ();
+      return;
+    }
+    if (healthy && w.m_aProcess.isAlive ())
+    {
+      m_aIdle.addFirst (w);
+    }
+    else
+    {
+      // replace broken worker, so the pool keeps its size
+      w.m_aProcess.destroy ();
+      m_aAll.remove (w);
+      m_aIdle.addLast (startWorker ());
+    }
+  }
+
+  /**
+   * Stops all workers. Workers busy with a job get a few seconds to finish it.
+   */
+  @Override
+  public synchronized void close ()
+  {
+    m_bClosed = true;
+    for (final Worker w : m_aAll)
+    {
+      w.stop ();
+    }
+    m_aAll.clear ();
+    m_aIdle.clear ();
+  }
+
+  /**
+   * Worker entry point.
+   *
+   * @param args
+   *        not used
+   * @throws IOException
+   *         if the communication with the pool fails
+   */
+  public static void main (final String... args) throws IOException
+  {
+    final DataOutputStream out = new DataOutputStream (new BufferedOutputStream (new FileOutputStream (FileDescriptor.out)));
+    // standard output carries the protocol, keep stray prints away from it
+    System.setOut (System.err);
+    final DataInputStream in = new DataInputStream (new BufferedInputStream (System.in));
+    while (true)
+    {
+      final String command;
+      try
+      {
+        command = WorkerProtocol.readString (in);
+      }
+      catch (final EOFException ex)
+      {
+        break;
+      }
+      if (!WorkerProtocol.CMD_RUN.equals (command))
+      {
+        break;
+      }
+      WorkerProtocol.execute (WorkerProtocol.readJob (in), out);
+    }
+    System.exit (0);
+  }
+
+  private static final class Worker
+  {
+    final Process m_aProcess;
+    final DataOutputStream m_aIn;
+    final DataInputStream m_aOut;
+
+    Worker (final Process p)
+    {
+      m_aProcess = p;
+      m_aIn = new DataOutputStream (new BufferedOutputStream (p.getOutputStream ()));
+      m_aOut = new DataInputStream (new BufferedInputStream (p.getInputStream ()));
+    }
+
+    void stop ()
+    {
+      try
+      {
+        m_aIn.close ();
+        if (!m_aProcess.waitFor (STOP_TIMEOUT, TimeUnit.MILLISECONDS))
+        {
+          m_aProcess.destroy ();
+        }
+      }
+      catch (final IOException ex)
+      {
+        m_aProcess.destroy ();
+      }
+      catch (final InterruptedException ex)
+      {
+        m_aProcess.destroy ();
+        Thread.currentThread ().interrupt ();
+      }
+    }
+  }
+}
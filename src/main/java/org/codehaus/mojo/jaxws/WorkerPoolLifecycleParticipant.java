@@ -0,0 +1,65 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Closes the {@link WorkerPool}s of a build as soon as its session ends.
+ * <p>
+ * Maven discovers lifecycle participants of plugins declared with
+ * <code>&lt;extensions&gt;true&lt;/extensions&gt;</code> and calls
+ * {@link #afterSessionEnd(MavenSession)} since Maven 3.2.1. Otherwise the
+ * pools are closed when the next build in the same JVM needs one, and their
+ * workers stop at the latest when Maven exits and closes their standard
+ * input.
+ * </p>
+ */
+public class WorkerPoolLifecycleParticipant extends AbstractMavenLifecycleParticipant
+{
+  /**
+   * Overrides the method added to the base class in Maven 3.2.1, which is
+   * not available in the Maven version compiled against.
+   *
+   * @param session
+   *        the ended session
+   */
+  public void afterSessionEnd (final MavenSession session)
+  {
+    WorkerPoolRegistry.close (session.getRequest ());
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Keeps {@link WorkerPool}s for the duration of a Maven build, so all mojo
+ * executions of all modules in the reactor share the same warm workers.
+ * <p>
+ * Pools are bound to the execution request of the session as sessions are
+ * cloned for every module in parallel builds. They are closed when the
+ * session ends if {@link WorkerPoolLifecycleParticipant} is active, or when
+ * a different build starts in the same JVM. Workers stop by themselves when
+ * the JVM exits, as their standard input is closed.
+ * </p>
+ */
+final class WorkerPoolRegistry
+{
+  private static final Map <MavenExecutionRequest, Map <String, WorkerPool>> POOLS = new WeakHashMap <> ();
+
+  private WorkerPoolRegistry ()
+  {}
+
+  /**
+   * Returns the pool for given launch command in the current build, creating
+   * it if needed.
+   *
+   * @param session
+   *        current session
+   * @param key
+   *        identity of the launch command
+   * @param launchCommand
+   *        command starting {@link WorkerPool#main(String...)}
+   * @param size
+   *        number of workers of a new pool
+   * @return the pool
+   * @throws IOException
+   *         if the workers cannot be started
+   */
+  static synchronized WorkerPool get (final MavenSession session,
+                                      final String key,
+                                      final List <String> launchCommand,
+                                      final int size) throws IOException
+  {
+    final MavenExecutionRequest request = session.getRequest ();
+    Map <String, WorkerPool> pools = POOLS.get (request);
+    if (pools == null)
+    {
+      // pools of previous builds in this JVM are not needed anymore
+      closeAll (request);
+      pools = new HashMap <> ();
+      POOLS.put (request, pools);
+    }
+    WorkerPool pool = pools.get (key);
+    if (pool == null)
+    {
+      pool = new WorkerPool (launchCommand, size);
+      pools.put (key, pool);
+    }
+    return pool;
+  }
+
+  /**
+   * Closes the pools of a build.
+   *
+   * @param request
+   *        execution request of the build
+   */
+  static synchronized void close (final MavenExecutionRequest request)
+  {
+    final Map <String, WorkerPool> pools = POOLS.remove (request);
+    if (pools != null)
+    {
+      pools.values ().forEach (WorkerPool::close);
+    }
+  }
+
+  private static synchronized void closeAll (final MavenExecutionRequest except)
+  {
+    for (final MavenExecutionRequest r : new ArrayList <> (POOLS.keySet ()))
+    {
+      if (r != except)
+      {
+        close (r);
+      }
+    }
+  }
+}
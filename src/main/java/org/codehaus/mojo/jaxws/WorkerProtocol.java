@@ -0,0 +1,271 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * Wire format used to pass tool invocations to long-running worker JVMs and
+ * to report their output and results back.
+ * <p>
+ * A job is sent as the tool class name, tool classpath, extra classpath,
+ * arguments and system properties. The worker answers with any number of
+ * {@link #OUTPUT} frames followed by either a {@link #RESULT} or a
+ * {@link #FAILURE} frame. Strings are written as length prefixed UTF-8 as
+ * classpaths easily exceed the limits of {@link DataOutputStream#writeUTF}.
+ * </p>
+ *
+ * @see WorkerDaemon
+ */
+final class WorkerProtocol
+{
+  static final int VERSION = 1;
+
+  static final String CMD_RUN = "RUN";
+  static final String CMD_STOP = "STOP";
+
+  static final byte OUTPUT = 'O';
+  static final byte RESULT = 'R';
+  static final byte FAILURE = 'F';
+
+  private WorkerProtocol ()
+  {}
+
+  static void writeString (final DataOutputStream out, final String s) throws IOException
+  {
+    final byte [] b = s.getBytes (StandardCharsets.UTF_8);
+    out.writeInt (b.length);
+    out.write (b);
+  }
+
+  static String readString (final DataInputStream in) throws IOException
+  {
+    final byte [] b = new byte [in.readInt ()];
+    in.readFully (b);
+    return new String (b, StandardCharsets.UTF_8);
+  }
+
+  static void writeJob (final DataOutputStream out, final Job job) throws IOException
+  {
+    writeString (out, job.m_sToolClass);
+    writeString (out, job.m_sCP);
+    writeString (out, job.m_sExtraCP != null ? job.m_sExtraCP : "");
+    out.writeInt (job.m_aArgs.length);
+    for (final String arg : job.m_aArgs)
+    {
+      writeString (out, arg);
+    }
+    out.writeInt (job.m_aSysProps.size ());
+    for (final String key : job.m_aSysProps.stringPropertyNames ())
+    {
+      writeString (out, key);
+      writeString (out, job.m_aSysProps.getProperty (key));
+    }
+    out.flush ();
+  }
+
+  static Job readJob (final DataInputStream in) throws IOException
+  {
+    final String toolClass = readString (in);
+    final String cp = readString (in);
+    final String extraCp = readString (in);
+    final String [] args = new String [in.readInt ()];
+    for (int i = 0; i < args.length; i++)
+    {
+      args[i] = readString (in);
+    }
+    final Properties sysProps = new Properties ();
+    final int count = in.readInt ();
+    for (int i = 0; i < count; i++)
+    {
+      sysProps.setProperty (readString (in), readString (in));
+    }
+    return new Job (toolClass, cp, extraCp.isEmpty () ? null : extraCp, args, sysProps);
+  }
+
+  /**
+   * Runs the job through {@link ToolRunner} and writes its output and result
+   * to given stream.
+   *
+   * @param job
+   *        job to run
+   * @param out
+   *        stream to write frames to
+   * @throws IOException
+   *         if writing to the stream fails
+   */
+  static void execute (final Job job, final DataOutputStream out) throws IOException
+  {
+    final Consumer <String> output = line -> {
+      try
+      {
+        synchronized (out)
+        {
+          out.writeByte (OUTPUT);
+          writeString (out, line);
+        }
+      }
+      catch (final IOException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    };
+    final boolean result;
+    try
+    {
+      // closed before the result, so the last partial line precedes it
+      try (LineOutputStream los = new LineOutputStream (output))
+      {
+        result = ToolRunner.run (job.m_sToolClass, job.m_sCP, job.m_sExtraCP, job.m_aArgs, los, job.m_aSysProps);
+      }
+      synchronized (out)
+      {
+        out.writeByte (RESULT);
+        out.writeBoolean (result);
+      }
+    }
+    catch (final Exception ex)
+    {
+      final StringWriter sw = new StringWriter ();
+      ex.printStackTrace (new PrintWriter (sw));
+      synchronized (out)
+      {
+        out.writeByte (FAILURE);
+        writeString (out, sw.toString ());
+      }
+    }
+    out.flush ();
+  }
+
+  /**
+   * Reads frames written by {@link #execute(Job, DataOutputStream)}. The job
+   * has been sent at this point, so the tool may have started even if no
+   * result can be read.
+   *
+   * @param in
+   *        stream to read from
+   * @param output
+   *        consumer of the tool output
+   * @return <code>true</code> if the tool succeeded
+   * @throws JobFailedException
+   *         if the worker reports a failure or reading fails
+   */
+  static boolean readResult (final DataInputStream in, final Consumer <String> output) throws JobFailedException
+  {
+    try
+    {
+      while (true)
+      {
+        final int type = in.read ();
+        switch (type)
+        {
+          case OUTPUT:
+            output.accept (readString (in));
+            break;
+          case RESULT:
+            return in.readBoolean ();
+          case FAILURE:
+            throw new JobFailedException ("Tool invocation failed in worker:\n" + readString (in), null);
+          case -1:
+            throw new EOFException ("Worker closed connection");
+          default:
+            throw new IOException ("Unexpected frame: " + type);
+        }
+      }
+    }
+    catch (final IOException ex)
+    {
+      throw new JobFailedException ("Lost connection to worker while running the tool: " + ex.getMessage (), ex);
+    }
+  }
+
+  /**
+   * Signals that a job reached a worker but did not complete. Unlike an
+   * unreachable worker, this must not be answered by running the job again
+   * elsewhere, as the tool may have written part of its output already.
+   */
+  static final class JobFailedException extends Exception
+  {
+    private static final long serialVersionUID = 1L;
+
+    JobFailedException (final String message, final IOException cause)
+    {
+      super (message, cause);
+    }
+
+    /**
+     * @return <code>true</code> if the connection broke, <code>false</code> if
+     *         the worker reported the failure and is ready for the next job
+     */
+    boolean isConnectionLost ()
+    {
+      return getCause () != null;
+    }
+  }
+
+  /**
+   * Single tool invocation.
+   */
+  static final class Job
+  {
+    public final String m_sToolClass;
+    public final String m_sCP;
+    public final String m_sExtraCP;
+    public final String [] m_aArgs;
+    public final Properties m_aSysProps;
+
+    public Job (final String toolClass,
+                final String cp,
+                final String extraCp,
+                final String [] args,
+                final Properties sysProps)
+    {
+      m_sToolClass = toolClass;
+      m_sCP = cp;
+      m_sExtraCP = extraCp;
+      m_aArgs = args;
+      m_aSysProps = sysProps;
+    }
+  }
+}
@@ -42,21 +42,28 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.settings.Proxy;
 import org.apache.maven.settings.Settings;
+import org.codehaus.plexus.util.FileUtils;
 
 /**
  * @author gnodet (gnodet@apache.org)
@@ -65,7 +72,15 @@ import org.apache.maven.settings.Settings;
 abstract class WsImportMojo extends AbstractJaxwsMojo
 {
 
-  private static final String STALE_FILE_PREFIX = ".";
+  private static final String STALE_MANIFEST_NAME = "wsimport-manifest.properties";
+
+  private static final String DEPENDENCY_INDEX_NAME = "wsimport-dependencies.properties";
+
+  private static final String OUTPUT_MANIFEST_NAME = "wsimport-outputs.properties";
+
+  private static final String HISTORY_NAME = "wsimport-history.properties";
+
+  private static final String SNAPSHOT_CATALOG_NAME = "wsimport-snapshots.xml";
 
   private static final String PATTERN = "[^\\s]+\\.wsdl$";
 
@@ -261,16 +276,97 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
   private List <String> xjcArgs;
 
   /**
-   * The folder containing flag files used to determine if the output is stale.
+   * The folder containing the manifest used to determine if the output is
+   * stale. The manifest records SHA-256 fingerprints of every WSDL, the
+   * bindings, the catalog, the tool arguments and the tool version; a WSDL is
+   * processed again only if one of them changed.
    */
   @Parameter (defaultValue = "${project.build.directory}/jaxws/stale")
   private File staleFile;
 
+  /**
+   * Directory holding local copies of the remote WSDLs and schemas read by
+   * this plugin. Remote documents are read from there when Maven is offline,
+   * when their copy is younger than <code>snapshotFreshness</code> or when
+   * they cannot be fetched. wsimport reads them through a generated catalog,
+   * so it processes the same content without network access.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.snapshotDirectory", defaultValue = "${user.home}/.m2/jaxws-snapshots")
+  private File snapshotDirectory;
+
+  /**
+   * Number of minutes during which the local copy of a remote WSDL or schema
+   * is used without fetching the document again. <code>0</code> fetches
+   * remote documents in every build. An older copy is revalidated with a
+   * conditional request, so an unchanged document is not transferred again
+   * and counts as up to date.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.snapshotFreshness", defaultValue = "0")
+  private int snapshotFreshness;
+
+  /**
+   * Maximum number of concurrent requests to the same host while checking
+   * remote WSDLs and schemas. Remote documents are fetched concurrently
+   * before the stale checks, over kept-alive connections.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.remoteConnectionsPerHost", defaultValue = "4")
+  private int remoteConnectionsPerHost;
+
+  /**
+   * Number of seconds all remote WSDLs and schemas may take to be checked.
+   * Documents not fetched by then are read from their local copy if there is
+   * one. <code>0</code> waits without limit.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.remoteCheckTimeout", defaultValue = "120")
+  private int remoteCheckTimeout;
+
+  /**
+   * Process all stale WSDLs of this execution by a single launch of the tool
+   * instead of launching it once per WSDL. Failures are reported after all
+   * WSDLs have been processed. With more than one of <code>threads</code>,
+   * every thread processes its share of the WSDLs by a single launch, so by
+   * default as many tool JVMs as processors run at the same time.
+   *
+   * @since 2.6.3
+   */
+  @Parameter (property = "jaxws.batch", defaultValue = "true")
+  private boolean batch;
+
   /**
    */
   @Parameter (defaultValue = "${settings}", readonly = true, required = true)
   private Settings settings;
 
+  private StaleManifest staleManifest;
+
+  private Map <String, String> executionFingerprints;
+
+  private XmlCatalog xmlCatalog;
+
+  private DependencyIndex dependencyIndex;
+
+  private OutputManifest outputManifest;
+
+  private BuildHistory history;
+
+  private SnapshotStore snapshots;
+
+  private File snapshotCatalog;
+
+  private List <String> buildCacheInputs;
+
+  private Set <String> affectedWsdls;
+
+  private final Set <String> checkedWsdls = new HashSet <> ();
+
   protected abstract File getImplDestDir ();
 
   /**
@@ -280,19 +376,68 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
   protected abstract List <String> getWSDLFileLookupClasspathElements ();
 
   @Override
-  public void executeJaxws () throws MojoExecutionException
+  public void executeJaxws () throws MojoExecutionException, MojoFailureException
   {
     try
     {
       final URL [] wsdls = getWSDLFiles ();
-      if (wsdls.length == 0 && (wsdlUrls == null || wsdlUrls.isEmpty ()))
+      loadManifests (false);
+      checkedWsdls.clear ();
+      if (isIncremental () && !hasInputDelta ())
       {
-        getLog ().info ("No WSDLs are found to process, Specify at least one of the following parameters: " +
-                        "wsdlFiles, wsdlDirectory or wsdlUrls.");
+        getLog ().debug ("No WSDL, schema, binding or catalog file changed");
+        if (getSourceDestDir ().isDirectory ())
+        {
+          addSourceRoot (getSourceDestDir ().getAbsolutePath ());
+        }
         return;
       }
-      this.processWsdlViaUrls ();
-      this.processLocalWsdlFiles (wsdls);
+      try
+      {
+        final List <WsdlUnit> staleWsdls = new ArrayList <> ();
+        if (wsdls.length == 0 && (wsdlUrls == null || wsdlUrls.isEmpty ()))
+        {
+          getLog ().info ("No WSDLs are found to process, Specify at least one of the following parameters: " +
+                          "wsdlFiles, wsdlDirectory or wsdlUrls.");
+        }
+        else
+        {
+          for (final WsdlUnit unit : getWsdlUnits (wsdls, false))
+          {
+            final String reason = getStaleReason (unit);
+            history.recordCheck (unit.m_sId, reason != null);
+            if (reason != null)
+            {
+              getLog ().info ("Processing: " + unit.m_sUrl + " (" + reason + ")");
+              staleWsdls.add (unit);
+            }
+            else
+            {
+              getLog ().info ("Ignoring: " + unit.m_sUrl);
+              markUpToDate (unit);
+            }
+          }
+        }
+        // WSDLs deleted since the last build leave their generated files behind
+        removeObsoleteWsdls ();
+        snapshotCatalog = writeSnapshotCatalog (staleWsdls);
+        this.processStaleWsdls (staleWsdls);
+      }
+      finally
+      {
+        staleManifest.save ();
+        dependencyIndex.save ();
+        outputManifest.save ();
+        history.save ();
+      }
+      if (!checkedWsdls.isEmpty ())
+      {
+        addSourceRoot (getSourceDestDir ().getAbsolutePath ());
+        if (isJwsGenerated ())
+        {
+          addImplSourceRoot ();
+        }
+      }
     }
     catch (final MojoExecutionException e)
     {
@@ -304,6 +449,166 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
     }
   }
 
+  /**
+   * Determines which WSDLs of this execution the next build would process or
+   * remove, without running the tool or modifying any file. Along with the
+   * reason, the report lists the estimated duration of every WSDL
+   * (<code>estimatedMillis</code>, -1 if unknown) and from the history how
+   * often it was checked (<code>checks</code>), found stale
+   * (<code>staleChecks</code>) and processed (<code>runs</code>).
+   *
+   * @param report
+   *        the report to add the WSDLs to, keyed by URL
+   * @throws MojoExecutionException
+   *         if the WSDLs or the tool cannot be determined
+   * @throws IOException
+   *         if a manifest cannot be read
+   */
+  protected void checkWsdls (final VerifyReport report) throws MojoExecutionException, IOException
+  {
+    final URL [] wsdls = getWSDLFiles ();
+    loadManifests (true);
+    if (wsdls.length > 0 || (wsdlUrls != null && !wsdlUrls.isEmpty ()))
+    {
+      for (final WsdlUnit unit : getWsdlUnits (wsdls, true))
+      {
+        report.add (unit.m_sUrl, getStaleReason (unit));
+        final long size = getInputSize (Collections.singletonList ("\"" + unit.m_sUrl + "\""));
+        report.addDetail (unit.m_sUrl, "estimatedMillis", history.estimate (unit.m_sId, size));
+        report.addDetail (unit.m_sUrl, "checks", history.getChecks (unit.m_sId));
+        report.addDetail (unit.m_sUrl, "staleChecks", history.getStaleCount (unit.m_sId));
+        report.addDetail (unit.m_sUrl, "runs", history.getRuns (unit.m_sId));
+      }
+    }
+    for (final String id : getObsoleteWsdls ())
+    {
+      report.add (staleManifest.get (id).get ("url"), "WSDL removed");
+    }
+  }
+
+  /**
+   * Returns whether a WSDL, schema, binding or catalog file of this execution
+   * changed since the last incremental IDE build.
+   */
+  private boolean hasInputDelta ()
+  {
+    if (dependencyIndex.getDocuments ().isEmpty ())
+    {
+      // not built before
+      return true;
+    }
+    for (final File input : getInputFiles ())
+    {
+      if (hasDelta (input))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the local files and directories this execution reads: the WSDL
+   * and binding directories, in which new WSDLs and bindings appear, the
+   * binding files, the catalog and the local documents imported by the WSDLs
+   * as recorded by the last build.
+   *
+   * @return the files and directories, which may not exist
+   */
+  protected List <File> getInputFiles ()
+  {
+    final List <File> inputs = new ArrayList <> ();
+    inputs.add (wsdlDirectory);
+    inputs.add (bindingDirectory);
+    inputs.add (catalog);
+    inputs.addAll (Arrays.asList (getBindingFiles ()));
+    if (dependencyIndex != null)
+    {
+      for (final String document : dependencyIndex.getDocuments ())
+      {
+        if (document.startsWith ("file:"))
+        {
+          try
+          {
+            inputs.add (new File (URI.create (document)));
+          }
+          catch (final IllegalArgumentException ex)
+          {
+            getLog ().debug ("Not a file: " + document);
+          }
+        }
+      }
+    }
+    inputs.removeIf (Objects::isNull);
+    return inputs;
+  }
+
+  /**
+   * Makes sure the remote documents of the stale WSDLs have snapshots and
+   * writes the catalog mapping them to the snapshots.
+   *
+   * @return the catalog, <code>null</code> if no remote document is used
+   */
+  private File writeSnapshotCatalog (final List <WsdlUnit> staleWsdls) throws IOException
+  {
+    for (final WsdlUnit unit : staleWsdls)
+    {
+      final List <String> documents = new ArrayList <> ();
+      documents.add (unit.m_sUrl);
+      if (unit.m_aImports != null)
+      {
+        documents.addAll (unit.m_aImports.keySet ());
+      }
+      for (final String document : documents)
+      {
+        if (SnapshotStore.isRemote (document))
+        {
+          try
+          {
+            snapshots.read (document);
+          }
+          catch (final IOException ex)
+          {
+            // wsimport reports it
+            getLog ().debug (ex);
+          }
+        }
+      }
+    }
+    for (final Map.Entry <String, String> failure : snapshots.getFailures ().entrySet ())
+    {
+      getLog ().warn ("Cannot fetch " + failure.getKey () + ", using the local copy: " + failure.getValue ());
+    }
+    if (snapshots.getRevalidated () > 0)
+    {
+      getLog ().debug (snapshots.getRevalidated () + " remote document(s) not modified since the last fetch");
+    }
+    if (snapshots.getUsed ().isEmpty ())
+    {
+      return null;
+    }
+    final File file = new File (staleFile, SNAPSHOT_CATALOG_NAME);
+    snapshots.writeCatalog (file);
+    return file;
+  }
+
+  /**
+   * @param readOnly
+   *        <code>true</code> to read remote documents without storing
+   *        snapshots
+   */
+  private void loadManifests (final boolean readOnly)
+  {
+    staleManifest = new StaleManifest (new File (staleFile, STALE_MANIFEST_NAME));
+    snapshots = new SnapshotStore (snapshotDirectory,
+                                   snapshotFreshness * 60_000L,
+                                   session != null && session.isOffline (),
+                                   readOnly);
+    dependencyIndex = new DependencyIndex (new File (staleFile, DEPENDENCY_INDEX_NAME), snapshots);
+    outputManifest = new OutputManifest (new File (staleFile, OUTPUT_MANIFEST_NAME));
+    history = new BuildHistory (new File (staleFile, HISTORY_NAME));
+  }
+
   @Override
   protected String getMain ()
   {
@@ -322,61 +627,230 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
     return xnocompile;
   }
 
-  private void processLocalWsdlFiles (final URL [] wsdls) throws MojoExecutionException, IOException
+  /**
+   * Returns the WSDLs of this execution, external ones first, and prepares
+   * the fingerprints shared by their stale checks. Unless only reporting,
+   * remote documents are fetched ahead.
+   */
+  private List <WsdlUnit> getWsdlUnits (final URL [] wsdls,
+                                        final boolean report) throws MojoExecutionException, IOException
   {
+    executionFingerprints = getExecutionFingerprints ();
+    xmlCatalog = loadCatalog ();
+    if (!report)
+    {
+      prefetchRemoteDocuments ();
+    }
+    affectedWsdls = dependencyIndex.getAffected (this::getRecordedDocuments);
+    getLog ().debug ("WSDLs affected by changed documents: " + affectedWsdls.size ());
+
+    final List <WsdlUnit> units = new ArrayList <> ();
+    for (int i = 0; wsdlUrls != null && i < wsdlUrls.size (); i++)
+    {
+      units.add (new WsdlUnit (wsdlUrls.get (i).toString (), null));
+    }
     for (final URL u : wsdls)
     {
-      final String url = u.toExternalForm ();
-      if (isOutputStale (url))
+      String relPath = null;
+      if ("file".equals (u.getProtocol ()))
+      {
+        relPath = getRelativePath (new File (u.getPath ()));
+      }
+      units.add (new WsdlUnit (u.toExternalForm (), relPath));
+    }
+    return units;
+  }
+
+  /**
+   * Fetches the remote WSDLs and the remote documents recorded in the
+   * dependency index concurrently, so that the stale checks read them
+   * without waiting for the network one after the other.
+   */
+  private void prefetchRemoteDocuments ()
+  {
+    final Set <String> documents = new LinkedHashSet <> ();
+    for (int i = 0; wsdlUrls != null && i < wsdlUrls.size (); i++)
+    {
+      documents.add (wsdlUrls.get (i).toString ());
+    }
+    documents.addAll (dependencyIndex.getDocuments ());
+    final long start = System.currentTimeMillis ();
+    final int pending = snapshots.prefetch (documents, remoteConnectionsPerHost, remoteCheckTimeout * 1000L);
+    if (pending > 0)
+    {
+      getLog ().warn (pending + " remote document(s) not fetched within " + remoteCheckTimeout + " s");
+    }
+    getLog ().debug ("Remote documents fetched in " + (System.currentTimeMillis () - start) + " ms");
+  }
+
+  /**
+   * Runs wsimport for all stale WSDLs. Every WSDL is generated into its own
+   * work directory; once it succeeded, its outputs are copied to the output
+   * directories in input order and recorded in the output manifest. In
+   * <code>batch</code> mode the WSDLs are processed by a single tool launch
+   * per thread and failures are reported together. With more than one
+   * thread, WSDLs are processed in parallel.
+   */
+  private void processStaleWsdls (final List <WsdlUnit> staleWsdls) throws MojoExecutionException, IOException
+  {
+    if (staleWsdls.isEmpty ())
+    {
+      return;
+    }
+    final File workDir = createWorkDirectory ();
+    final BuildCache cache = getBuildCache ();
+    final List <WsdlUnit> units = new ArrayList <> ();
+    final List <List <String>> jobs = new ArrayList <> ();
+    for (int i = 0; i < staleWsdls.size (); i++)
+    {
+      final WsdlUnit unit = staleWsdls.get (i);
+      unit.m_aStagedRoots = getStagedRoots (new File (workDir, Integer.toString (i)));
+      if (cache != null)
       {
-        getLog ().info ("Processing: " + url);
-        String relPath = null;
-        if ("file".equals (u.getProtocol ()))
+        unit.m_sCacheKey = getBuildCacheKey (unit);
+        if (cache.restore (unit.m_sCacheKey, unit.m_aStagedRoots))
         {
-          relPath = getRelativePath (new File (u.getPath ()));
+          getLog ().info ("Restored from build cache: " + unit.m_sUrl);
+          installOutputs (unit);
+          continue;
         }
-        final ArrayList <String> args = getWsImportArgs (relPath);
-        args.add ("\"" + url + "\"");
-        getLog ().info ("jaxws:wsimport args: " + args);
-        exec (args);
-        touchStaleFile (url);
       }
-      else
+      units.add (unit);
+      final ArrayList <String> args = getWsImportArgs (unit.m_sRelPath,
+                                                       unit.m_aStagedRoots.get ("src"),
+                                                       unit.m_aStagedRoots.get ("classes"),
+                                                       true);
+      addSnapshotCatalog (args, snapshotCatalog);
+      args.add ("\"" + unit.m_sUrl + "\"");
+      getLog ().info ("jaxws:wsimport args: " + args);
+      unit.m_aArgs = args;
+      jobs.add (args);
+    }
+
+    final boolean parallel = units.size () > 1 && getThreads () > 1;
+    try
+    {
+      if (units.isEmpty ())
       {
-        getLog ().info ("Ignoring: " + url);
+        return;
+      }
+      if (!parallel && !batch)
+      {
+        for (int i = 0; i < jobs.size (); i++)
+        {
+          exec (jobs.get (i));
+          normalizeOutputs (units.get (i).m_aStagedRoots);
+          storeInBuildCache (units.get (i).m_sCacheKey, units.get (i).m_aStagedRoots);
+          installOutputs (units.get (i));
+        }
+        return;
+      }
+
+      final boolean [] results = parallel ? execParallel (jobs, batch) : execBatch (jobs);
+      final List <String> failed = new ArrayList <> ();
+      for (int i = 0; i < results.length; i++)
+      {
+        final WsdlUnit unit = units.get (i);
+        if (results[i])
+        {
+          normalizeOutputs (unit.m_aStagedRoots);
+          storeInBuildCache (unit.m_sCacheKey, unit.m_aStagedRoots);
+          installOutputs (unit);
+        }
+        else
+        {
+          getLog ().error ("Processing of " + unit.m_sUrl + " failed");
+          failed.add (unit.m_sUrl);
+        }
+      }
+      if (!failed.isEmpty ())
+      {
+        throw new MojoExecutionException ("Invocation of " + getMain () + " failed for " + failed + " - check output");
       }
-      addSourceRoot (getSourceDestDir ().getAbsolutePath ());
+    }
+    finally
+    {
+      FileUtils.deleteDirectory (workDir);
     }
   }
 
   /**
-   * Process external wsdl
+   * Adds the catalog mapping remote documents to their snapshots after the
+   * configured catalog. wsimport consults the catalog given last first and
+   * falls back to the ones before, so snapshots take precedence over entries
+   * of the configured catalog for the same URL.
+   *
+   * @param args
+   *        wsimport arguments, including the configured catalog
+   * @param snapshotCatalog
+   *        the snapshot catalog, <code>null</code> if there is none
    */
-  private void processWsdlViaUrls () throws MojoExecutionException, IOException
+  static void addSnapshotCatalog (final List <String> args, final File snapshotCatalog)
   {
-    for (int i = 0; wsdlUrls != null && i < wsdlUrls.size (); i++)
+    if (snapshotCatalog != null)
     {
-      final String wsdlUrl = wsdlUrls.get (i).toString ();
-      if (isOutputStale (wsdlUrl))
+      args.add ("-catalog");
+      args.add ("'" + snapshotCatalog.getAbsolutePath () + "'");
+    }
+  }
+
+  /**
+   * Computes the key of a WSDL in the build cache from its content, its
+   * imports, the bindings, the catalog and the effective arguments.
+   */
+  private String getBuildCacheKey (final WsdlUnit unit) throws MojoExecutionException, IOException
+  {
+    if (buildCacheInputs == null)
+    {
+      final List <String> inputs = new ArrayList <> ();
+      for (final File binding : getBindingFiles ())
+      {
+        inputs.add (binding.getAbsolutePath ());
+        inputs.add (binding.isFile () ? Fingerprint.of (binding) : "missing");
+      }
+      inputs.add (executionFingerprints.get ("catalog"));
+      inputs.addAll (getWsImportArgs (null, getSourceDestDir (), getDestDir (), false));
+      buildCacheInputs = inputs;
+    }
+    final List <String> inputs = new ArrayList <> (buildCacheInputs);
+    // without wsdlLocation, the generated service refers to the WSDL by its URL
+    inputs.add (wsdlLocation == null ? Fingerprint.of (unit.m_sUrl) : unit.m_sUrl);
+    inputs.add (String.valueOf (unit.m_sRelPath));
+    inputs.add (unit.m_aFingerprints.get ("wsdl"));
+    inputs.add (ImportClosure.format (unit.m_aImports));
+    return getBuildCacheKey (inputs);
+  }
+
+  private void installOutputs (final WsdlUnit unit) throws IOException
+  {
+    final List <File> changed = outputManifest.install (unit.m_sId, unit.m_aStagedRoots, getOutputRoots ());
+    for (final File file : changed)
+    {
+      if (!file.exists ())
       {
-        getLog ().info ("Processing: " + wsdlUrl);
-        final ArrayList <String> args = getWsImportArgs (null);
-        args.add ("\"" + wsdlUrl + "\"");
-        getLog ().info ("jaxws:wsimport args: " + args);
-        exec (args);
-        touchStaleFile (wsdlUrl);
+        getLog ().debug ("Deleted file no longer generated: " + file);
       }
-      addSourceRoot (getSourceDestDir ().getAbsolutePath ());
+    }
+    refresh (changed);
+    markUpToDate (unit);
+    if (unit.m_aArgs != null && getDuration (unit.m_aArgs) >= 0)
+    {
+      history.recordRun (unit.m_sId, getInputSize (unit.m_aArgs), getDuration (unit.m_aArgs));
     }
   }
 
   /**
-   * Returns wsimport's command arguments as a list
+   * Returns wsimport's command arguments as a list. Unless
+   * <code>prepare</code> is set, no directory is created and no source root
+   * is added.
    */
-  private ArrayList <String> getWsImportArgs (final String relativePath) throws MojoExecutionException
+  private ArrayList <String> getWsImportArgs (final String relativePath,
+                                              final File sourceDestDir,
+                                              final File destDir,
+                                              final boolean prepare) throws MojoExecutionException
   {
     final ArrayList <String> args = new ArrayList <> ();
-    args.addAll (getCommonArgs ());
+    args.addAll (getCommonArgs (sourceDestDir, destDir, prepare));
 
     if (httpproxy != null)
     {
@@ -437,7 +911,7 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
       args.add ("-quiet");
     }
 
-    if ((genJWS || implServiceName != null || implPortName != null) && isArgSupported ("-generateJWS"))
+    if (isJwsGenerated ())
     {
       args.add ("-generateJWS");
       if (implServiceName != null && isArgSupported ("-implServiceName"))
@@ -451,15 +925,15 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
         args.add (implPortName);
       }
       final File implDestDir = getImplDestDir ();
-      if (!implDestDir.mkdirs () && !implDestDir.exists ())
-      {
-        getLog ().warn ("Cannot create directory: " + implDestDir.getAbsolutePath ());
-      }
       args.add ("-implDestDir");
       args.add ("'" + implDestDir.getAbsolutePath () + "'");
-      if (!project.getCompileSourceRoots ().contains (implDestDir.getAbsolutePath ()))
+      if (prepare)
       {
-        project.addCompileSourceRoot (implDestDir.getAbsolutePath ());
+        if (!implDestDir.mkdirs () && !implDestDir.exists ())
+        {
+          getLog ().warn ("Cannot create directory: " + implDestDir.getAbsolutePath ());
+        }
+        addImplSourceRoot ();
       }
     }
 
@@ -530,6 +1004,20 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
     return args;
   }
 
+  private boolean isJwsGenerated () throws MojoExecutionException
+  {
+    return (genJWS || implServiceName != null || implPortName != null) && isArgSupported ("-generateJWS");
+  }
+
+  private void addImplSourceRoot ()
+  {
+    final String implDestDir = getImplDestDir ().getAbsolutePath ();
+    if (!project.getCompileSourceRoots ().contains (implDestDir))
+    {
+      project.addCompileSourceRoot (implDestDir);
+    }
+  }
+
   /**
    * Returns a file array of xml files to translate to object models.
    *
@@ -702,6 +1190,42 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
    */
   private static final FileFilter WSDL_FILE_FILTER = f -> f.getName ().endsWith (".wsdl");
 
+  private static final FileFilter SCHEMA_FILE_FILTER = f -> f.getName ().endsWith (".xsd");
+
+  /**
+   * Returns the size of a local WSDL processed by the given arguments plus the
+   * size of the schemas next to it, which are usually imported by the WSDL.
+   */
+  @Override
+  protected long getInputSize (final List <String> arguments)
+  {
+    final String wsdl = arguments.get (arguments.size () - 1).replace ("\"", "");
+    if (!wsdl.startsWith ("file:"))
+    {
+      return 0;
+    }
+    final File wsdlFile;
+    try
+    {
+      wsdlFile = new File (URI.create (wsdl));
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      return 0;
+    }
+    long size = wsdlFile.length ();
+    final File [] schemas = wsdlFile.getParentFile () != null ? wsdlFile.getParentFile ().listFiles (SCHEMA_FILE_FILTER)
+                                                              : null;
+    if (schemas != null)
+    {
+      for (final File schema : schemas)
+      {
+        size += schema.length ();
+      }
+    }
+    return size;
+  }
+
   private String getRelativePath (final File f)
   {
     if (wsdlFiles != null)
@@ -732,105 +1256,170 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
   }
 
   /**
-   * Returns true if given WSDL resource or any binding file is newer than the
-   * <code>staleFlag</code> file.
-   *
-   * @return True if wsdl files have been modified since the last build.
+   * Returns fingerprints of everything affecting the outputs of all WSDLs of
+   * this execution: bindings, catalog, tool arguments and tool version.
    */
-  private boolean isOutputStale (final String resource)
+  private Map <String, String> getExecutionFingerprints () throws MojoExecutionException, IOException
   {
-    final File [] sourceBindings = getBindingFiles ();
-    final File stFile = new File (staleFile, STALE_FILE_PREFIX + getHash (resource));
-    boolean stale = !stFile.exists ();
-    if (!stale)
+    final Map <String, String> fingerprints = new LinkedHashMap <> ();
+    final List <String> bindings = new ArrayList <> ();
+    for (final File binding : getBindingFiles ())
     {
-      getLog ().debug ("Stale flag file exists, comparing to wsdls and bindings.");
-      final long staleMod = stFile.lastModified ();
+      bindings.add (binding.getAbsolutePath ());
+      bindings.add (binding.isFile () ? Fingerprint.of (binding) : "missing");
+    }
+    fingerprints.put ("bindings", Fingerprint.of (bindings));
+    fingerprints.put ("catalog",
+                      catalog == null ? "none" : catalog.isFile () ? Fingerprint.of (catalog) : "missing");
+    fingerprints.put ("args", Fingerprint.of (getWsImportArgs (null, getSourceDestDir (), getDestDir (), false)));
+    fingerprints.put ("tool", getToolVersion ());
+    return fingerprints;
+  }
 
+  /**
+   * Compares the current fingerprints of a WSDL and of all documents it
+   * imports with the ones recorded in the stale manifest. The imports are
+   * scanned again only if the WSDL changed or the dependency index reports a
+   * changed import.
+   *
+   * @return why the WSDL must be processed, <code>null</code> if its outputs
+   *         are up to date
+   */
+  private String getStaleReason (final WsdlUnit unit)
+  {
+    unit.m_sId = Fingerprint.of (Arrays.asList (getExecutionKey (), unit.m_sUrl));
+    checkedWsdls.add (unit.m_sId);
+    final Map <String, String> previous = staleManifest.get (unit.m_sId);
+    final Map <String, String> previousImports = ImportClosure.parse (previous.get ("imports"));
+    final Map <String, String> fingerprints = new LinkedHashMap <> ();
+    fingerprints.put ("url", unit.m_sUrl);
+    fingerprints.put ("execution", getExecutionKey ());
+    final ImportClosure.Cache cache = dependencyIndex.getCache ();
+    final String wsdlFingerprint = cache.getFingerprint (unit.m_sUrl);
+    if (ImportClosure.UNAVAILABLE.equals (wsdlFingerprint))
+    {
+      return "cannot read WSDL";
+    }
+    Map <String, String> imports = previousImports;
+    if (!wsdlFingerprint.equals (previous.get ("wsdl")) ||
+        !previous.containsKey ("imports") ||
+        !dependencyIndex.contains (unit.m_sId) ||
+        affectedWsdls.contains (unit.m_sId))
+    {
       try
       {
-        // resource can be URL
-        final URL sourceWsdl = new URL (resource);
-        if (sourceWsdl.openConnection ().getLastModified () > staleMod)
-        {
-          getLog ().debug (resource + " is newer than the stale flag file.");
-          stale = true;
-        }
+        final URL wsdl = new URL (unit.m_sUrl);
+        imports = ImportClosure.scan (wsdl, xmlCatalog, cache);
+        imports.remove (unit.m_sUrl);
+        imports.remove (wsdl.toExternalForm ());
       }
-      catch (final MalformedURLException mue)
-      {
-        // or a file
-        final File sourceWsdl = new File (resource);
-        if (sourceWsdl.lastModified () > staleMod)
-        {
-          getLog ().debug (resource + " is newer than the stale flag file.");
-          stale = true;
-        }
-      }
-      catch (final IOException ioe)
-      {
-        // possible error while opening connection
-        getLog ().error (ioe);
-      }
-
-      for (final File sourceBinding : sourceBindings)
+      catch (final IOException ex)
       {
-        if (sourceBinding.lastModified () > staleMod)
-        {
-          getLog ().debug (sourceBinding.getName () + " is newer than the stale flag file.");
-          stale = true;
-        }
+        getLog ().debug (ex);
+        return "cannot read WSDL: " + ex.getMessage ();
       }
     }
-    return stale;
+    fingerprints.put ("wsdl", wsdlFingerprint);
+    fingerprints.put ("imports", ImportClosure.format (imports));
+    unit.m_aImports = imports;
+    fingerprints.put ("relativePath", String.valueOf (unit.m_sRelPath));
+    fingerprints.putAll (executionFingerprints);
+    unit.m_aFingerprints = fingerprints;
+    final String change = StaleManifest.getChange (previous, fingerprints);
+    if ("imports changed".equals (change))
+    {
+      final String importChange = ImportClosure.getChange (previousImports, unit.m_aImports);
+      return importChange != null ? importChange : change;
+    }
+    return change != null ? change : outputManifest.getDamage (unit.m_sId, getOutputRoots ());
   }
 
-  private void touchStaleFile (final String resource) throws IOException
+  private XmlCatalog loadCatalog ()
   {
-    final File stFile = new File (staleFile, STALE_FILE_PREFIX + getHash (resource));
-    if (!stFile.exists ())
+    if (catalog == null || !catalog.isFile ())
     {
-      final File staleDir = stFile.getParentFile ();
-      if (!staleDir.mkdirs () && !staleDir.exists ())
-      {
-        getLog ().warn ("Cannot create directory: " + staleDir.getAbsolutePath ());
-      }
-      if (!stFile.createNewFile ())
-      {
-        getLog ().warn ("Cannot create file: " + stFile.getAbsolutePath ());
-      }
-      getLog ().debug ("Stale flag file created.[" + stFile.getAbsolutePath () + "]");
+      return null;
     }
-    else
+    try
     {
-      if (!stFile.setLastModified (System.currentTimeMillis ()))
-      {
-        getLog ().warn ("Stale file has not been updated!");
-      }
+      return XmlCatalog.load (catalog.toURI ().toURL ());
+    }
+    catch (final IOException ex)
+    {
+      getLog ().warn ("Cannot read catalog, imports are resolved without it: " + ex.getMessage ());
+      return null;
     }
   }
 
-  private String getHash (final String s)
+  /**
+   * Identifies this execution and its output directory, shared by the
+   * manifest entries of all its WSDLs.
+   */
+  private String getExecutionKey ()
   {
-    try
+    return Fingerprint.of (Arrays.asList (getExecutionId (), getSourceDestDir ().getAbsolutePath ()));
+  }
+
+  /**
+   * Returns the fingerprints of the WSDL and of its imports recorded in the
+   * stale manifest, keyed by URL.
+   */
+  private Map <String, String> getRecordedDocuments (final String id)
+  {
+    final Map <String, String> entry = staleManifest.get (id);
+    final Map <String, String> documents = ImportClosure.parse (entry.get ("imports"));
+    if (entry.containsKey ("url"))
+    {
+      documents.put (entry.get ("url"), entry.get ("wsdl"));
+    }
+    return documents;
+  }
+
+  /**
+   * Returns the manifest entries of WSDLs of this execution which were
+   * deleted or renamed since the last build.
+   */
+  private List <String> getObsoleteWsdls ()
+  {
+    final String executionKey = getExecutionKey ();
+    final List <String> obsolete = new ArrayList <> ();
+    for (final String id : staleManifest.getIds ())
     {
-      final MessageDigest md = MessageDigest.getInstance ("SHA");
-      final byte [] aBytes = md.digest (s.getBytes (StandardCharsets.UTF_8));
-      final StringBuilder aSB = new StringBuilder (aBytes.length * 2);
-      for (final byte b : aBytes)
+      if (executionKey.equals (staleManifest.get (id).get ("execution")) && !checkedWsdls.contains (id))
       {
-        aSB.append (Character.forDigit ((b & 0xf0) >> 4, 16)).append (Character.forDigit (b & 0x0f, 16));
+        obsolete.add (id);
       }
-      return aSB.toString ();
     }
-    catch (final NoSuchAlgorithmException ex)
+    return obsolete;
+  }
+
+  /**
+   * Forgets WSDLs of this execution which were deleted or renamed since the
+   * last build and deletes the files generated from them, except those
+   * other WSDLs generated too.
+   */
+  private void removeObsoleteWsdls () throws IOException
+  {
+    for (final String id : getObsoleteWsdls ())
     {
-      getLog ().debug (ex.getMessage (), ex);
+      final List <File> deleted = outputManifest.remove (id, getOutputRoots ());
+      getLog ().info ("Removed " + deleted.size () + " files generated from " + staleManifest.get (id).get ("url"));
+      refresh (deleted);
+      staleManifest.remove (id);
+      dependencyIndex.remove (id);
+      history.remove (id);
     }
+  }
 
-    // fallback to some default
-    getLog ().warn ("Could not compute hash for " + s + ". Using fallback method.");
-    return s.substring (s.lastIndexOf ('/')).replaceAll ("\\.", "-");
+  private void markUpToDate (final WsdlUnit unit)
+  {
+    if (unit.m_aFingerprints != null)
+    {
+      staleManifest.put (unit.m_sId, unit.m_aFingerprints);
+      final List <String> documents = new ArrayList <> (unit.m_aImports.keySet ());
+      documents.add (unit.m_sUrl);
+      dependencyIndex.put (unit.m_sId, documents);
+    }
   }
 
   /**
@@ -879,4 +1468,27 @@ abstract class WsImportMojo extends AbstractJaxwsMojo
     }
     return retVal;
   }
+
+  /**
+   * WSDL to be processed along with its path relative to the WSDL directory,
+   * its entry in the stale manifest and the work directories wsimport writes
+   * to.
+   */
+  private static final class WsdlUnit
+  {
+    public final String m_sUrl;
+    public final String m_sRelPath;
+    public String m_sId;
+    public Map <String, String> m_aFingerprints;
+    public Map <String, String> m_aImports;
+    public Map <String, File> m_aStagedRoots;
+    public List <String> m_aArgs;
+    public String m_sCacheKey;
+
+    public WsdlUnit (final String url, final String relPath)
+    {
+      m_sUrl = url;
+      m_sRelPath = relPath;
+    }
+  }
 }
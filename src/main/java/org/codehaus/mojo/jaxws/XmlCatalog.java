@@ -0,0 +1,242 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Minimal OASIS XML catalog resolver, as used by the <code>catalog</code>
+ * option of wsimport to map locations of imported documents.
+ * <p>
+ * Supports <code>system</code>, <code>uri</code>,
+ * <code>rewriteSystem</code>, <code>rewriteURI</code>,
+ * <code>systemSuffix</code>, <code>uriSuffix</code>,
+ * <code>nextCatalog</code>, <code>group</code> and <code>xml:base</code>.
+ * Public identifiers and delegation are not relevant for schema and WSDL
+ * locations and are ignored.
+ * </p>
+ */
+final class XmlCatalog
+{
+  private static final String XML_NS = "http://www.w3.org/XML/1998/namespace";
+
+  private final Map <String, String> m_aExact = new HashMap <> ();
+  private final Map <String, String> m_aPrefixes = new LinkedHashMap <> ();
+  private final Map <String, String> m_aSuffixes = new LinkedHashMap <> ();
+  private final List <XmlCatalog> m_aNext = new ArrayList <> ();
+
+  private XmlCatalog ()
+  {}
+
+  /**
+   * @param catalog
+   *        the catalog file
+   * @return the parsed catalog, including catalogs referenced through
+   *         <code>nextCatalog</code>
+   * @throws IOException
+   *         if the catalog cannot be read or parsed
+   */
+  static XmlCatalog load (final URL catalog) throws IOException
+  {
+    return load (catalog, new HashSet <> ());
+  }
+
+  private static XmlCatalog load (final URL catalog, final Set <String> loaded) throws IOException
+  {
+    final XmlCatalog result = new XmlCatalog ();
+    if (!loaded.add (catalog.toExternalForm ()))
+    {
+      return result;
+    }
+    final Deque <URL> bases = new ArrayDeque <> ();
+    bases.push (catalog);
+    try (InputStream is = catalog.openStream ())
+    {
+      final XMLStreamReader r = newInputFactory ().createXMLStreamReader (is);
+      try
+      {
+        while (r.hasNext ())
+        {
+          final int event = r.next ();
+          if (event == XMLStreamConstants.END_ELEMENT)
+          {
+            bases.pop ();
+          }
+          else
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+              final String xmlBase = r.getAttributeValue (XML_NS, "base");
+              final URL base = xmlBase != null ? new URL (bases.peek (), xmlBase) : bases.peek ();
+              bases.push (base);
+              switch (r.getLocalName ())
+              {
+                case "system":
+                  result.m_aExact.put (r.getAttributeValue (null, "systemId"), resolve (base, r, "uri"));
+                  break;
+                case "uri":
+                  result.m_aExact.put (r.getAttributeValue (null, "name"), resolve (base, r, "uri"));
+                  break;
+                case "rewriteSystem":
+                  result.m_aPrefixes.put (r.getAttributeValue (null, "systemIdStartString"),
+                                          resolve (base, r, "rewritePrefix"));
+                  break;
+                case "rewriteURI":
+                  result.m_aPrefixes.put (r.getAttributeValue (null, "uriStartString"),
+                                          resolve (base, r, "rewritePrefix"));
+                  break;
+                case "systemSuffix":
+                  result.m_aSuffixes.put (r.getAttributeValue (null, "systemIdSuffix"), resolve (base, r, "uri"));
+                  break;
+                case "uriSuffix":
+                  result.m_aSuffixes.put (r.getAttributeValue (null, "uriSuffix"), resolve (base, r, "uri"));
+                  break;
+                case "nextCatalog":
+                  final String next = resolve (base, r, "catalog");
+                  if (next != null)
+                  {
+                    try
+                    {
+                      result.m_aNext.add (load (new URL (next), loaded));
+                    }
+                    catch (final IOException ex)
+                    {
+                      // missing next catalogs are skipped by resolvers too
+                    }
+                  }
+                  break;
+                default:
+                  break;
+              }
+            }
+        }
+      }
+      finally
+      {
+        r.close ();
+      }
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Cannot parse catalog " + catalog + ": " + ex.getMessage (), ex);
+    }
+    result.m_aExact.remove (null);
+    result.m_aPrefixes.remove (null);
+    result.m_aSuffixes.remove (null);
+    return result;
+  }
+
+  private static String resolve (final URL base, final XMLStreamReader r, final String attribute) throws MalformedURLException
+  {
+    final String value = r.getAttributeValue (null, attribute);
+    return value == null ? null : new URL (base, value).toExternalForm ();
+  }
+
+  /**
+   * @param id
+   *        system identifier or URI of a document
+   * @return the mapped location or <code>null</code> if the catalog has no
+   *         mapping
+   */
+  String resolve (final String id)
+  {
+    final String exact = m_aExact.get (id);
+    if (exact != null)
+    {
+      return exact;
+    }
+    String match = null;
+    for (final Map.Entry <String, String> prefix : m_aPrefixes.entrySet ())
+    {
+      if (id.startsWith (prefix.getKey ()) && (match == null || prefix.getKey ().length () > match.length ()))
+      {
+        match = prefix.getKey ();
+      }
+    }
+    if (match != null)
+    {
+      return m_aPrefixes.get (match) + id.substring (match.length ());
+    }
+    for (final Map.Entry <String, String> suffix : m_aSuffixes.entrySet ())
+    {
+      if (id.endsWith (suffix.getKey ()) && (match == null || suffix.getKey ().length () > match.length ()))
+      {
+        match = suffix.getKey ();
+      }
+    }
+    if (match != null)
+    {
+      return m_aSuffixes.get (match);
+    }
+    for (final XmlCatalog next : m_aNext)
+    {
+      final String resolved = next.resolve (id);
+      if (resolved != null)
+      {
+        return resolved;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return a StAX factory not resolving DTDs or external entities
+   */
+  static XMLInputFactory newInputFactory ()
+  {
+    final XMLInputFactory factory = XMLInputFactory.newInstance ();
+    factory.setProperty (XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty (XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty (XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    return factory;
+  }
+}
@@ -0,0 +1,234 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AbstractJaxwsMojoTest
+{
+  /**
+   * Runs jobs in process, failing those whose first argument is
+   * <code>fail</code>, and records warnings.
+   */
+  private static final class TestMojo extends AbstractJaxwsMojo
+  {
+    private final List <String> m_aWarnings = new ArrayList <> ();
+
+    TestMojo ()
+    {
+      setLog (new SystemStreamLog ()
+      {
+        @Override
+        public void warn (final CharSequence content)
+        {
+          m_aWarnings.add (content.toString ());
+        }
+      });
+    }
+
+    @Override
+    protected void exec (final List <String> arguments) throws MojoExecutionException
+    {
+      if ("fail".equals (arguments.get (0)))
+      {
+        throw new MojoExecutionException ("Invocation of " + getMain () + " failed for " + arguments.get (1));
+      }
+    }
+
+    @Override
+    protected String getExecutionMode ()
+    {
+      return EXECUTION_MODE_INPROCESS;
+    }
+
+    @Override
+    protected String getMain ()
+    {
+      return InvokerTest.Tool.class.getName ();
+    }
+
+    @Override
+    protected String getToolName ()
+    {
+      return "test";
+    }
+
+    @Override
+    protected File getDestDir ()
+    {
+      return null;
+    }
+
+    @Override
+    protected File getSourceDestDir ()
+    {
+      return null;
+    }
+
+    @Override
+    protected File getDefaultSrcOut ()
+    {
+      return null;
+    }
+
+    @Override
+    protected boolean isXnocompile ()
+    {
+      return false;
+    }
+
+    @Override
+    public void executeJaxws ()
+    {}
+  }
+
+  @Test
+  public void testResolvePaths ()
+  {
+    final File basedir = new File ("project").getAbsoluteFile ();
+    final String absolute = new File (basedir, "target/generated").getAbsolutePath ();
+    final String [] args = AbstractJaxwsMojo.resolvePaths (new String [] { "-catalog",
+                                                                           "src/jax-ws-catalog.xml",
+                                                                           "-b",
+                                                                           "file:/bindings/b.xml",
+                                                                           "-d",
+                                                                           absolute,
+                                                                           "-cp",
+                                                                           "lib/a.jar" +
+                                                                                  File.pathSeparator +
+                                                                                  absolute,
+                                                                           "-p",
+                                                                           "com.example",
+                                                                           "-wsdllocation",
+                                                                           "wsdl/service.wsdl",
+                                                                           "src/wsdl/service.wsdl",
+                                                                           "http://localhost/service?wsdl",
+                                                                           "com.example.Service" },
+                                                           basedir);
+    Assert.assertEquals (args[1], new File (basedir, "src/jax-ws-catalog.xml").getPath ());
+    Assert.assertEquals (args[3], "file:/bindings/b.xml");
+    Assert.assertEquals (args[5], absolute);
+    Assert.assertEquals (args[7], new File (basedir, "lib/a.jar").getPath () + File.pathSeparator + absolute);
+    Assert.assertEquals (args[9], "com.example");
+    Assert.assertEquals (args[11], "wsdl/service.wsdl");
+    Assert.assertEquals (args[12], new File (basedir, "src/wsdl/service.wsdl").getPath ());
+    Assert.assertEquals (args[13], "http://localhost/service?wsdl");
+    Assert.assertEquals (args[14], "com.example.Service");
+  }
+
+  @Test
+  public void testBatchResults () throws Exception
+  {
+    final List <List <String>> jobs = Arrays.asList (Arrays.asList ("ok", "'a.wsdl'"),
+                                                     Arrays.asList ("fail", "b.wsdl"),
+                                                     Arrays.asList ("ok"));
+    final File jobsFile = AbstractJaxwsMojo.createJobsFile (jobs);
+    final File resultFile = new File (jobsFile.getPath () + Invoker.RESULT_FILE_SUFFIX);
+    try
+    {
+      Assert.assertFalse (Invoker._runJobs (InvokerTest.Tool.class, jobsFile));
+      final TestMojo mojo = new TestMojo ();
+      final boolean [] results = mojo.readBatchResults (jobs, resultFile, 1);
+      Assert.assertEquals (results, new boolean [] { true, false, true });
+      Assert.assertTrue (mojo.getDuration (jobs.get (0)) >= 0);
+      Assert.assertEquals (mojo.getDuration (jobs.get (1)), -1);
+      Assert.assertFalse (resultFile.exists ());
+      Assert.assertTrue (mojo.m_aWarnings.isEmpty (), mojo.m_aWarnings.toString ());
+    }
+    finally
+    {
+      jobsFile.delete ();
+      resultFile.delete ();
+    }
+  }
+
+  @Test
+  public void testBatchWithoutResults () throws IOException
+  {
+    final File resultFile = new File ("target/missing" + Invoker.RESULT_FILE_SUFFIX);
+    final TestMojo mojo = new TestMojo ();
+    Assert.assertEquals (mojo.readBatchResults (Arrays.asList (Collections.singletonList ("ok")), resultFile, 137),
+                         new boolean [] { false });
+    Assert.assertEquals (mojo.m_aWarnings.size (), 1);
+    Assert.assertTrue (mojo.m_aWarnings.get (0).contains ("exit code 137"), mojo.m_aWarnings.get (0));
+  }
+
+  @Test
+  public void testPartialResults () throws IOException
+  {
+    final File resultFile = File.createTempFile ("jobs", Invoker.RESULT_FILE_SUFFIX);
+    final Properties status = new Properties ();
+    status.setProperty ("job.0.status", "0");
+    status.setProperty ("job.0.millis", "42");
+    try (OutputStream os = new FileOutputStream (resultFile))
+    {
+      status.store (os, null);
+    }
+    // the JVM died during the second job
+    final List <List <String>> jobs = Arrays.asList (Collections.singletonList ("ok"), Collections.singletonList ("ok"));
+    final TestMojo mojo = new TestMojo ();
+    Assert.assertEquals (mojo.readBatchResults (jobs, resultFile, 1), new boolean [] { true, false });
+    Assert.assertEquals (mojo.getDuration (jobs.get (0)), 42);
+  }
+
+  @Test
+  public void testBatchFailureLogged () throws MojoExecutionException
+  {
+    // in process, the jobs of a batch run one by one
+    final TestMojo mojo = new TestMojo ();
+    final boolean [] results = mojo.execBatch (Arrays.asList (Arrays.asList ("ok", "a.wsdl"),
+                                                              Arrays.asList ("fail", "b.wsdl"),
+                                                              Arrays.asList ("ok", "c.wsdl")));
+    Assert.assertEquals (results, new boolean [] { true, false, true });
+    Assert.assertEquals (mojo.m_aWarnings,
+                         Collections.singletonList ("Invocation of " +
+                                                    InvokerTest.Tool.class.getName () +
+                                                    " failed for b.wsdl"));
+  }
+}
@@ -0,0 +1,227 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BuildCacheTest
+{
+  private File dir;
+
+  @BeforeMethod
+  public void createDirectory () throws IOException
+  {
+    dir = Files.createTempDirectory ("cache").toFile ();
+  }
+
+  @AfterMethod
+  public void deleteDirectory () throws IOException
+  {
+    Files.walk (dir.toPath ()).map (Path::toFile).sorted ( (a, b) -> b.compareTo (a)).forEach (File::delete);
+  }
+
+  @Test
+  public void testStoreAndRestore () throws IOException
+  {
+    final BuildCache cache = new BuildCache (new File (dir, "cache"), 1024 * 1024);
+    final String key = Fingerprint.of ("a");
+    Assert.assertFalse (cache.restore (key, roots ("restored1")));
+
+    final Map <String, File> staged = roots ("staged");
+    write (new File (staged.get ("src"), "com/acme/Foo.java"), "class Foo {}");
+    cache.store (key, staged);
+
+    final Map <String, File> restored = roots ("restored2");
+    Assert.assertTrue (cache.restore (key, restored));
+    Assert.assertEquals (Files.readAllLines (new File (restored.get ("src"), "com/acme/Foo.java").toPath ()),
+                         Arrays.asList ("class Foo {}"));
+    Assert.assertEquals (cache.getHits (), 1);
+    Assert.assertEquals (cache.getMisses (), 1);
+
+    final Properties totals = cache.saveStatistics ();
+    Assert.assertEquals (totals.getProperty ("hits"), "1");
+    Assert.assertEquals (totals.getProperty ("stores"), "1");
+    Assert.assertEquals (new BuildCache (new File (dir, "cache"), 1024).saveStatistics ().getProperty ("misses"), "1");
+  }
+
+  @Test
+  public void testEviction () throws IOException
+  {
+    final BuildCache cache = new BuildCache (new File (dir, "cache"), 2500);
+    final Random random = new Random (42);
+    final String [] keys = { Fingerprint.of ("a"), Fingerprint.of ("b"), Fingerprint.of ("c") };
+    for (int i = 0; i < keys.length; i++)
+    {
+      final Map <String, File> staged = roots ("staged" + i);
+      // incompressible, so that every entry takes about 1 KB
+      final byte [] content = new byte [1000];
+      random.nextBytes (content);
+      new File (staged.get ("src"), "com/acme").mkdirs ();
+      Files.write (new File (staged.get ("src"), "com/acme/Foo.class").toPath (), content);
+      cache.store (keys[i], staged);
+      Assert.assertTrue (cache.getEntry (keys[i]).setLastModified (1_000_000_000_000L + i * 1000L));
+      if (i == 1)
+      {
+        // the first entry becomes the most recently used one
+        Assert.assertTrue (cache.restore (keys[0], roots ("restored")));
+      }
+    }
+    Assert.assertTrue (cache.getEntry (keys[0]).isFile ());
+    Assert.assertFalse (cache.getEntry (keys[1]).exists ());
+    Assert.assertTrue (cache.getEntry (keys[2]).isFile ());
+    Assert.assertEquals (cache.saveStatistics ().getProperty ("evictions"), "1");
+  }
+
+  @Test
+  public void testRemoteCache () throws IOException
+  {
+    final Map <String, byte []> entries = new ConcurrentHashMap <> ();
+    final HttpServer server = HttpServer.create (new InetSocketAddress (InetAddress.getLoopbackAddress (), 0), 0);
+    server.createContext ("/cache/", exchange -> {
+      final String path = exchange.getRequestURI ().getPath ();
+      if ("PUT".equals (exchange.getRequestMethod ()))
+      {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+        final byte [] buffer = new byte [8192];
+        int n;
+        while ((n = exchange.getRequestBody ().read (buffer)) >= 0)
+        {
+          bos.write (buffer, 0, n);
+        }
+        entries.put (path, bos.toByteArray ());
+        exchange.sendResponseHeaders (201, -1);
+      }
+      else
+        if (entries.containsKey (path))
+        {
+          exchange.sendResponseHeaders (200, entries.get (path).length);
+          exchange.getResponseBody ().write (entries.get (path));
+        }
+        else
+        {
+          exchange.sendResponseHeaders (404, -1);
+        }
+      exchange.close ();
+    });
+    server.start ();
+    try
+    {
+      final String url = "http://127.0.0.1:" + server.getAddress ().getPort () + "/cache";
+      final String key = Fingerprint.of ("a");
+      final Map <String, File> staged = roots ("staged");
+      write (new File (staged.get ("src"), "com/acme/Foo.java"), "class Foo {}");
+
+      final BuildCache readOnly = new BuildCache (new File (dir, "ro"), 1024 * 1024, remote (url, true));
+      readOnly.store (key, staged);
+      Assert.assertTrue (entries.isEmpty ());
+
+      final BuildCache writer = new BuildCache (new File (dir, "writer"), 1024 * 1024, remote (url, false));
+      writer.store (key, staged);
+      Assert.assertEquals (writer.getUploads (), 1);
+      Assert.assertTrue (entries.containsKey ("/cache/" + key + ".zip"));
+
+      final BuildCache reader = new BuildCache (new File (dir, "reader"), 1024 * 1024, remote (url, true));
+      Assert.assertFalse (reader.restore (Fingerprint.of ("b"), roots ("missing")));
+      final Map <String, File> restored = roots ("restored");
+      Assert.assertTrue (reader.restore (key, restored));
+      Assert.assertEquals (reader.getRemoteHits (), 1);
+      Assert.assertTrue (reader.getEntry (key).isFile ());
+      Assert.assertTrue (new File (restored.get ("src"), "com/acme/Foo.java").isFile ());
+      Assert.assertNull (reader.getRemoteFailure ());
+    }
+    finally
+    {
+      server.stop (0);
+    }
+  }
+
+  @Test
+  public void testUnreachableRemoteCache () throws IOException
+  {
+    final int port;
+    try (ServerSocket socket = new ServerSocket (0, 1, InetAddress.getLoopbackAddress ()))
+    {
+      port = socket.getLocalPort ();
+    }
+    final BuildCache cache = new BuildCache (new File (dir, "cache"),
+                                             1024 * 1024,
+                                             remote ("http://127.0.0.1:" + port + "/cache", false));
+    Assert.assertFalse (cache.restore (Fingerprint.of ("a"), roots ("restored")));
+    Assert.assertNotNull (cache.getRemoteFailure ());
+
+    final Map <String, File> staged = roots ("staged");
+    write (new File (staged.get ("src"), "Foo.java"), "class Foo {}");
+    cache.store (Fingerprint.of ("a"), staged);
+    Assert.assertTrue (cache.restore (Fingerprint.of ("a"), roots ("restored")));
+  }
+
+  private static RemoteBuildCache remote (final String url, final boolean readOnly)
+  {
+    return new RemoteBuildCache (url, 2000, 2000, readOnly);
+  }
+
+  private Map <String, File> roots (final String name)
+  {
+    return Collections.singletonMap ("src", new File (dir, name));
+  }
+
+  private static void write (final File file, final String content) throws IOException
+  {
+    file.getParentFile ().mkdirs ();
+    Files.write (file.toPath (), Arrays.asList (content), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BuildHistoryTest
+{
+  @Test
+  public void testMovingAverage ()
+  {
+    final BuildHistory history = new BuildHistory (new File ("missing.properties"));
+    Assert.assertEquals (history.getMillis ("a"), -1);
+    history.recordRun ("a", 100, 1000);
+    Assert.assertEquals (history.getMillis ("a"), 1000);
+    history.recordRun ("a", 100, 2000);
+    Assert.assertEquals (history.getMillis ("a"), 1300);
+    Assert.assertEquals (history.getRuns ("a"), 2);
+    Assert.assertEquals (history.estimate ("a", 0), 1300);
+  }
+
+  @Test
+  public void testEstimate ()
+  {
+    final BuildHistory history = new BuildHistory (new File ("missing.properties"));
+    Assert.assertEquals (history.estimate ("new", 100), -1);
+    history.recordRun ("a", 1000, 1000);
+    history.recordRun ("b", 3000, 2000);
+    history.recordRun ("c", 0, 600);
+    // 3000 ms for 4000 bytes
+    Assert.assertEquals (history.estimate ("new", 2000), 1500);
+    // average without a size
+    Assert.assertEquals (history.estimate ("new", 0), 1200);
+  }
+
+  @Test
+  public void testChecks () throws IOException
+  {
+    final File file = File.createTempFile ("history", ".properties");
+    try
+    {
+      final BuildHistory history = new BuildHistory (file);
+      history.recordCheck ("a", true);
+      history.recordCheck ("a", false);
+      history.recordCheck ("b", true);
+      history.recordRun ("b", 10, 20);
+      history.save ();
+
+      final BuildHistory loaded = new BuildHistory (file);
+      Assert.assertEquals (loaded.getChecks ("a"), 2);
+      Assert.assertEquals (loaded.getStaleCount ("a"), 1);
+      Assert.assertEquals (loaded.getMillis ("b"), 20);
+      loaded.remove ("b");
+      Assert.assertEquals (loaded.getChecks ("b"), 0);
+      Assert.assertEquals (loaded.getMillis ("b"), -1);
+    }
+    finally
+    {
+      file.delete ();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ClassDataSharingArchiveTest
+{
+  private static final List <String> OPTIONS = Collections.singletonList ("-Xss1m");
+
+  private File dir;
+
+  private String java;
+
+  private String javaHome;
+
+  @BeforeMethod
+  public void createDirectory () throws IOException
+  {
+    dir = Files.createTempDirectory ("cds").toFile ();
+    javaHome = System.getProperty ("java.home");
+    java = new File (javaHome, "bin/java").getPath ();
+  }
+
+  @AfterMethod
+  public void deleteDirectory () throws IOException
+  {
+    Files.walk (dir.toPath ()).map (Path::toFile).sorted ( (a, b) -> b.compareTo (a)).forEach (File::delete);
+  }
+
+  @Test
+  public void testKey () throws IOException
+  {
+    final File a = write ("a.jar", "a");
+    final File b = write ("b.jar", "b");
+    final String key = ClassDataSharingArchive.getKey (java, javaHome, OPTIONS, a.getPath ());
+    Assert.assertEquals (ClassDataSharingArchive.getKey (java, javaHome, OPTIONS, a.getPath ()), key);
+
+    // another classpath, other JVM options or a rebuilt jar need another archive
+    final String cp = a.getPath () + File.pathSeparator + b.getPath ();
+    Assert.assertNotEquals (ClassDataSharingArchive.getKey (java, javaHome, OPTIONS, cp), key);
+    Assert.assertNotEquals (ClassDataSharingArchive.getKey (java, javaHome, Collections.emptyList (), a.getPath ()),
+                            key);
+    Assert.assertTrue (a.setLastModified (a.lastModified () - 10_000));
+    Assert.assertNotEquals (ClassDataSharingArchive.getKey (java, javaHome, OPTIONS, a.getPath ()), key);
+    final String touched = ClassDataSharingArchive.getKey (java, javaHome, OPTIONS, a.getPath ());
+    // same time stamp, other size
+    final long lastModified = a.lastModified ();
+    write ("a.jar", "rebuilt");
+    Assert.assertTrue (a.setLastModified (lastModified));
+    Assert.assertNotEquals (ClassDataSharingArchive.getKey (java, javaHome, OPTIONS, a.getPath ()), touched);
+  }
+
+  @Test
+  public void testCreateAndUse () throws IOException
+  {
+    final ClassDataSharingArchive created = new ClassDataSharingArchive (new File (dir, "archives"), "key");
+    Assert.assertTrue (created.isDumping ());
+    Assert.assertTrue (created.getJvmOption ().startsWith ("-XX:ArchiveClassesAtExit="), created.getJvmOption ());
+    // the JVM dumps its classes when it exits
+    final File dump = new File (created.getJvmOption ().substring ("-XX:ArchiveClassesAtExit=".length ()));
+    Files.write (dump.toPath (), new byte [] { 1, 2, 3 });
+    created.publish ();
+    Assert.assertEquals (created.getArchive ().length (), 3);
+    Assert.assertFalse (dump.exists ());
+
+    final ClassDataSharingArchive used = new ClassDataSharingArchive (new File (dir, "archives"), "key");
+    Assert.assertFalse (used.isDumping ());
+    Assert.assertEquals (used.getJvmOption (), "-XX:SharedArchiveFile=" + created.getArchive ().getAbsolutePath ());
+    used.publish ();
+    Assert.assertEquals (new File (dir, "archives").list (), new String [] { "key.jsa" });
+  }
+
+  @Test
+  public void testNothingDumped () throws IOException
+  {
+    // a JVM which cannot dump leaves the temporary file empty
+    final ClassDataSharingArchive cds = new ClassDataSharingArchive (dir, "key");
+    cds.publish ();
+    Assert.assertFalse (cds.getArchive ().exists ());
+    Assert.assertEquals (dir.list ().length, 0);
+    Assert.assertTrue (new ClassDataSharingArchive (dir, "key").isDumping ());
+  }
+
+  @Test
+  public void testConcurrentDumps () throws IOException
+  {
+    final List <ClassDataSharingArchive> archives = Arrays.asList (new ClassDataSharingArchive (dir, "key"),
+                                                                   new ClassDataSharingArchive (dir, "key"));
+    for (final ClassDataSharingArchive cds : archives)
+    {
+      final String option = cds.getJvmOption ();
+      Files.write (new File (option.substring (option.indexOf ('=') + 1)).toPath (), new byte [] { 1 });
+    }
+    for (final ClassDataSharingArchive cds : archives)
+    {
+      cds.publish ();
+    }
+    Assert.assertEquals (dir.list (), new String [] { "key.jsa" });
+  }
+
+  private File write (final String name, final String content) throws IOException
+  {
+    final File file = new File (dir, name);
+    Files.write (file.toPath (), content.getBytes ("UTF-8"));
+    return file;
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FileWatcherTest
+{
+  @Test
+  public void testAwait () throws IOException, InterruptedException
+  {
+    final Path dir = Files.createTempDirectory ("watch").toRealPath ();
+    final File wsdl = new File (dir.toFile (), "a.wsdl");
+    final File schema = new File (dir.toFile (), "a.xsd");
+    Files.write (wsdl.toPath (), "<definitions/>".getBytes (StandardCharsets.UTF_8));
+    try (FileWatcher watcher = new FileWatcher ())
+    {
+      Assert.assertEquals (watcher.watch (Arrays.asList (wsdl, dir.toFile (), new File (dir.toFile (), "missing/b.xsd"))),
+                           1);
+      Assert.assertEquals (watcher.watch (Collections.singleton (schema)), 0);
+
+      final Thread writer = new Thread ( () -> {
+        try
+        {
+          Thread.sleep (100);
+          Files.write (schema.toPath (), "<schema/>".getBytes (StandardCharsets.UTF_8));
+          Files.write (wsdl.toPath (), "<definitions></definitions>".getBytes (StandardCharsets.UTF_8));
+        }
+        catch (final IOException | InterruptedException ex)
+        {
+          throw new IllegalStateException (ex);
+        }
+      });
+      writer.start ();
+      final Set <Path> changed = watcher.await (500);
+      writer.join ();
+      Assert.assertTrue (changed.contains (schema.toPath ()), changed.toString ());
+      Assert.assertTrue (changed.contains (wsdl.toPath ()), changed.toString ());
+    }
+    finally
+    {
+      schema.delete ();
+      wsdl.delete ();
+      dir.toFile ().delete ();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ForkProfileTest
+{
+  private static final List <String> NONE = Collections.emptyList ();
+
+  @Test
+  public void testResolve ()
+  {
+    Assert.assertEquals (ForkProfile.resolve (ForkProfile.AUTO, 0, 1), ForkProfile.FAST_STARTUP);
+    Assert.assertEquals (ForkProfile.resolve (ForkProfile.AUTO, ForkProfile.THROUGHPUT_INPUT_SIZE - 1, 1),
+                         ForkProfile.FAST_STARTUP);
+    Assert.assertEquals (ForkProfile.resolve (ForkProfile.AUTO, ForkProfile.THROUGHPUT_INPUT_SIZE, 1),
+                         ForkProfile.THROUGHPUT);
+    Assert.assertEquals (ForkProfile.resolve (ForkProfile.AUTO, 0, ForkProfile.THROUGHPUT_JOBS - 1),
+                         ForkProfile.FAST_STARTUP);
+    Assert.assertEquals (ForkProfile.resolve (ForkProfile.AUTO, 0, ForkProfile.THROUGHPUT_JOBS),
+                         ForkProfile.THROUGHPUT);
+    // configured profiles are kept regardless of the workload
+    Assert.assertEquals (ForkProfile.resolve (ForkProfile.FAST_STARTUP, Long.MAX_VALUE, 100), ForkProfile.FAST_STARTUP);
+    Assert.assertEquals (ForkProfile.resolve (ForkProfile.THROUGHPUT, 0, 1), ForkProfile.THROUGHPUT);
+  }
+
+  @Test
+  public void testMaxHeap ()
+  {
+    Assert.assertEquals (ForkProfile.getMaxHeapMegabytes (0), 256);
+    Assert.assertEquals (ForkProfile.getMaxHeapMegabytes (1), 320);
+    Assert.assertEquals (ForkProfile.getMaxHeapMegabytes (1024 * 1024), 320);
+    Assert.assertEquals (ForkProfile.getMaxHeapMegabytes (10L * 1024 * 1024), 896);
+    Assert.assertEquals (ForkProfile.getMaxHeapMegabytes (1024L * 1024 * 1024), 4096);
+  }
+
+  @Test
+  public void testFastStartup ()
+  {
+    Assert.assertEquals (ForkProfile.getJvmOptions (ForkProfile.FAST_STARTUP, 17, 0, NONE),
+                         Arrays.asList ("-Xms128m",
+                                        "-Xmx256m",
+                                        "-XX:+UseSerialGC",
+                                        "-XX:TieredStopAtLevel=1",
+                                        "-XX:-UsePerfData"));
+  }
+
+  @Test
+  public void testThroughput ()
+  {
+    Assert.assertEquals (ForkProfile.getJvmOptions (ForkProfile.THROUGHPUT, 17, 10L * 1024 * 1024, NONE),
+                         Arrays.asList ("-Xms896m", "-Xmx896m", "-XX:+UseParallelGC"));
+    // the default collector of Java 8
+    Assert.assertEquals (ForkProfile.getJvmOptions (ForkProfile.THROUGHPUT, 8, 0, NONE),
+                         Arrays.asList ("-Xms256m", "-Xmx256m"));
+  }
+
+  @Test
+  public void testUnknownJavaVersion ()
+  {
+    Assert.assertEquals (ForkProfile.getJvmOptions (ForkProfile.FAST_STARTUP, 0, 0, NONE),
+                         Arrays.asList ("-Xms128m", "-Xmx256m"));
+  }
+
+  @Test
+  public void testUserOptions ()
+  {
+    // every group configured by the user is left out entirely
+    Assert.assertEquals (ForkProfile.getJvmOptions (ForkProfile.FAST_STARTUP,
+                                                    17,
+                                                    0,
+                                                    Arrays.asList ("-Xmx1g", "-XX:+UseG1GC", "-Xint", "-XX:+UsePerfData")),
+                         NONE);
+    Assert.assertEquals (ForkProfile.getJvmOptions (ForkProfile.FAST_STARTUP,
+                                                    17,
+                                                    0,
+                                                    Arrays.asList ("-XX:MaxRAMPercentage=50", "-XX:TieredStopAtLevel=4")),
+                         Arrays.asList ("-XX:+UseSerialGC", "-XX:-UsePerfData"));
+    Assert.assertEquals (ForkProfile.getJvmOptions (ForkProfile.THROUGHPUT,
+                                                    17,
+                                                    0,
+                                                    Arrays.asList ("-XX:InitialHeapSize=64m", "-XX:-UseParallelGC")),
+                         NONE);
+  }
+}
@@ -0,0 +1,191 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ImportClosureTest
+{
+  private static final String [] DOCUMENTS = { "root.wsdl",
+                                               "other.wsdl",
+                                               "types.xsd",
+                                               "common/base.xsd",
+                                               "types-base.xsd",
+                                               "ext.xsd",
+                                               "catalog.xml" };
+
+  private File dir;
+
+  @BeforeMethod
+  public void copyDocuments () throws IOException, URISyntaxException
+  {
+    dir = Files.createTempDirectory ("imports").toFile ();
+    for (final String doc : DOCUMENTS)
+    {
+      final File target = new File (dir, doc);
+      target.getParentFile ().mkdirs ();
+      Files.copy (new File (ImportClosureTest.class.getResource ("imports/" + doc).toURI ()).toPath (),
+                  target.toPath ());
+    }
+  }
+
+  @AfterMethod
+  public void deleteDocuments () throws IOException
+  {
+    Files.walk (dir.toPath ()).map (Path::toFile).sorted ( (a, b) -> b.compareTo (a)).forEach (File::delete);
+  }
+
+  @Test
+  public void testScan () throws IOException
+  {
+    final Map <String, String> closure = ImportClosure.scan (url ("root.wsdl"), null);
+    Assert.assertEquals (closure.keySet ().iterator ().next (), url ("root.wsdl").toExternalForm ());
+    Assert.assertTrue (closure.containsKey (url ("other.wsdl").toExternalForm ()));
+    Assert.assertTrue (closure.containsKey (url ("types.xsd").toExternalForm ()));
+    Assert.assertTrue (closure.containsKey (url ("common/base.xsd").toExternalForm ()));
+    Assert.assertTrue (closure.containsKey (url ("types-base.xsd").toExternalForm ()));
+    Assert.assertEquals (closure.get (url ("missing.xsd").toExternalForm ()), ImportClosure.UNAVAILABLE);
+    Assert.assertEquals (closure.get ("http://schemas.example.invalid/ext.xsd"), ImportClosure.UNAVAILABLE);
+    Assert.assertEquals (closure.get (url ("types.xsd").toExternalForm ()),
+                         Fingerprint.of (new File (dir, "types.xsd")));
+  }
+
+  @Test
+  public void testScanWithCatalog () throws IOException
+  {
+    final XmlCatalog catalog = XmlCatalog.load (url ("catalog.xml"));
+    Assert.assertEquals (catalog.resolve ("http://schemas.example.invalid/ext.xsd"), url ("ext.xsd").toExternalForm ());
+    Assert.assertNull (catalog.resolve ("http://example.com/other/ext.xsd"));
+
+    final Map <String, String> closure = ImportClosure.scan (url ("root.wsdl"), catalog);
+    Assert.assertEquals (closure.get (url ("ext.xsd").toExternalForm ()), Fingerprint.of (new File (dir, "ext.xsd")));
+    Assert.assertFalse (closure.containsKey ("http://schemas.example.invalid/ext.xsd"));
+  }
+
+  @Test
+  public void testScanJar () throws IOException
+  {
+    final File jar = new File (dir, "wsdl.jar");
+    try (JarOutputStream jos = new JarOutputStream (new FileOutputStream (jar)))
+    {
+      for (final String doc : DOCUMENTS)
+      {
+        jos.putNextEntry (new ZipEntry ("META-INF/wsdl/" + doc));
+        jos.write (Files.readAllBytes (new File (dir, doc).toPath ()));
+        jos.closeEntry ();
+      }
+    }
+    final String base = "jar:" + jar.toURI () + "!/META-INF/wsdl/";
+    final Map <String, String> closure = ImportClosure.scan (new URL (base + "root.wsdl"), null);
+    Assert.assertEquals (closure.get (base + "common/base.xsd"), Fingerprint.of (new File (dir, "common/base.xsd")));
+    Assert.assertEquals (closure.get (base + "types-base.xsd"), Fingerprint.of (new File (dir, "types-base.xsd")));
+  }
+
+  @Test
+  public void testChange () throws IOException
+  {
+    final Map <String, String> closure = ImportClosure.scan (url ("root.wsdl"), null);
+    final Map <String, String> recorded = ImportClosure.parse (ImportClosure.format (closure));
+    Assert.assertEquals (recorded, closure);
+    Assert.assertEquals (ImportClosure.scan (url ("root.wsdl"), null), recorded);
+
+    Files.write (new File (dir, "types-base.xsd").toPath (),
+                 Arrays.asList ("<schema xmlns='http://www.w3.org/2001/XMLSchema'/>"),
+                 StandardCharsets.UTF_8);
+    final Map <String, String> current = ImportClosure.scan (url ("root.wsdl"), null);
+    Assert.assertNotEquals (current, recorded);
+    Assert.assertEquals (ImportClosure.getChange (recorded, current),
+                         url ("types-base.xsd").toExternalForm () + " changed");
+
+    Files.write (new File (dir, "common/base.xsd").toPath (),
+                 Arrays.asList ("<schema xmlns='http://www.w3.org/2001/XMLSchema'/>"),
+                 StandardCharsets.UTF_8);
+    final Map <String, String> reduced = ImportClosure.scan (url ("root.wsdl"), null);
+    Assert.assertFalse (reduced.containsKey (url ("types-base.xsd").toExternalForm ()));
+    Assert.assertNull (ImportClosure.getChange (reduced, reduced));
+  }
+
+  @Test
+  public void testDependencyIndex () throws IOException
+  {
+    final Map <String, Map <String, String>> recorded = new HashMap <> ();
+    final DependencyIndex index = new DependencyIndex (new File (dir, "index.properties"));
+    for (final String doc : Arrays.asList ("root.wsdl", "types.xsd", "ext.xsd"))
+    {
+      recorded.put (doc, ImportClosure.scan (url (doc), null));
+      index.put (doc, recorded.get (doc).keySet ());
+    }
+    index.save ();
+    Assert.assertTrue (index.getAffected (recorded::get).isEmpty ());
+
+    Files.write (new File (dir, "types-base.xsd").toPath (),
+                 Arrays.asList ("<schema xmlns='http://www.w3.org/2001/XMLSchema'/>"),
+                 StandardCharsets.UTF_8);
+    final DependencyIndex reloaded = new DependencyIndex (new File (dir, "index.properties"));
+    Assert.assertTrue (reloaded.contains ("ext.xsd"));
+    Assert.assertEquals (reloaded.getDocuments (), index.getDocuments ());
+    Assert.assertTrue (reloaded.getDocuments ().contains (url ("types-base.xsd").toExternalForm ()));
+    Assert.assertEquals (reloaded.getAffected (recorded::get), new HashSet <> (Arrays.asList ("root.wsdl", "types.xsd")));
+
+    reloaded.remove ("types.xsd");
+    Assert.assertFalse (reloaded.contains ("types.xsd"));
+    Assert.assertEquals (reloaded.getAffected (recorded::get), Collections.singleton ("root.wsdl"));
+  }
+
+  private URL url (final String doc) throws IOException
+  {
+    return new File (dir, doc).toURI ().toURL ();
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class InvokerTest
+{
+  /**
+   * Succeeds if the first argument is <code>ok</code>.
+   */
+  public static final class Tool
+  {
+    public Tool (final OutputStream out)
+    {}
+
+    public boolean run (final String [] args)
+    {
+      return args.length > 0 && "ok".equals (args[0]);
+    }
+  }
+
+  @Test
+  public void testRunJobs () throws Exception
+  {
+    final File jobsFile = File.createTempFile ("jobs", ".txt");
+    final File resultFile = new File (jobsFile.getPath () + Invoker.RESULT_FILE_SUFFIX);
+    try
+    {
+      final Properties jobs = new Properties ();
+      jobs.setProperty ("jobs", "3");
+      jobs.setProperty ("job.0.args", "2");
+      jobs.setProperty ("job.0.arg.0", "ok");
+      jobs.setProperty ("job.0.arg.1", "a.wsdl");
+      jobs.setProperty ("job.1.args", "1");
+      jobs.setProperty ("job.1.arg.0", "b.wsdl");
+      jobs.setProperty ("job.2.args", "1");
+      jobs.setProperty ("job.2.arg.0", "ok");
+      try (OutputStream os = new FileOutputStream (jobsFile))
+      {
+        jobs.store (os, null);
+      }
+
+      // a failing job does not stop the others
+      Assert.assertFalse (Invoker._runJobs (Tool.class, jobsFile));
+      final Properties results = new Properties ();
+      try (InputStream is = new FileInputStream (resultFile))
+      {
+        results.load (is);
+      }
+      Assert.assertEquals (results.getProperty ("job.0.status"), "0");
+      Assert.assertEquals (results.getProperty ("job.1.status"), "1");
+      Assert.assertEquals (results.getProperty ("job.2.status"), "0");
+      for (int i = 0; i < 3; i++)
+      {
+        Assert.assertTrue (Long.parseLong (results.getProperty ("job." + i + ".millis")) >= 0);
+      }
+    }
+    finally
+    {
+      jobsFile.delete ();
+      resultFile.delete ();
+    }
+  }
+
+  @Test
+  public void testNoJobs () throws Exception
+  {
+    final File jobsFile = File.createTempFile ("jobs", ".txt");
+    final File resultFile = new File (jobsFile.getPath () + Invoker.RESULT_FILE_SUFFIX);
+    try
+    {
+      Assert.assertTrue (Invoker._runJobs (Tool.class, jobsFile));
+      Assert.assertTrue (resultFile.isFile ());
+    }
+    finally
+    {
+      jobsFile.delete ();
+      resultFile.delete ();
+    }
+  }
+}
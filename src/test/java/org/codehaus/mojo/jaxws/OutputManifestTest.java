@@ -0,0 +1,201 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class OutputManifestTest
+{
+  private File dir;
+
+  private Map <String, File> roots;
+
+  @BeforeMethod
+  public void createDirectory () throws IOException
+  {
+    dir = Files.createTempDirectory ("outputs").toFile ();
+    roots = Collections.singletonMap ("src", new File (dir, "out"));
+  }
+
+  @AfterMethod
+  public void deleteDirectory () throws IOException
+  {
+    Files.walk (dir.toPath ()).map (Path::toFile).sorted ( (a, b) -> b.compareTo (a)).forEach (File::delete);
+  }
+
+  @Test
+  public void testDamage () throws IOException
+  {
+    final OutputManifest manifest = new OutputManifest (new File (dir, "outputs.properties"));
+    Assert.assertEquals (manifest.getDamage ("a", roots), "outputs not recorded");
+    manifest.install ("a", stage ("a", "com/acme/Foo.java", "com/acme/ObjectFactory.java"), roots);
+    Assert.assertNull (manifest.getDamage ("a", roots));
+    manifest.save ();
+
+    final File foo = new File (dir, "out/com/acme/Foo.java");
+    Assert.assertTrue (foo.setLastModified (foo.lastModified () - 10_000));
+    final OutputManifest reloaded = new OutputManifest (new File (dir, "outputs.properties"));
+    Assert.assertNull (reloaded.getDamage ("a", roots));
+
+    write (foo, "class Bar {}");
+    Assert.assertEquals (reloaded.getDamage ("a", roots), foo.getPath () + " modified");
+    Assert.assertTrue (foo.delete ());
+    Assert.assertEquals (reloaded.getDamage ("a", roots), foo.getPath () + " missing");
+  }
+
+  @Test
+  public void testSharedOutput () throws IOException
+  {
+    final OutputManifest manifest = new OutputManifest (new File (dir, "outputs.properties"));
+    manifest.install ("a", stage ("a", "com/acme/A.java", "com/acme/ObjectFactory.java"), roots);
+    manifest.install ("b", stage ("b", "com/acme/B.java", "com/acme/ObjectFactory.java"), roots);
+    Assert.assertNull (manifest.getDamage ("a", roots));
+    Assert.assertNull (manifest.getDamage ("b", roots));
+  }
+
+  @Test
+  public void testDoNotOverwrite () throws IOException
+  {
+    final File foo = new File (dir, "out/com/acme/Foo.java");
+    write (foo, "// edited by hand");
+    final OutputManifest manifest = new OutputManifest (new File (dir, "outputs.properties"));
+    Assert.assertEquals (manifest.install ("a", stage ("a", "com/acme/Foo.java", "com/acme/Bar.java"), roots, false),
+                         Arrays.asList (new File (dir, "out/com/acme/Bar.java")));
+    Assert.assertEquals (Files.readAllLines (foo.toPath (), StandardCharsets.UTF_8), Arrays.asList ("// edited by hand"));
+    Assert.assertNull (manifest.getDamage ("a", roots));
+
+    manifest.install ("a", stage ("a", "com/acme/Foo.java"), roots);
+    Assert.assertEquals (Files.readAllLines (foo.toPath (), StandardCharsets.UTF_8), Arrays.asList ("// generated for a"));
+  }
+
+  @Test
+  public void testRemoveOrphans () throws IOException
+  {
+    final OutputManifest manifest = new OutputManifest (new File (dir, "outputs.properties"));
+    manifest.install ("a", stage ("a", "com/acme/a/A.java", "com/acme/ObjectFactory.java"), roots);
+    manifest.install ("b", stage ("b", "com/acme/b/B.java", "com/acme/ObjectFactory.java"), roots);
+    Assert.assertEquals (manifest.getOwnerCount (new File (dir, "out/com/acme/ObjectFactory.java"), roots), 2);
+
+    final File b2 = new File (dir, "work/b2");
+    write (new File (b2, "com/acme/b/B.java"), "// generated for b2");
+    // ObjectFactory is still owned by a
+    Assert.assertEquals (manifest.install ("b", Collections.singletonMap ("src", b2), roots),
+                         Arrays.asList (new File (dir, "out/com/acme/b/B.java")));
+    Assert.assertEquals (manifest.getOwnerCount (new File (dir, "out/com/acme/ObjectFactory.java"), roots), 1);
+    Assert.assertNull (manifest.getDamage ("a", roots));
+
+    Assert.assertEquals (manifest.remove ("a", roots),
+                         Arrays.asList (new File (dir, "out/com/acme/ObjectFactory.java"),
+                                        new File (dir, "out/com/acme/a/A.java")));
+    Assert.assertFalse (new File (dir, "out/com/acme/a").exists ());
+    Assert.assertTrue (new File (dir, "out/com/acme/b/B.java").isFile ());
+    Assert.assertTrue (manifest.remove ("a", roots).isEmpty ());
+  }
+
+  @Test
+  public void testSharedManifest () throws IOException
+  {
+    // main and test executions sharing one manifest, with different output directories
+    final Map <String, File> mainRoots = Collections.singletonMap ("src", new File (dir, "main"));
+    final Map <String, File> testRoots = Collections.singletonMap ("src", new File (dir, "test"));
+    final OutputManifest manifest = new OutputManifest (new File (dir, "outputs.properties"));
+    manifest.install ("main", stage ("main", "com/acme/ObjectFactory.java"), mainRoots);
+    manifest.install ("test", stage ("test", "com/acme/ObjectFactory.java", "com/acme/T.java"), testRoots);
+    Assert.assertNull (manifest.getDamage ("main", mainRoots));
+    Assert.assertNull (manifest.getDamage ("test", testRoots));
+    Assert.assertEquals (manifest.getOwnerCount (new File (dir, "main/com/acme/ObjectFactory.java"), mainRoots), 1);
+    manifest.save ();
+
+    final OutputManifest reloaded = new OutputManifest (new File (dir, "outputs.properties"));
+    Assert.assertNull (reloaded.getDamage ("main", mainRoots));
+    Assert.assertNull (reloaded.getDamage ("test", testRoots));
+
+    // the test execution no longer generates ObjectFactory, which only it owned in its directory
+    final File t2 = new File (dir, "work/t2");
+    write (new File (t2, "com/acme/T.java"), "// generated for test");
+    Assert.assertEquals (reloaded.install ("test", Collections.singletonMap ("src", t2), testRoots),
+                         Arrays.asList (new File (dir, "test/com/acme/ObjectFactory.java")));
+    Assert.assertTrue (new File (dir, "main/com/acme/ObjectFactory.java").isFile ());
+    Assert.assertNull (reloaded.getDamage ("main", mainRoots));
+  }
+
+  @Test
+  public void testKeepUnchanged () throws IOException
+  {
+    final OutputManifest manifest = new OutputManifest (new File (dir, "outputs.properties"));
+    manifest.install ("a", stage ("a", "com/acme/A.java", "com/acme/B.java"), roots);
+    final File a = new File (dir, "out/com/acme/A.java");
+    final File b = new File (dir, "out/com/acme/B.java");
+    Assert.assertTrue (a.setLastModified (1_000_000_000_000L));
+    Assert.assertTrue (b.setLastModified (1_000_000_000_000L));
+
+    final Map <String, File> staged = stage ("a", "com/acme/A.java");
+    write (new File (staged.get ("src"), "com/acme/B.java"), "// changed");
+    Assert.assertEquals (manifest.install ("a", staged, roots), Arrays.asList (b));
+    Assert.assertEquals (a.lastModified (), 1_000_000_000_000L);
+    Assert.assertNotEquals (b.lastModified (), 1_000_000_000_000L);
+    Assert.assertEquals (Files.readAllLines (b.toPath ()), Arrays.asList ("// changed"));
+    Assert.assertNull (manifest.getDamage ("a", roots));
+  }
+
+  private Map <String, File> stage (final String unit, final String... files) throws IOException
+  {
+    final File staged = new File (dir, "work/" + unit);
+    for (final String file : files)
+    {
+      write (new File (staged, file), "// generated for " + unit);
+    }
+    return Collections.singletonMap ("src", staged);
+  }
+
+  private static void write (final File file, final String content) throws IOException
+  {
+    file.getParentFile ().mkdirs ();
+    Files.write (file.toPath (), Arrays.asList (content), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class OutputNormalizerTest
+{
+  private static final String XJC_HEADER = "//\r\n" +
+                                           "// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.3.0 \r\n" +
+                                           "// Any modifications to this file will be lost upon recompilation of the source schema. \r\n" +
+                                           "// Generated on: 2019.06.25 at 10:11:12 AM CEST \r\n" +
+                                           "//\r\n";
+
+  @Test
+  public void testRemovesTimestamps ()
+  {
+    final String normalized = OutputNormalizer.normalize (XJC_HEADER +
+                                                          "\r\n" +
+                                                          "@Generated(value = \"com.sun.tools.xjc.Driver\", date = \"2019-06-25T10:11:12+02:00\", comments = \"JAXB RI v2.3.0\")\r\n" +
+                                                          "public class Foo {}\r\n");
+    Assert.assertEquals (normalized,
+                         "//\n" +
+                                     "// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.3.0 \n" +
+                                     "// Any modifications to this file will be lost upon recompilation of the source schema. \n" +
+                                     "//\n" +
+                                     "\n" +
+                                     "@Generated(value = \"com.sun.tools.xjc.Driver\", comments = \"JAXB RI v2.3.0\")\n" +
+                                     "public class Foo {}\n");
+  }
+
+  @Test
+  public void testKeepsOtherContent ()
+  {
+    final String source = "/**\n * This class was generated by the JAX-WS RI.\n */\n@WebServiceClient(name = \"Foo\")\npublic class Foo {}\n";
+    Assert.assertEquals (OutputNormalizer.normalize (source), source);
+  }
+
+  @Test
+  public void testNormalizeTree () throws IOException
+  {
+    final Path dir = Files.createTempDirectory ("normalizer");
+    try
+    {
+      final File source = new File (dir.toFile (), "com/example/Foo.java");
+      source.getParentFile ().mkdirs ();
+      Files.write (source.toPath (), (XJC_HEADER + "class Foo {}\r\n").getBytes (StandardCharsets.UTF_8));
+      final File other = new File (dir.toFile (), "com/example/foo.wsdl");
+      Files.write (other.toPath (), "<definitions/>\r\n".getBytes (StandardCharsets.UTF_8));
+
+      Assert.assertEquals (OutputNormalizer.normalizeTree (dir.toFile ()), 1);
+      Assert.assertFalse (new String (Files.readAllBytes (source.toPath ()), StandardCharsets.UTF_8).contains ("Generated on"));
+      Assert.assertEquals (new String (Files.readAllBytes (other.toPath ()), StandardCharsets.UTF_8), "<definitions/>\r\n");
+      Assert.assertEquals (OutputNormalizer.normalizeTree (dir.toFile ()), 0);
+      Assert.assertEquals (OutputNormalizer.normalizeTree (new File (dir.toFile (), "missing")), 0);
+    }
+    finally
+    {
+      for (final String name : new String [] { "com/example/Foo.java", "com/example/foo.wsdl", "com/example", "com", "" })
+      {
+        new File (dir.toFile (), name).delete ();
+      }
+    }
+  }
+}
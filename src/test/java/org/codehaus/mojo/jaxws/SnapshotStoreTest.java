@@ -0,0 +1,296 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SnapshotStoreTest
+{
+  private File dir;
+
+  private HttpServer server;
+
+  private final AtomicInteger requests = new AtomicInteger ();
+
+  private final AtomicInteger notModified = new AtomicInteger ();
+
+  private final AtomicInteger active = new AtomicInteger ();
+
+  private final AtomicInteger maxActive = new AtomicInteger ();
+
+  private volatile String content = "<definitions/>";
+
+  private volatile long delay;
+
+  @BeforeMethod
+  public void start () throws IOException
+  {
+    dir = Files.createTempDirectory ("snapshots").toFile ();
+    requests.set (0);
+    content = "<definitions/>";
+    notModified.set (0);
+    maxActive.set (0);
+    delay = 0;
+    server = HttpServer.create (new InetSocketAddress (InetAddress.getLoopbackAddress (), 0), 0);
+    server.createContext ("/", exchange -> {
+      requests.incrementAndGet ();
+      maxActive.accumulateAndGet (active.incrementAndGet (), Math::max);
+      try
+      {
+        Thread.sleep (delay);
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+      }
+      finally
+      {
+        active.decrementAndGet ();
+      }
+      // the ETag and the body must describe the same content
+      final String served = content;
+      final String etag = "\"" + Integer.toHexString (served.hashCode ()) + "\"";
+      if (etag.equals (exchange.getRequestHeaders ().getFirst ("If-None-Match")))
+      {
+        notModified.incrementAndGet ();
+        exchange.sendResponseHeaders (304, -1);
+        exchange.close ();
+        return;
+      }
+      final byte [] body = served.getBytes (StandardCharsets.UTF_8);
+      exchange.getResponseHeaders ().set ("ETag", etag);
+      exchange.sendResponseHeaders (200, body.length);
+      try (OutputStream os = exchange.getResponseBody ())
+      {
+        os.write (body);
+      }
+    });
+    server.setExecutor (Executors.newCachedThreadPool ());
+    server.start ();
+  }
+
+  @AfterMethod
+  public void stop () throws IOException
+  {
+    server.stop (0);
+    Files.walk (dir.toPath ()).map (Path::toFile).sorted ( (a, b) -> b.compareTo (a)).forEach (File::delete);
+  }
+
+  @Test
+  public void testFreshness () throws IOException
+  {
+    final String url = url ("service?wsdl");
+    final SnapshotStore fresh = new SnapshotStore (dir, 60_000, false);
+    Assert.assertEquals (new String (fresh.read (url), StandardCharsets.UTF_8), "<definitions/>");
+    content = "<definitions name='changed'/>";
+    Assert.assertEquals (new String (new SnapshotStore (dir, 60_000, false).read (url), StandardCharsets.UTF_8),
+                         "<definitions/>");
+    Assert.assertEquals (requests.get (), 1);
+
+    Assert.assertEquals (new String (new SnapshotStore (dir, 0, false).read (url), StandardCharsets.UTF_8),
+                         "<definitions name='changed'/>");
+    Assert.assertEquals (requests.get (), 2);
+    Assert.assertTrue (fresh.getUsed ().containsKey (url));
+  }
+
+  @Test
+  public void testRevalidation () throws IOException
+  {
+    final String url = url ("service?wsdl");
+    new SnapshotStore (dir, 0, false).read (url);
+    final long fetched = new SnapshotStore (dir, 0, false).getSnapshot (url).lastModified ();
+
+    final SnapshotStore unchanged = new SnapshotStore (dir, 0, false);
+    Assert.assertEquals (new String (unchanged.read (url), StandardCharsets.UTF_8), "<definitions/>");
+    Assert.assertEquals (requests.get (), 2);
+    Assert.assertEquals (notModified.get (), 1);
+    Assert.assertEquals (unchanged.getRevalidated (), 1);
+    Assert.assertEquals (unchanged.getSnapshot (url).lastModified (), fetched);
+
+    content = "<definitions name='changed'/>";
+    final SnapshotStore changed = new SnapshotStore (dir, 0, false);
+    Assert.assertEquals (new String (changed.read (url), StandardCharsets.UTF_8), "<definitions name='changed'/>");
+    Assert.assertEquals (notModified.get (), 1);
+    Assert.assertEquals (changed.getRevalidated (), 0);
+
+    // the validator of the new content is recorded
+    new SnapshotStore (dir, 0, false).read (url);
+    Assert.assertEquals (notModified.get (), 2);
+  }
+
+  @Test
+  public void testPrefetch () throws IOException
+  {
+    delay = 100;
+    final List <String> urls = new ArrayList <> ();
+    for (int i = 0; i < 12; i++)
+    {
+      urls.add (url ("service" + i + "?wsdl"));
+    }
+    urls.add (url ("service0?wsdl"));
+    urls.add ("file:/local.wsdl");
+    final SnapshotStore store = new SnapshotStore (dir, 0, false);
+    Assert.assertEquals (store.prefetch (urls, 3, 60_000), 0);
+    Assert.assertEquals (requests.get (), 12);
+    Assert.assertEquals (maxActive.get (), 3);
+
+    // read once per build
+    Assert.assertEquals (new String (store.read (url ("service5?wsdl")), StandardCharsets.UTF_8), "<definitions/>");
+    Assert.assertEquals (requests.get (), 12);
+    Assert.assertEquals (store.getUsed ().size (), 12);
+  }
+
+  @Test
+  public void testPrefetchBudget () throws IOException
+  {
+    final String url = url ("service?wsdl");
+    new SnapshotStore (dir, 0, false).read (url);
+    delay = 2_000;
+    final SnapshotStore store = new SnapshotStore (dir, 0, false);
+    Assert.assertEquals (store.prefetch (Arrays.asList (url, url ("types.xsd")), 1, 200), 2);
+
+    // documents with a snapshot are no longer fetched
+    final String other = url ("other.xsd");
+    new SnapshotStore (dir, 0, false).read (other);
+    Assert.assertEquals (new String (store.read (other), StandardCharsets.UTF_8), "<definitions/>");
+    Assert.assertTrue (store.getFailures ().containsKey (other));
+  }
+
+  @Test
+  public void testReadAfterBudget () throws IOException
+  {
+    final String url = url ("service?wsdl");
+    new SnapshotStore (dir, 0, false).read (url);
+    content = "<definitions name='changed'/>";
+    delay = 5_000;
+    final SnapshotStore store = new SnapshotStore (dir, 0, false);
+    Assert.assertEquals (store.prefetch (Arrays.asList (url), 1, 200), 1);
+
+    // the fetch still running does not block the read
+    final long start = System.currentTimeMillis ();
+    Assert.assertEquals (new String (store.read (url), StandardCharsets.UTF_8), "<definitions/>");
+    Assert.assertTrue (System.currentTimeMillis () - start < 2_000);
+    Assert.assertTrue (store.getFailures ().containsKey (url));
+    Assert.assertEquals (new String (store.read (url), StandardCharsets.UTF_8), "<definitions/>");
+  }
+
+  @Test
+  public void testOffline () throws IOException
+  {
+    final String url = url ("service?wsdl");
+    try
+    {
+      new SnapshotStore (dir, 0, true).read (url);
+      Assert.fail ("read without snapshot while offline");
+    }
+    catch (final IOException ex)
+    {
+      Assert.assertEquals (requests.get (), 0);
+    }
+    new SnapshotStore (dir, 0, false).read (url);
+    Assert.assertEquals (new String (new SnapshotStore (dir, 0, true).read (url), StandardCharsets.UTF_8),
+                         "<definitions/>");
+    Assert.assertEquals (requests.get (), 1);
+  }
+
+  @Test
+  public void testUnreachable () throws IOException
+  {
+    final String url = url ("types.xsd");
+    new SnapshotStore (dir, 0, false).read (url);
+    server.stop (0);
+    final SnapshotStore store = new SnapshotStore (dir, 0, false);
+    Assert.assertEquals (new String (store.read (url), StandardCharsets.UTF_8), "<definitions/>");
+    Assert.assertTrue (store.getFailures ().containsKey (url));
+  }
+
+  @Test
+  public void testReadOnly () throws IOException
+  {
+    final String url = url ("service?wsdl");
+    Assert.assertEquals (new String (new SnapshotStore (dir, 0, false, true).read (url), StandardCharsets.UTF_8),
+                         "<definitions/>");
+    Assert.assertEquals (dir.list ().length, 0);
+
+    new SnapshotStore (dir, 0, false).read (url);
+    final File snapshot = new SnapshotStore (dir, 0, false).getSnapshot (url);
+    final long fetched = snapshot.lastModified ();
+    Assert.assertEquals (new String (new SnapshotStore (dir, 0, false, true).read (url), StandardCharsets.UTF_8),
+                         "<definitions/>");
+    content = "<definitions name='changed'/>";
+    Assert.assertEquals (new String (new SnapshotStore (dir, 0, false, true).read (url), StandardCharsets.UTF_8),
+                         "<definitions name='changed'/>");
+    Assert.assertEquals (new String (Files.readAllBytes (snapshot.toPath ()), StandardCharsets.UTF_8),
+                         "<definitions/>");
+    Assert.assertEquals (snapshot.lastModified (), fetched);
+  }
+
+  @Test
+  public void testCatalog () throws IOException
+  {
+    final String url = url ("service?wsdl&a=b");
+    final SnapshotStore store = new SnapshotStore (dir, 0, false);
+    store.read (url);
+    final File catalog = new File (dir, "catalog.xml");
+    store.writeCatalog (catalog);
+    Assert.assertEquals (XmlCatalog.load (catalog.toURI ().toURL ()).resolve (url),
+                         store.getSnapshot (url).toURI ().toString ());
+  }
+
+  private String url (final String path)
+  {
+    return "http://localhost:" + server.getAddress ().getPort () + "/" + path;
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class StaleManifestTest
+{
+  private File dir;
+
+  private File file;
+
+  @BeforeMethod
+  public void createDirectory () throws IOException
+  {
+    dir = Files.createTempDirectory ("stale").toFile ();
+    file = new File (dir, "manifest/wsimport.properties");
+  }
+
+  @AfterMethod
+  public void deleteDirectory () throws IOException
+  {
+    Files.walk (dir.toPath ()).map (Path::toFile).sorted ( (a, b) -> b.compareTo (a)).forEach (File::delete);
+  }
+
+  @Test
+  public void testSave () throws IOException
+  {
+    final StaleManifest manifest = new StaleManifest (file);
+    manifest.put ("b", components ("<definitions name='b'/>"));
+    manifest.put ("a", components ("<definitions name='a'/>"));
+    manifest.save ();
+
+    final StaleManifest reloaded = new StaleManifest (file);
+    Assert.assertEquals (reloaded.get ("a"), components ("<definitions name='a'/>"));
+    // SHA-256
+    Assert.assertTrue (reloaded.get ("a").get ("wsdl").matches ("[0-9a-f]{64}"));
+    Assert.assertNull (StaleManifest.getChange (reloaded.get ("b"), components ("<definitions name='b'/>")));
+    Assert.assertEquals (StaleManifest.getChange (reloaded.get ("b"), components ("<definitions/>")), "wsdl changed");
+    Assert.assertEquals (StaleManifest.getChange (reloaded.get ("c"), components ("<definitions/>")),
+                         "not generated before");
+
+    // sorted, without time stamp and without temporary files left behind
+    Assert.assertEquals (Files.readAllLines (file.toPath (), StandardCharsets.ISO_8859_1),
+                         Arrays.asList ("a.args=" + Fingerprint.of (Collections.singletonList ("-keep")),
+                                        "a.wsdl=" + Fingerprint.of ("<definitions name='a'/>"),
+                                        "b.args=" + Fingerprint.of (Collections.singletonList ("-keep")),
+                                        "b.wsdl=" + Fingerprint.of ("<definitions name='b'/>")));
+    Assert.assertEquals (file.getParentFile ().list (), new String [] { file.getName () });
+  }
+
+  @Test
+  public void testSaveUnmodified () throws IOException
+  {
+    final StaleManifest manifest = new StaleManifest (file);
+    manifest.put ("a", components ("<definitions/>"));
+    manifest.save ();
+    Assert.assertTrue (file.setLastModified (file.lastModified () - 10_000));
+    final long saved = file.lastModified ();
+
+    final StaleManifest reloaded = new StaleManifest (file);
+    reloaded.put ("a", components ("<definitions/>"));
+    reloaded.save ();
+    Assert.assertEquals (file.lastModified (), saved);
+
+    reloaded.remove ("a");
+    reloaded.save ();
+    Assert.assertTrue (new StaleManifest (file).getIds ().isEmpty ());
+  }
+
+  @Test
+  public void testCorrupt () throws IOException
+  {
+    Files.createDirectories (file.getParentFile ().toPath ());
+    Files.write (file.toPath (), Arrays.asList ("a.wsdl=\\uZZZZ"), StandardCharsets.ISO_8859_1);
+    final StaleManifest manifest = new StaleManifest (file);
+    Assert.assertTrue (manifest.getIds ().isEmpty ());
+
+    // replaced by the next save
+    manifest.put ("a", components ("<definitions/>"));
+    manifest.save ();
+    Assert.assertEquals (new StaleManifest (file).get ("a"), components ("<definitions/>"));
+  }
+
+  @Test
+  public void testPartial () throws IOException
+  {
+    final StaleManifest manifest = new StaleManifest (file);
+    manifest.put ("a", components ("<definitions name='a'/>"));
+    manifest.put ("b", components ("<definitions name='b'/>"));
+    manifest.save ();
+    final byte [] content = Files.readAllBytes (file.toPath ());
+    Files.write (file.toPath (), Arrays.copyOf (content, content.length - 20));
+
+    // an entry cut off is stale, the others are still up to date
+    final StaleManifest reloaded = new StaleManifest (file);
+    Assert.assertNull (StaleManifest.getChange (reloaded.get ("a"), components ("<definitions name='a'/>")));
+    Assert.assertEquals (StaleManifest.getChange (reloaded.get ("b"), components ("<definitions name='b'/>")),
+                         "wsdl changed");
+  }
+
+  private static Map <String, String> components (final String wsdl)
+  {
+    final Map <String, String> components = new LinkedHashMap <> ();
+    components.put ("args", Fingerprint.of (Collections.singletonList ("-keep")));
+    components.put ("wsdl", Fingerprint.of (wsdl));
+    return components;
+  }
+}
@@ -0,0 +1,157 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TypeClosureTest
+{
+  @Retention (RetentionPolicy.RUNTIME)
+  @interface SeeAlso
+  {
+    Class <?> [] value ();
+
+    String endpointInterface () default "";
+  }
+
+  interface Api
+  {
+    List <Result> call (Map <String, Param> params) throws Fault;
+  }
+
+  static class Base implements Serializable
+  {
+    private static final long serialVersionUID = 1L;
+  }
+
+  static class Param
+  {
+    Nested [] nested;
+  }
+
+  static class Nested
+  {}
+
+  static class Result
+  {}
+
+  static class Extra
+  {}
+
+  static class Fault extends Exception
+  {
+    private static final long serialVersionUID = 1L;
+  }
+
+  static class BodyOnly
+  {}
+
+  @SeeAlso (value = Extra.class, endpointInterface = "org.codehaus.mojo.jaxws.TypeClosureTest$Api")
+  static class Endpoint extends Base
+  {
+    private static final long serialVersionUID = 1L;
+
+    public List <Result> call (final Map <String, Param> params)
+    {
+      return Arrays.asList (new Result (), new Result ());
+    }
+
+    public void run ()
+    {
+      new BodyOnly ();
+    }
+  }
+
+  @Test
+  public void testScan () throws IOException, URISyntaxException
+  {
+    final File classesDir = new File (TypeClosureTest.class.getProtectionDomain ()
+                                                           .getCodeSource ()
+                                                           .getLocation ()
+                                                           .toURI ());
+    final Map <String, String> closure = TypeClosure.scan (classesDir,
+                                                           Endpoint.class.getName (),
+                                                           new TypeClosure.Cache ());
+    final String prefix = TypeClosureTest.class.getName () + "$";
+    final Set <String> expected = new HashSet <> ();
+    for (final String name : Arrays.asList ("Endpoint", "Base", "Api", "Param", "Nested", "Result", "Extra", "Fault", "SeeAlso"))
+    {
+      expected.add (prefix + name);
+    }
+    Assert.assertTrue (closure.keySet ().containsAll (expected), closure.keySet ().toString ());
+    Assert.assertFalse (closure.containsKey (prefix + "BodyOnly"));
+    Assert.assertFalse (closure.containsKey ("java.util.List"));
+    Assert.assertEquals (closure.get (prefix + "Param"),
+                         Fingerprint.of (new File (classesDir,
+                                                   (prefix + "Param").replace ('.', '/') + ".class")));
+  }
+
+  @Test
+  public void testAddTypes ()
+  {
+    final Set <String> types = new HashSet <> ();
+    TypeClosure.addTypes ("<LT:Ljava/lang/Number;V::Lcom/x/Api;>Lcom/x/Base<TLT;>.Inner<[Lcom/x/Item;>;", types);
+    Assert.assertEquals (types, new HashSet <> (Arrays.asList ("java/lang/Number", "com/x/Api", "com/x/Base", "com/x/Item")));
+  }
+
+  @Test
+  public void testChange ()
+  {
+    final Map <String, String> previous = new TreeMap <> ();
+    previous.put ("a.A", "1");
+    previous.put ("a.B", "2");
+    final Map <String, String> current = new TreeMap <> (previous);
+    Assert.assertNull (TypeClosure.getChange (previous, current));
+    current.put ("a.B", "3");
+    Assert.assertEquals (TypeClosure.getChange (previous, current), "a.B changed");
+    current.remove ("a.B");
+    Assert.assertEquals (TypeClosure.getChange (previous, current), "a.B no longer referenced");
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class VerifyReportTest
+{
+  @Test
+  public void testUpToDate ()
+  {
+    final VerifyReport report = new VerifyReport ("wsimport", "default");
+    report.add ("file:/src/wsdl/a.wsdl", null);
+    Assert.assertEquals (report.getUnitCount (), 1);
+    Assert.assertEquals (report.getStaleUnits (), Collections.emptyList ());
+    Assert.assertEquals (report.toJson (),
+                         "{\n" +
+                                           "  \"goal\": \"wsimport\",\n" +
+                                           "  \"execution\": \"default\",\n" +
+                                           "  \"upToDate\": true,\n" +
+                                           "  \"units\": [\n" +
+                                           "    { \"unit\": \"file:/src/wsdl/a.wsdl\", \"stale\": false }\n" +
+                                           "  ]\n" +
+                                           "}\n");
+  }
+
+  @Test
+  public void testStale ()
+  {
+    final VerifyReport report = new VerifyReport ("wsimport", "default");
+    report.add ("file:/src/wsdl/a.wsdl", null);
+    report.add ("file:/src/wsdl/b.wsdl", "imports changed: \"c.xsd\"\n");
+    Assert.assertEquals (report.getStaleUnits (),
+                         Arrays.asList ("file:/src/wsdl/b.wsdl (imports changed: \"c.xsd\"\n)"));
+    Assert.assertTrue (report.toJson ().contains ("\"upToDate\": false"));
+    Assert.assertTrue (report.toJson ()
+                             .contains ("{ \"unit\": \"file:/src/wsdl/b.wsdl\", \"stale\": true, \"reason\": \"imports changed: \\\"c.xsd\\\"\\n\" }"));
+  }
+
+  @Test
+  public void testEmpty ()
+  {
+    final VerifyReport report = new VerifyReport ("wsimport", "default");
+    Assert.assertTrue (report.toJson ().contains ("\"units\": []\n"));
+  }
+
+  @Test
+  public void testPlan ()
+  {
+    final VerifyReport report = new VerifyReport ("wsimport", "default");
+    report.add ("a.wsdl", null);
+    report.addDetail ("a.wsdl", "estimatedMillis", 500);
+    report.add ("b.wsdl", "wsdl changed");
+    report.addDetail ("b.wsdl", "estimatedMillis", 3000);
+    report.addDetail ("b.wsdl", "checks", 4);
+    report.addDetail ("b.wsdl", "staleChecks", 4);
+    report.add ("c.wsdl", "no outputs recorded");
+    report.addDetail ("c.wsdl", "estimatedMillis", 1000);
+    report.add ("d.wsdl", "WSDL removed");
+    Assert.assertEquals (report.getPlan ("WSDLs", 4),
+                         Arrays.asList ("ok      500 ms  a.wsdl",
+                                        "stale    3.0 s  b.wsdl (wsdl changed) [stale in all of the last 4 builds]",
+                                        "stale    1.0 s  c.wsdl (no outputs recorded)",
+                                        "stale        ?  d.wsdl (WSDL removed)",
+                                        "3 of 4 WSDLs stale, estimated 4.0 s, about 3.0 s on 3 threads, 1 without estimate"));
+    Assert.assertTrue (report.toJson ().contains ("{ \"unit\": \"a.wsdl\", \"stale\": false, \"estimatedMillis\": 500 }"));
+  }
+}
@@ -0,0 +1,174 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class WorkerDaemonTest
+{
+  // fails in the daemon, which reports it and stays available
+  private static final WorkerProtocol.Job JOB = new WorkerProtocol.Job ("com.example.MissingTool",
+                                                                        "",
+                                                                        null,
+                                                                        new String [0],
+                                                                        new Properties ());
+
+  private static final List <String> LAUNCH = Arrays.asList (new File (System.getProperty ("java.home"),
+                                                                       "bin/java").getPath (),
+                                                             "-cp",
+                                                             System.getProperty ("java.class.path"),
+                                                             WorkerDaemon.class.getName ());
+
+  private File dir;
+
+  @BeforeMethod
+  public void createDirectory () throws IOException
+  {
+    dir = Files.createTempDirectory ("daemon").toFile ();
+  }
+
+  @AfterMethod
+  public void stopDaemon () throws IOException
+  {
+    final Properties reg = loadRegistry ("test");
+    if (reg != null)
+    {
+      try (Socket s = connect (reg); DataOutputStream out = new DataOutputStream (s.getOutputStream ()))
+      {
+        WorkerProtocol.writeString (out, reg.getProperty ("token"));
+        out.writeInt (WorkerProtocol.VERSION);
+        WorkerProtocol.writeString (out, WorkerProtocol.CMD_STOP);
+      }
+    }
+    Files.walk (dir.toPath ()).map (Path::toFile).sorted ( (a, b) -> b.compareTo (a)).forEach (File::delete);
+  }
+
+  @Test (timeOut = 60_000)
+  public void testFailedJob () throws Exception
+  {
+    try
+    {
+      WorkerDaemon.run (dir, "test", "jdk", LAUNCH, 60_000, 30_000, JOB, line -> {});
+      Assert.fail ("failure not reported");
+    }
+    catch (final WorkerProtocol.JobFailedException ex)
+    {
+      // reported instead of IOException, so the tool is not forked again
+      Assert.assertFalse (ex.isConnectionLost (), ex.getMessage ());
+    }
+    final String port = loadRegistry ("test").getProperty ("port");
+
+    // the same daemon runs the next job
+    Assert.assertThrows (WorkerProtocol.JobFailedException.class,
+                         () -> WorkerDaemon.run (dir, "test", "jdk", LAUNCH, 60_000, 30_000, JOB, line -> {}));
+    Assert.assertEquals (loadRegistry ("test").getProperty ("port"), port);
+  }
+
+  @Test (timeOut = 60_000)
+  public void testTokenRejected () throws Exception
+  {
+    Assert.assertThrows (WorkerProtocol.JobFailedException.class,
+                         () -> WorkerDaemon.run (dir, "test", "jdk", LAUNCH, 60_000, 30_000, JOB, line -> {}));
+    final Properties reg = loadRegistry ("test");
+    try (Socket s = connect (reg);
+        DataOutputStream out = new DataOutputStream (new BufferedOutputStream (s.getOutputStream ()));
+        DataInputStream in = new DataInputStream (new BufferedInputStream (s.getInputStream ())))
+    {
+      WorkerProtocol.writeString (out, "wrong" + reg.getProperty ("token"));
+      out.writeInt (WorkerProtocol.VERSION);
+      WorkerProtocol.writeString (out, WorkerProtocol.CMD_STOP);
+      out.flush ();
+      Assert.assertEquals (in.read (), -1);
+    }
+
+    // not stopped
+    Assert.assertThrows (WorkerProtocol.JobFailedException.class,
+                         () -> WorkerDaemon.run (dir, "test", "jdk", LAUNCH, 60_000, 30_000, JOB, line -> {}));
+    Assert.assertEquals (loadRegistry ("test").getProperty ("port"), reg.getProperty ("port"));
+  }
+
+  @Test (timeOut = 60_000)
+  public void testIdleShutdown () throws Exception
+  {
+    Assert.assertThrows (WorkerProtocol.JobFailedException.class,
+                         () -> WorkerDaemon.run (dir, "test", "jdk", LAUNCH, 1_000, 30_000, JOB, line -> {}));
+    Assert.assertNotNull (loadRegistry ("test"));
+    // the daemon removes its registry when it stops
+    while (loadRegistry ("test") != null)
+    {
+      Thread.sleep (200);
+    }
+  }
+
+  private Properties loadRegistry (final String key) throws IOException
+  {
+    final File registry = new File (dir, "daemon-" + key + ".properties");
+    if (!registry.isFile ())
+    {
+      return null;
+    }
+    final Properties reg = new Properties ();
+    try (InputStream is = new FileInputStream (registry))
+    {
+      reg.load (is);
+    }
+    return reg;
+  }
+
+  private static Socket connect (final Properties reg) throws IOException
+  {
+    return new Socket (InetAddress.getLoopbackAddress (), Integer.parseInt (reg.getProperty ("port")));
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WorkerPoolTest
+{
+  private static final WorkerProtocol.Job JOB = new WorkerProtocol.Job ("Tool",
+                                                                        "",
+                                                                        null,
+                                                                        new String [0],
+                                                                        new Properties ());
+
+  @Test (timeOut = 10_000)
+  public void testRunAfterClose () throws Exception
+  {
+    final WorkerPool pool = new WorkerPool (Collections.singletonList ("java"), 0);
+    pool.close ();
+    try
+    {
+      pool.run (JOB, line -> {});
+      Assert.fail ("run on closed pool");
+    }
+    catch (final IOException ex)
+    {
+      Assert.assertTrue (ex.getMessage ().contains ("closed"), ex.getMessage ());
+    }
+  }
+
+  @Test (timeOut = 10_000)
+  public void testCloseWhileWaiting () throws Exception
+  {
+    // no workers, so run waits until the pool is closed
+    final WorkerPool pool = new WorkerPool (Collections.singletonList ("java"), 0);
+    final AtomicReference <Exception> failure = new AtomicReference <> ();
+    final Thread t = new Thread ( () -> {
+      try
+      {
+        pool.run (JOB, line -> {});
+      }
+      catch (final Exception ex)
+      {
+        failure.set (ex);
+      }
+    });
+    t.start ();
+    Thread.sleep (300);
+    Assert.assertTrue (t.isAlive ());
+    pool.close ();
+    t.join ();
+    Assert.assertTrue (failure.get () instanceof IOException, String.valueOf (failure.get ()));
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * This file incorporates work covered by the following copyright and
+ * permission notice:
+ *
+ * Copyright 2006 Codehaus
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.mojo.jaxws;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WorkerProtocolTest
+{
+  @Test
+  public void testJob () throws IOException
+  {
+    final Properties sysProps = new Properties ();
+    sysProps.setProperty ("http.proxyHost", "proxy");
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+    final String [] args = { "-d", "\u00e9" };
+    WorkerProtocol.writeJob (new DataOutputStream (bos),
+                             new WorkerProtocol.Job ("Tool", "a.jar", null, args, sysProps));
+
+    final DataInputStream in = new DataInputStream (new ByteArrayInputStream (bos.toByteArray ()));
+    final WorkerProtocol.Job job = WorkerProtocol.readJob (in);
+    Assert.assertEquals (job.m_sToolClass, "Tool");
+    Assert.assertEquals (job.m_sCP, "a.jar");
+    Assert.assertNull (job.m_sExtraCP);
+    Assert.assertEquals (job.m_aArgs, args);
+    Assert.assertEquals (job.m_aSysProps, sysProps);
+  }
+
+  @Test
+  public void testResult () throws Exception
+  {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+    final DataOutputStream out = new DataOutputStream (bos);
+    out.writeByte (WorkerProtocol.OUTPUT);
+    WorkerProtocol.writeString (out, "parsing WSDL...");
+    out.writeByte (WorkerProtocol.RESULT);
+    out.writeBoolean (false);
+
+    final List <String> output = new ArrayList <> ();
+    Assert.assertFalse (WorkerProtocol.readResult (new DataInputStream (new ByteArrayInputStream (bos.toByteArray ())),
+                                                   output::add));
+    Assert.assertEquals (output, Arrays.asList ("parsing WSDL..."));
+  }
+
+  @Test
+  public void testFailure () throws IOException
+  {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+    final DataOutputStream out = new DataOutputStream (bos);
+    out.writeByte (WorkerProtocol.FAILURE);
+    WorkerProtocol.writeString (out, "java.lang.ClassNotFoundException: Tool");
+    try
+    {
+      WorkerProtocol.readResult (new DataInputStream (new ByteArrayInputStream (bos.toByteArray ())), line -> {});
+      Assert.fail ("failure not reported");
+    }
+    catch (final WorkerProtocol.JobFailedException ex)
+    {
+      // the worker survived and may run the next job
+      Assert.assertFalse (ex.isConnectionLost ());
+      Assert.assertTrue (ex.getMessage ().contains ("ClassNotFoundException"), ex.getMessage ());
+    }
+  }
+
+  @Test
+  public void testConnectionLost () throws IOException
+  {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+    final DataOutputStream out = new DataOutputStream (bos);
+    out.writeByte (WorkerProtocol.OUTPUT);
+    WorkerProtocol.writeString (out, "parsing WSDL...");
+    try
+    {
+      WorkerProtocol.readResult (new DataInputStream (new ByteArrayInputStream (bos.toByteArray ())), line -> {});
+      Assert.fail ("end of stream not reported");
+    }
+    catch (final WorkerProtocol.JobFailedException ex)
+    {
+      Assert.assertTrue (ex.isConnectionLost ());
+    }
+  }
+}
@@ -35,7 +35,13 @@
  */
 package org.codehaus.mojo.jaxws;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.maven.settings.Settings;
 import org.apache.maven.settings.io.xpp3.SettingsXpp3Reader;
@@ -43,6 +49,8 @@ import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.sun.tools.ws.wscompile.WsimportOptions;
+
 /**
  * @author Lukas Jungmann
  */
@@ -68,4 +76,42 @@ public class WsImportMojoTest
     proxyString = WsImportMojo.getActiveHttpProxy (s);
     Assert.assertEquals (proxyString, "proxyuser2@proxy1-auth2:7777");
   }
+
+  @Test
+  public void testSnapshotCatalogPrecedence () throws Exception
+  {
+    final String url = "http://example.com/types.xsd";
+    final File dir = Files.createTempDirectory ("catalogs").toFile ();
+    try
+    {
+      final File configured = writeCatalog (new File (dir, "jax-ws-catalog.xml"), url, "file:/configured.xsd");
+      final File snapshots = writeCatalog (new File (dir, "wsimport-snapshots.xml"), url, "file:/snapshot.xsd");
+      final List <String> args = new ArrayList <> (Arrays.asList ("-catalog", "'" + configured.getAbsolutePath () + "'"));
+      WsImportMojo.addSnapshotCatalog (args, snapshots);
+      args.add ("service.wsdl");
+
+      // as resolved by wsimport itself
+      final WsimportOptions options = new WsimportOptions ();
+      options.parseArguments (AbstractJaxwsMojo.toToolArgs (args));
+      Assert.assertEquals (options.entityResolver.resolveEntity (null, url).getSystemId (), "file:/snapshot.xsd");
+    }
+    finally
+    {
+      for (final File file : dir.listFiles ())
+      {
+        file.delete ();
+      }
+      dir.delete ();
+    }
+  }
+
+  private static File writeCatalog (final File file, final String systemId, final String uri) throws IOException
+  {
+    Files.write (file.toPath (),
+                 Arrays.asList ("<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\">",
+                                "  <system systemId=\"" + systemId + "\" uri=\"" + uri + "\"/>",
+                                "</catalog>"),
+                 StandardCharsets.UTF_8);
+    return file;
+  }
 }